@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package be.raildelays.batch;
+
+import be.raildelays.domain.Language;
+import org.apache.commons.lang3.time.DateUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+@ContextConfiguration(locations = {"/jobs/steps/retrieve-data-from-afas-for-day-job-context.xml"})
+public class RetrieveDataFromAfasForDayJobIT extends AbstractContextIT {
+
+    /**
+     * SUT.
+     */
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Test
+    public void testGrabAllLineStops() throws Exception {
+        Map<String, JobParameter> parameters = new HashMap<>();
+        Calendar today = Calendar.getInstance();
+        Date date;
+
+        if (today.get(Calendar.DAY_OF_WEEK) == Calendar.SATURDAY ||
+                today.get(Calendar.DAY_OF_WEEK) == Calendar.SUNDAY) {
+            date = DateUtils.addDays(today.getTime(), -2);
+        } else {
+            date = today.getTime();
+        }
+
+        parameters.put("date", new JobParameter(date));
+        parameters.put("language", new JobParameter(Language.EN.name()));
+
+        BatchStatus batchStatus = jobLauncherTestUtils.launchJob(new JobParameters(parameters)).getStatus();
+
+        Assert.assertFalse(batchStatus.isUnsuccessful());
+    }
+}
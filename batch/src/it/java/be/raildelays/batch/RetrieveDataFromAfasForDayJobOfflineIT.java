@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package be.raildelays.batch;
+
+import be.raildelays.domain.Language;
+import be.raildelays.httpclient.ResponseArchive;
+import be.raildelays.httpclient.impl.DelaysRequestV2;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameter;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * We replay a recorded response of AFAS without any network access.
+ */
+@ActiveProfiles("offline")
+@ContextConfiguration(locations = {"/jobs/steps/retrieve-data-from-afas-for-day-job-context.xml"})
+public class RetrieveDataFromAfasForDayJobOfflineIT extends AbstractContextIT {
+
+    private static final LocalDate DAY = LocalDate.of(2015, 4, 8);
+
+    /**
+     * SUT.
+     */
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private ResponseArchive afasArchive;
+
+    @Before
+    public void setUp() throws Exception {
+        afasArchive.put(new DelaysRequestV2("477", DAY, Language.EN),
+                IOUtils.toString(getClass().getResourceAsStream("/afas/sample1.json"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        Map<String, JobParameter> parameters = new HashMap<>();
+
+        parameters.put("date", new JobParameter(Date.from(DAY.atStartOfDay(ZoneId.systemDefault()).toInstant())));
+        parameters.put("language", new JobParameter(Language.EN.name()));
+
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob(new JobParameters(parameters));
+
+        Assert.assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+        Assert.assertEquals(1, jobExecution.getStepExecutions().iterator().next().getReadCount());
+    }
+}
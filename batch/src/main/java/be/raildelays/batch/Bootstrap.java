@@ -64,8 +64,9 @@ public class Bootstrap {
     }
 
     /**
-     * @param args offline: activate offline mode, norecovery: do not execute recovery, date: search delays for only
-     *             on date passed as parameter
+     * @param args offline: replay the recorded responses of the scraper instead of accessing the network, record:
+     *             record all responses of the scraper for the offline mode, norecovery: do not execute recovery,
+     *             date: search delays for only on date passed as parameter
      * @throws Exception
      */
     public static void main(String[] args) throws Exception {
@@ -75,6 +76,7 @@ public class Bootstrap {
         final List<LocalDate> dates;
 
         options.addOption("offline", false, "activate offline mode");
+        options.addOption("record", false, "record scraper responses for offline mode");
         options.addOption("norecovery", false, "do not execute recovery");
         options.addOption("date", false, "search delays for only on date passed as parameter");
 
@@ -94,7 +96,18 @@ public class Bootstrap {
             dates = ExcelFileUtils.generateListOfDates();
         }
 
-        ClassPathXmlApplicationContext applicationContext = new ClassPathXmlApplicationContext(contextPaths);
+        ClassPathXmlApplicationContext applicationContext = new ClassPathXmlApplicationContext();
+
+        if (cmd.hasOption("offline")) {
+            LOGGER.info("[Offline mode activated]");
+            applicationContext.getEnvironment().addActiveProfile("offline");
+        } else if (cmd.hasOption("record")) {
+            LOGGER.info("[Record mode activated]");
+            applicationContext.getEnvironment().addActiveProfile("record");
+        }
+
+        applicationContext.setConfigLocations(contextPaths);
+        applicationContext.refresh();
 
         //-- Initialize contexts
         applicationContext.registerShutdownHook(); // Register close of this Spring context to shutdown of the JVM
@@ -60,22 +60,28 @@ public class StationBasedExcelRowComparator<T extends ExcelRow> extends Abstract
     }
 
     protected Function<T, String> getStationName(Function<T, Station> keyExtractor) {
-        return excelRow -> {
-            Station station = keyExtractor.apply(excelRow);
-            String result = null;
+        return excelRow -> getStationName(keyExtractor.apply(excelRow));
+    }
+
+    /**
+     * @param station the one we want to compare
+     * @return the name of the {@link Station} in our {@link Language} without accents and in upper-case, or
+     * {@code null} if there is no name
+     */
+    public String getStationName(Station station) {
+        String result = null;
 
-            if (station != null) {
-                String stationName = station.getName(language);
+        if (station != null) {
+            String stationName = station.getName(language);
 
-                if (!"".equals(stationName)) {
-                    result = Normalizer
-                            .normalize(stationName, Normalizer.Form.NFD)
-                            .replaceAll("[^\\p{ASCII}]", "")
-                            .toUpperCase(Locale.ENGLISH);
-                }
+            if (!"".equals(stationName)) {
+                result = Normalizer
+                        .normalize(stationName, Normalizer.Form.NFD)
+                        .replaceAll("[^\\p{ASCII}]", "")
+                        .toUpperCase(Locale.ENGLISH);
             }
+        }
 
-            return result;
-        };
+        return result;
     }
 }
@@ -0,0 +1,51 @@
+package be.raildelays.batch.gtfs;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Read-only view of a GTFS feed offering lookups by identifier.
+ * Implementations must be thread-safe once they are published.
+ *
+ * @author Almex
+ * @since 2.0
+ * @see IndexedGtfsFeed
+ */
+public interface GtfsFeed {
+
+    /**
+     * Retrieve all {@link StopTime} of a trip ordered by {@code stop_sequence}.
+     *
+     * @param tripId GTFS {@code trip_id}
+     * @return an unmodifiable list, empty if the trip is unknown
+     */
+    List<StopTime> getStopTimes(String tripId);
+
+    /**
+     * Retrieve a {@link Trip} by its identifier.
+     * <p>
+     * The returned instance is shared: its {@link Trip#getStopTimes()} are not populated and it must not be modified.
+     * </p>
+     *
+     * @param tripId GTFS {@code trip_id}
+     * @return the corresponding {@link Trip} or {@code null} if it's unknown
+     */
+    Trip getTrip(String tripId);
+
+    /**
+     * Retrieve a {@link Stop} by its identifier.
+     *
+     * @param stopId GTFS {@code stop_id}
+     * @return the corresponding {@link Stop} or {@code null} if it's unknown
+     */
+    Stop getStop(String stopId);
+
+    /**
+     * Determine if a service is scheduled for a given date.
+     *
+     * @param serviceId GTFS {@code service_id}
+     * @param date      the date to check
+     * @return {@code true} if at least one calendar date has added this service for that day
+     */
+    boolean isActive(String serviceId, LocalDate date);
+}
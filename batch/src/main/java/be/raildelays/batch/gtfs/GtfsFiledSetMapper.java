@@ -5,16 +5,14 @@ import org.springframework.batch.item.file.transform.FieldSet;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.time.ZoneId;
-import java.time.chrono.IsoChronology;
-import java.time.format.DateTimeFormatter;
-import java.time.format.ResolverStyle;
-import java.util.Locale;
-import java.util.regex.Pattern;
 
 /**
  * Interface containing all common static methods between all {@link FieldSetMapper}
  * in reading GTFS data files.
+ * <p>
+ * Parsing is done character per character without any intermediate object: times are decoded to a number of
+ * seconds since midnight and dates to an epoch-day.
+ * </p>
  *
  * @author Almex
  * @since 2.0
@@ -23,41 +21,159 @@ public interface GtfsFiledSetMapper<T> extends FieldSetMapper<T> {
 
     String TIME_FORMAT = "HH:mm:ss";
     String DATE_FORMAT = "yyyyMMdd";
+    int SECONDS_PER_DAY = 24 * 60 * 60;
 
+    /**
+     * Extract all digits of a route short name to build a route id (e.g.: 'IC466' gives 466).
+     *
+     * @param shortName route short name
+     * @return the numeric value of all digits or {@code null} if {@code shortName} is {@code null}
+     * @throws NumberFormatException if there is no digit in {@code shortName} or if they do not fit in a {@code long}
+     */
     static Long parseRouteId(String shortName) {
-        StringBuilder builder = new StringBuilder();
-        Pattern pattern = Pattern.compile("[0-9]+");
         Long result = null;
 
         if (shortName != null) {
+            long value = 0;
+            boolean found = false;
+
             // Retrieved all numeric values
             for (int i = 0; i < shortName.length(); i++) {
                 char character = shortName.charAt(i);
 
-                if (pattern.matcher(new String(new char[]{character})).find()) {
-                    builder.append(character);
+                if (character >= '0' && character <= '9') {
+                    try {
+                        value = Math.addExact(Math.multiplyExact(value, 10), character - '0');
+                    } catch (ArithmeticException e) {
+                        throw new NumberFormatException("Too many digits in route short name: '" + shortName + "'");
+                    }
+                    found = true;
                 }
             }
 
-            result = Long.parseLong(builder.toString());
+            if (!found) {
+                throw new NumberFormatException("No digit found in route short name: '" + shortName + "'");
+            }
+
+            result = value;
         }
 
         return result;
     }
 
-    static LocalTime readTime(FieldSet fieldSet, String name) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(TIME_FORMAT, Locale.ENGLISH)
-                .withChronology(IsoChronology.INSTANCE)
-                .withResolverStyle(ResolverStyle.LENIENT); // We should be able to parse 25:00:01
-        String value = fieldSet.readString(name);
+    /**
+     * Parse a GTFS time 'HH:MM:SS' (or 'H:MM:SS') into a number of seconds since midnight.
+     * As defined by GTFS reference, hours can go beyond 23 (e.g.: '25:35:00') for trips ending after midnight.
+     *
+     * @param value GTFS time
+     * @return a number of seconds which can be greater than {@link #SECONDS_PER_DAY}
+     * @throws IllegalArgumentException if {@code value} is not a valid GTFS time
+     */
+    static int parseSecondsOfDay(CharSequence value) {
+        int length = value != null ? value.length() : 0;
+
+        if (length < 7 || value.charAt(length - 3) != ':' || value.charAt(length - 6) != ':') {
+            throw new IllegalArgumentException("Unparseable GTFS time: '" + value + "'");
+        }
+
+        int hours = parseDigits(value, 0, length - 6);
+        int minutes = parseDigits(value, length - 5, length - 3);
+        int seconds = parseDigits(value, length - 2, length);
+
+        if (minutes > 59 || seconds > 59) {
+            throw new IllegalArgumentException("Unparseable GTFS time: '" + value + "'");
+        }
+
+        return hours * 3600 + minutes * 60 + seconds;
+    }
 
-        return LocalTime.parse(value, formatter);
+    /**
+     * Parse a GTFS date 'YYYYMMDD' into an epoch-day (number of days since 1970-01-01).
+     *
+     * @param value GTFS date
+     * @return the epoch-day as would give {@link LocalDate#toEpochDay()}
+     * @throws IllegalArgumentException if {@code value} is not a valid GTFS date
+     */
+    static int parseEpochDay(CharSequence value) {
+        if (value == null || value.length() != 8) {
+            throw new IllegalArgumentException("Unparseable GTFS date: '" + value + "'");
+        }
+
+        int year = parseDigits(value, 0, 4);
+        int month = parseDigits(value, 4, 6);
+        int day = parseDigits(value, 6, 8);
+
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            throw new IllegalArgumentException("Unparseable GTFS date: '" + value + "'");
+        }
+
+        // Same algorithm as LocalDate.toEpochDay() (for positive years) without creating any LocalDate
+        long total = 365L * year;
+
+        total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+
+        return (int) (total - 719528); // Number of days from year 0 to 1970
+    }
+
+    static LocalTime readTime(FieldSet fieldSet, String name) {
+        // We should be able to parse 25:00:01 which is the day after at 01:00:01
+        return LocalTime.ofSecondOfDay(parseSecondsOfDay(fieldSet.readString(name)) % SECONDS_PER_DAY);
     }
 
     static LocalDate readDate(FieldSet fieldSet, String name) {
-        return fieldSet.readDate(name, DATE_FORMAT)
-                .toInstant()
-                .atZone(ZoneId.systemDefault())
-                .toLocalDate();
+        return LocalDate.ofEpochDay(parseEpochDay(fieldSet.readString(name)));
+    }
+
+    static int parseDigits(CharSequence value, int start, int end) {
+        int result = 0;
+
+        if (start >= end) {
+            throw new IllegalArgumentException("Missing digits in: '" + value + "'");
+        }
+
+        for (int i = start; i < end; i++) {
+            char character = value.charAt(i);
+
+            if (character < '0' || character > '9') {
+                throw new IllegalArgumentException("Unexpected character '" + character + "' in: '" + value + "'");
+            }
+
+            result = result * 10 + (character - '0');
+        }
+
+        return result;
+    }
+
+    static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    static int lengthOfMonth(int year, int month) {
+        int result;
+
+        switch (month) {
+            case 2:
+                result = isLeapYear(year) ? 29 : 28;
+                break;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                result = 30;
+                break;
+            default:
+                result = 31;
+        }
+
+        return result;
     }
 }
@@ -0,0 +1,185 @@
+package be.raildelays.batch.gtfs;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Immutable in-memory index of a GTFS feed.
+ * <p>
+ * It is built once by reading each GTFS file sequentially and then offers constant time lookups:
+ * <ul>
+ * <li>{@link StopTime}s grouped by {@code trip_id} and sorted by {@code stop_sequence}</li>
+ * <li>{@link Trip} keyed by {@code trip_id}</li>
+ * <li>{@link Stop} keyed by {@code stop_id}</li>
+ * <li>active dates of a {@code service_id} stored as a {@link BitSet} indexed by epoch-day</li>
+ * </ul>
+ * Each part of the index is optional: if no reader is given to the {@link Builder} the corresponding
+ * lookup will always return an empty result.
+ * </p>
+ *
+ * @author Almex
+ * @since 2.0
+ */
+public class IndexedGtfsFeed implements GtfsFeed {
+
+    private final Map<String, List<StopTime>> stopTimesByTripId;
+    private final Map<String, Trip> tripsById;
+    private final Map<String, Stop> stopsById;
+    private final Map<String, BitSet> activeDatesByServiceId;
+    private final long firstEpochDay;
+
+    private IndexedGtfsFeed(Builder builder) {
+        this.stopTimesByTripId = builder.stopTimesByTripId;
+        this.tripsById = builder.tripsById;
+        this.stopsById = builder.stopsById;
+        this.activeDatesByServiceId = builder.activeDatesByServiceId;
+        this.firstEpochDay = builder.firstEpochDay;
+    }
+
+    @Override
+    public List<StopTime> getStopTimes(String tripId) {
+        List<StopTime> result = tripId != null ? stopTimesByTripId.get(tripId) : null;
+
+        return result != null ? result : Collections.emptyList();
+    }
+
+    @Override
+    public Trip getTrip(String tripId) {
+        return tripId != null ? tripsById.get(tripId) : null;
+    }
+
+    @Override
+    public Stop getStop(String stopId) {
+        return stopId != null ? stopsById.get(stopId) : null;
+    }
+
+    @Override
+    public boolean isActive(String serviceId, LocalDate date) {
+        boolean result = false;
+
+        if (serviceId != null && date != null) {
+            BitSet activeDates = activeDatesByServiceId.get(serviceId);
+            long index = date.toEpochDay() - firstEpochDay;
+
+            result = activeDates != null && index >= 0 && index < Integer.MAX_VALUE && activeDates.get((int) index);
+        }
+
+        return result;
+    }
+
+    /**
+     * Build a {@link IndexedGtfsFeed} from {@link ItemStreamReader}s. Each reader is opened, consumed once and closed.
+     *
+     * @author Almex
+     * @since 2.0
+     */
+    public static class Builder {
+
+        private Map<String, List<StopTime>> stopTimesByTripId = Collections.emptyMap();
+        private Map<String, Trip> tripsById = Collections.emptyMap();
+        private Map<String, Stop> stopsById = Collections.emptyMap();
+        private Map<String, BitSet> activeDatesByServiceId = Collections.emptyMap();
+        private long firstEpochDay;
+
+        public Builder stopTimes(ItemStreamReader<StopTime> reader) {
+            Map<String, List<StopTime>> index = new HashMap<>();
+
+            readAll(reader, stopTime -> {
+                if (stopTime.getTripId() != null) {
+                    index.computeIfAbsent(stopTime.getTripId(), key -> new ArrayList<>()).add(stopTime);
+                }
+            });
+
+            for (Map.Entry<String, List<StopTime>> entry : index.entrySet()) {
+                List<StopTime> stopTimes = entry.getValue();
+
+                stopTimes.sort(StopTime.STOP_SEQUENCE_ORDER);
+                entry.setValue(Collections.unmodifiableList(stopTimes));
+            }
+
+            this.stopTimesByTripId = index;
+
+            return this;
+        }
+
+        public Builder trips(ItemStreamReader<Trip> reader) {
+            Map<String, Trip> index = new HashMap<>();
+
+            readAll(reader, trip -> {
+                if (trip.getTripId() != null) {
+                    index.putIfAbsent(trip.getTripId(), trip);
+                }
+            });
+
+            this.tripsById = index;
+
+            return this;
+        }
+
+        public Builder stops(ItemStreamReader<Stop> reader) {
+            Map<String, Stop> index = new HashMap<>();
+
+            readAll(reader, stop -> {
+                if (stop.getStopId() != null) {
+                    index.putIfAbsent(stop.getStopId(), stop);
+                }
+            });
+
+            this.stopsById = index;
+
+            return this;
+        }
+
+        public Builder calendarDates(ItemStreamReader<CalendarDate> reader) {
+            List<CalendarDate> addedDates = new ArrayList<>();
+            Map<String, BitSet> index = new HashMap<>();
+            long minEpochDay = Long.MAX_VALUE;
+
+            // Only added dates make a service active, removed ones are only relevant against calendar.txt
+            readAll(reader, calendarDate -> {
+                if (calendarDate.getServiceId() != null
+                        && calendarDate.getDate() != null
+                        && calendarDate.isIncluded(calendarDate.getDate())) {
+                    addedDates.add(calendarDate);
+                }
+            });
+
+            for (CalendarDate calendarDate : addedDates) {
+                minEpochDay = Math.min(minEpochDay, calendarDate.getDate().toEpochDay());
+            }
+
+            for (CalendarDate calendarDate : addedDates) {
+                int bitIndex = (int) (calendarDate.getDate().toEpochDay() - minEpochDay);
+
+                index.computeIfAbsent(calendarDate.getServiceId(), key -> new BitSet()).set(bitIndex);
+            }
+
+            this.activeDatesByServiceId = index;
+            this.firstEpochDay = addedDates.isEmpty() ? 0 : minEpochDay;
+
+            return this;
+        }
+
+        public IndexedGtfsFeed build() {
+            return new IndexedGtfsFeed(this);
+        }
+
+        private static <T> void readAll(ItemStreamReader<T> reader, Consumer<T> consumer) {
+            reader.open(new ExecutionContext());
+
+            try {
+                for (T actual = reader.read(); actual != null; actual = reader.read()) {
+                    consumer.accept(actual);
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException("Exception occurred when reading from a GTFS file", e);
+            } finally {
+                reader.close();
+            }
+        }
+    }
+}
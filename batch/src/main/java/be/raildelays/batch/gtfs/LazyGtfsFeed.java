@@ -0,0 +1,118 @@
+package be.raildelays.batch.gtfs;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.item.ItemStreamReader;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * {@link GtfsFeed} building its {@link IndexedGtfsFeed} from the given readers the first time it is accessed.
+ * <p>
+ * This is the implementation to declare in a Spring context: with {@code scope="step"} every processor
+ * of a step execution shares the same index which is built only once. Each reader is optional.
+ * </p>
+ * <p>
+ * The job scope is not available within the threads of a partitioned step. To share one index between all
+ * partitions, declare it as a singleton and register it as a listener of the job: the index is then released
+ * at the end of each job execution and rebuilt by the next one.
+ * </p>
+ *
+ * @author Almex
+ * @since 2.0
+ */
+public class LazyGtfsFeed implements GtfsFeed, JobExecutionListener {
+
+    private ItemStreamReader<StopTime> stopTimesReader;
+    private ItemStreamReader<Trip> tripsReader;
+    private ItemStreamReader<Stop> stopsReader;
+    private ItemStreamReader<CalendarDate> calendarDatesReader;
+    private volatile GtfsFeed delegate;
+
+    @Override
+    public List<StopTime> getStopTimes(String tripId) {
+        return getDelegate().getStopTimes(tripId);
+    }
+
+    @Override
+    public Trip getTrip(String tripId) {
+        return getDelegate().getTrip(tripId);
+    }
+
+    @Override
+    public Stop getStop(String stopId) {
+        return getDelegate().getStop(stopId);
+    }
+
+    @Override
+    public boolean isActive(String serviceId, LocalDate date) {
+        return getDelegate().isActive(serviceId, date);
+    }
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        // Nothing to do: the index is built on first access
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        synchronized (this) {
+            delegate = null;
+        }
+    }
+
+    private GtfsFeed getDelegate() {
+        GtfsFeed result = delegate;
+
+        if (result == null) {
+            synchronized (this) {
+                result = delegate;
+
+                if (result == null) {
+                    delegate = result = buildIndex();
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private GtfsFeed buildIndex() {
+        IndexedGtfsFeed.Builder builder = new IndexedGtfsFeed.Builder();
+
+        if (stopTimesReader != null) {
+            builder.stopTimes(stopTimesReader);
+        }
+
+        if (tripsReader != null) {
+            builder.trips(tripsReader);
+        }
+
+        if (stopsReader != null) {
+            builder.stops(stopsReader);
+        }
+
+        if (calendarDatesReader != null) {
+            builder.calendarDates(calendarDatesReader);
+        }
+
+        return builder.build();
+    }
+
+    public void setStopTimesReader(ItemStreamReader<StopTime> stopTimesReader) {
+        this.stopTimesReader = stopTimesReader;
+    }
+
+    public void setTripsReader(ItemStreamReader<Trip> tripsReader) {
+        this.tripsReader = tripsReader;
+    }
+
+    public void setStopsReader(ItemStreamReader<Stop> stopsReader) {
+        this.stopsReader = stopsReader;
+    }
+
+    public void setCalendarDatesReader(ItemStreamReader<CalendarDate> calendarDatesReader) {
+        this.calendarDatesReader = calendarDatesReader;
+    }
+}
@@ -1,6 +1,7 @@
 package be.raildelays.batch.gtfs;
 
 import java.time.LocalTime;
+import java.util.Comparator;
 
 /**
  * Bean representation of GTFS stop_times.txt file.
@@ -10,6 +11,13 @@ import java.time.LocalTime;
  */
 public class StopTime {
 
+    /**
+     * Order {@link StopTime}s of a same trip by {@code stop_sequence} ({@code null} values are put at the end).
+     */
+    public static final Comparator<StopTime> STOP_SEQUENCE_ORDER = Comparator.comparing(
+            StopTime::getStopSequence, Comparator.nullsLast(Comparator.naturalOrder())
+    );
+
     private String tripId;
     private LocalTime departureTime;
     private LocalTime arrivalTime;
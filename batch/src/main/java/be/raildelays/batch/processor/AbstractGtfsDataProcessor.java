@@ -4,7 +4,9 @@ import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemStreamReader;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Group some useful static methods for all {@link ItemProcessor} dealing with GTFS data.
@@ -14,22 +16,15 @@ import java.util.*;
  */
 public abstract class AbstractGtfsDataProcessor<I, O> implements ItemProcessor<I, O> {
 
-    private static Map<ItemStreamReader<?>, List<?>> cache = new WeakHashMap<>(3);
-
-    @SuppressWarnings("unchecked") // The caching doesn't have to know the type
+    /**
+     * Read the whole content of a GTFS file. Nothing is cached: the caller is responsible to keep (or not) the
+     * result. To make lookups prefer a {@link be.raildelays.batch.gtfs.GtfsFeed}.
+     *
+     * @param reader to open, read until the end and close
+     * @param <O>    type of item
+     * @return an unmodifiable list of all items
+     */
     protected static <O> List<O> readAll(ItemStreamReader<O> reader) {
-        List<O> result = (List<O>) cache.get(reader);
-
-        // Cache Manager
-        if (result == null) {
-            result = doReadAll(reader);
-            cache.put(reader, result);
-        }
-
-        return result;
-    }
-
-    protected static <O> List<O> doReadAll(ItemStreamReader<O> reader) {
         List<O> result = new ArrayList<>();
 
         reader.open(new ExecutionContext());
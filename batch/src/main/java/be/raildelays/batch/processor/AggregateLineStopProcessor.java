@@ -1,5 +1,6 @@
 package be.raildelays.batch.processor;
 
+import be.raildelays.batch.support.ReferenceDataCache;
 import be.raildelays.domain.entities.LineStop;
 import be.raildelays.domain.entities.Station;
 import be.raildelays.domain.entities.TrainLine;
@@ -9,12 +10,28 @@ import be.raildelays.repository.LineStopDao;
 import be.raildelays.repository.StationDao;
 import be.raildelays.repository.TrainLineDao;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
 
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Make sure to not create duplication in our database when retrieving data from GTFS.
+ * <p>
+ * This processor is thread-safe: several instances can run concurrently (e.g.: within a partitioned step).
+ * A missing {@link Station} or {@link TrainLine} is created while holding a lock shared by all instances and
+ * derived from its business key. If a {@code transactionManager} is given, the creation is committed in its own
+ * transaction before releasing the lock. Then other threads can see it instead of inserting a duplicate.
+ * Without {@code transactionManager} the creation joins the current transaction which is only safe in a
+ * single-threaded step.
+ * </p>
+ * <p>
+ * With a {@link ReferenceDataCache}, stations and train lines are searched in memory first. As it can only contain
+ * committed entities, a {@code transactionManager} is then mandatory.
+ * </p>
  *
  * @author Almex
  * @since 2.0
@@ -24,19 +41,32 @@ public class AggregateLineStopProcessor extends AbstractGtfsDataProcessor<LineSt
     private TrainLineDao trainLineDao;
     private LineStopDao lineStopDao;
     private StationDao stationDao;
+    private TransactionTemplate transactionTemplate;
+    private ReferenceDataCache referenceDataCache;
 
+    private static final int LOCK_STRIPES = 64;
+    private static final Object[] LOCKS = new Object[LOCK_STRIPES];
     private static final Logger LOGGER = LoggerFactory.getLogger("Agg", AggregateLineStopProcessor.class);
 
+    static {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            LOCKS[i] = new Object();
+        }
+    }
+
     @Override
     public void afterPropertiesSet() throws Exception {
         Assert.notNull(trainLineDao, "The property 'trainLineDao' is mandatory");
         Assert.notNull(lineStopDao, "The property 'lineStopDao' is mandatory");
         Assert.notNull(stationDao, "The property 'stationDao' is mandatory");
+        Assert.isTrue(referenceDataCache == null || transactionTemplate != null,
+                "The property 'transactionManager' is mandatory when using a 'referenceDataCache'");
     }
 
     @Override
     public LineStop process(LineStop item) throws Exception {
-        LineStop result = passThrough(item, this::merge);
+        ExistingLineStops existingLineStops = ExistingLineStops.of(lineStopDao, item);
+        LineStop result = passThrough(item, lineStop -> merge(lineStop, existingLineStops));
 
         if (result == null) {
             result = passThrough(item, this::aggregate);
@@ -76,30 +106,55 @@ public class AggregateLineStopProcessor extends AbstractGtfsDataProcessor<LineSt
     }
 
     private LineStop.Builder aggregate(LineStop item) {
-        LineStop.Builder result = new LineStop.Builder(item, false, false);
-        Station station = findStation(item.getStation());
-        TrainLine trainLine = trainLineDao.findByRouteId(item.getTrainLine().getRouteId());
-
-        if (station != null) {
-            result.station(station);
-        } else {
-            result.station(stationDao.save(item.getStation()));
-        }
+        Station station = item.getStation();
+        TrainLine trainLine = item.getTrainLine();
+
+        Supplier<Station> stationLoader = () -> findOrCreate(
+                station.getEnglishName() + station.getDutchName() + station.getFrenchName(),
+                () -> findStation(station),
+                () -> stationDao.save(station)
+        );
+        Supplier<TrainLine> trainLineLoader = () -> findOrCreate(
+                trainLine.getRouteId(),
+                () -> trainLineDao.findByRouteId(trainLine.getRouteId()),
+                () -> trainLineDao.save(trainLine)
+        );
+
+        return new LineStop.Builder(item, false, false)
+                .station(referenceDataCache != null ?
+                        referenceDataCache.getStation(station, stationLoader) : stationLoader.get())
+                .trainLine(referenceDataCache != null ?
+                        referenceDataCache.getTrainLine(trainLine, trainLineLoader) : trainLineLoader.get());
+    }
 
-        if (trainLine != null) {
-            result.trainLine(trainLine);
-        } else {
-            result.trainLine(trainLineDao.save(item.getTrainLine()));
+    /**
+     * Double-checked find-or-create: the lock is only taken when the first search gives nothing.
+     */
+    private <T> T findOrCreate(Object key, Supplier<T> finder, Supplier<T> creator) {
+        T result = finder.get();
+
+        if (result == null) {
+            synchronized (LOCKS[Math.floorMod(key != null ? key.hashCode() : 0, LOCK_STRIPES)]) {
+                if (transactionTemplate != null) {
+                    transactionTemplate.execute(status -> finder.get() != null ? null : creator.get());
+                    // We search it again to get an entity attached to the current transaction
+                    result = finder.get();
+                } else {
+                    result = finder.get();
+
+                    if (result == null) {
+                        result = creator.get();
+                    }
+                }
+            }
         }
 
         return result;
     }
 
-    private LineStop.Builder merge(LineStop item) {
+    private LineStop.Builder merge(LineStop item, ExistingLineStops existingLineStops) {
         LineStop.Builder result = null; // If we don't find any existing data we return null
-        LineStop actual = lineStopDao.findByTrainLineAndDateAndStation(
-                item.getTrainLine(), item.getDate(), item.getStation()
-        );
+        LineStop actual = existingLineStops.get(item);
 
         if (actual != null) {
             result = new LineStop.Builder(item, false, false)
@@ -122,4 +177,13 @@ public class AggregateLineStopProcessor extends AbstractGtfsDataProcessor<LineSt
     public void setStationDao(StationDao stationDao) {
         this.stationDao = stationDao;
     }
+
+    public void setReferenceDataCache(ReferenceDataCache referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
 }
@@ -1,5 +1,6 @@
 package be.raildelays.batch.processor;
 
+import be.raildelays.batch.gtfs.GtfsFeed;
 import be.raildelays.batch.gtfs.GtfsFiledSetMapper;
 import be.raildelays.batch.gtfs.Stop;
 import be.raildelays.batch.gtfs.StopTime;
@@ -11,7 +12,6 @@ import be.raildelays.domain.entities.Station;
 import be.raildelays.domain.entities.TrainLine;
 import be.raildelays.logging.Logger;
 import be.raildelays.logging.LoggerFactory;
-import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.util.Assert;
 
@@ -25,7 +25,7 @@ import java.time.LocalDate;
  */
 public class BuildLineStopProcessor extends AbstractGtfsDataProcessor<Trip, LineStop> implements InitializingBean {
 
-    private ItemStreamReader<Stop> stopsReader;
+    private GtfsFeed feed;
     private Language lang;
     private LocalDate date;
 
@@ -36,7 +36,7 @@ public class BuildLineStopProcessor extends AbstractGtfsDataProcessor<Trip, Line
     public void afterPropertiesSet() throws Exception {
         Assert.notNull(lang, "The property 'lang' is mandatory");
         Assert.notNull(date, "The property 'date' is mandatory");
-        Assert.notNull(stopsReader, "The property 'stopsReader' is mandatory");
+        Assert.notNull(feed, "The property 'feed' is mandatory");
     }
 
     @Override
@@ -53,14 +53,19 @@ public class BuildLineStopProcessor extends AbstractGtfsDataProcessor<Trip, Line
 
     private LineStop.Builder buildLineStop(Trip item) {
         LineStop.Builder result = null;
+        Long routeId = null;
 
         for (StopTime stopTime : item.getStopTimes()) {
-            Stop stop = findStop(stopTime.getStopId());
+            Stop stop = feed.getStop(stopTime.getStopId());
 
             if (stop != null && stop.getLocationType().equals(Stop.LocationType.NOT_PHYSICAL)) {
+                if (routeId == null) {
+                    // Parsed only once per trip
+                    routeId = GtfsFiledSetMapper.parseRouteId(item.getRouteId());
+                }
+
                 LineStop.Builder current = new LineStop.Builder()
-                        .trainLine(new TrainLine.Builder(GtfsFiledSetMapper.parseRouteId(item.getRouteId()))
-                                .build(false))
+                        .trainLine(new TrainLine.Builder(routeId).build(false))
                         .arrivalTime(TimeDelay.of(stopTime.getArrivalTime()))
                         .departureTime(TimeDelay.of(stopTime.getDepartureTime()))
                         .station(getStation(stop))
@@ -107,22 +112,8 @@ public class BuildLineStopProcessor extends AbstractGtfsDataProcessor<Trip, Line
         return result;
     }
 
-    private Stop findStop(String stopId) {
-        Stop result = null;
-
-        if (stopId != null) {
-            result = readAll(stopsReader)
-                    .parallelStream()
-                    .filter(stop -> stopId.equals(stop.getStopId()))
-                    .findFirst()
-                    .orElse(null);
-        }
-
-        return result;
-    }
-
-    public void setStopsReader(ItemStreamReader<Stop> stopsReader) {
-        this.stopsReader = stopsReader;
+    public void setFeed(GtfsFeed feed) {
+        this.feed = feed;
     }
 
     public void setLang(Language lang) {
@@ -0,0 +1,103 @@
+package be.raildelays.batch.processor;
+
+import be.raildelays.domain.entities.LineStop;
+import be.raildelays.domain.entities.Station;
+import be.raildelays.domain.entities.TrainLine;
+import be.raildelays.repository.LineStopDao;
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Index of the {@link LineStop} already persisted for a whole chain, retrieved with a single query.
+ * <p>
+ * Like {@link be.raildelays.repository.specification.LineStopSpecifications#stationEquals(Station)}, a station is
+ * matched on its first non-blank name in the order English, French and Dutch while ignoring the case.
+ * The train line is matched on its route id.
+ * </p>
+ *
+ * @author Almex
+ * @since 2.0
+ */
+final class ExistingLineStops {
+
+    private final Map<String, LineStop> index = new HashMap<>();
+
+    private ExistingLineStops() {
+    }
+
+    /**
+     * Retrieve all existing {@link LineStop} sharing a train line and a date with any stop of the chain.
+     *
+     * @param lineStopDao repository used to do the query
+     * @param item        any stop of the chain
+     * @return an index of the existing {@link LineStop}
+     */
+    static ExistingLineStops of(LineStopDao lineStopDao, LineStop item) {
+        ExistingLineStops result = new ExistingLineStops();
+        Set<TrainLine> trainLines = new HashSet<>();
+        Set<LocalDate> dates = new HashSet<>();
+        LineStop head = item;
+
+        while (head.getPrevious() != null) {
+            head = head.getPrevious();
+        }
+
+        for (LineStop lineStop = head; lineStop != null; lineStop = lineStop.getNext()) {
+            trainLines.add(lineStop.getTrainLine());
+            dates.add(lineStop.getDate());
+        }
+
+        lineStopDao.findByTrainLinesAndDates(trainLines, dates).forEach(result::put);
+
+        return result;
+    }
+
+    /**
+     * @param item the one we are searching for
+     * @return the existing {@link LineStop} of the same train line, date and station or {@code null}
+     */
+    LineStop get(LineStop item) {
+        return index.get(key(item, stationKey(item.getStation())));
+    }
+
+    private void put(LineStop lineStop) {
+        Station station = lineStop.getStation();
+
+        putIfNotBlank(lineStop, "EN", station.getEnglishName());
+        putIfNotBlank(lineStop, "FR", station.getFrenchName());
+        putIfNotBlank(lineStop, "NL", station.getDutchName());
+    }
+
+    private void putIfNotBlank(LineStop lineStop, String language, String name) {
+        if (StringUtils.isNotBlank(name)) {
+            index.putIfAbsent(key(lineStop, normalise(language, name)), lineStop);
+        }
+    }
+
+    private static String stationKey(Station station) {
+        String result = null;
+
+        if (station != null) {
+            if (StringUtils.isNotBlank(station.getEnglishName())) {
+                result = normalise("EN", station.getEnglishName());
+            } else if (StringUtils.isNotBlank(station.getFrenchName())) {
+                result = normalise("FR", station.getFrenchName());
+            } else if (StringUtils.isNotBlank(station.getDutchName())) {
+                result = normalise("NL", station.getDutchName());
+            }
+        }
+
+        return result;
+    }
+
+    private static String normalise(String language, String name) {
+        return language + ':' + name.toUpperCase(Locale.ENGLISH);
+    }
+
+    private static String key(LineStop lineStop, String stationKey) {
+        return (lineStop.getTrainLine() != null ? lineStop.getTrainLine().getRouteId() : null)
+                + "|" + lineStop.getDate() + "|" + stationKey;
+    }
+}
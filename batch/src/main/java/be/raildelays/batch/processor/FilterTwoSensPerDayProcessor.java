@@ -30,27 +30,55 @@ import be.raildelays.domain.Language;
 import be.raildelays.logging.Logger;
 import be.raildelays.logging.LoggerFactory;
 import org.apache.commons.lang.Validate;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.annotation.AfterStep;
+import org.springframework.batch.core.annotation.AfterWrite;
+import org.springframework.batch.core.annotation.BeforeStep;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemStreamException;
 import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.resource.ResourceContext;
+import org.springframework.batch.support.ResourceContextAccessibleItemStream;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
 
-import java.util.Locale;
+import java.time.LocalDate;
+import java.util.*;
 
 /**
  * Filter items to get only two. One for departure and the other one for arrival.
  * The only remaining items are those which have the maximum delay for a given sens.
+ * <p>
+ * Rows of the {@code outputReader} are read only once, at step start (or at the first item if it's not registered
+ * as a step listener), to build an index of (date, departure station, arrival station) to (resource, row index,
+ * delay). Stations are compared like {@link StationBasedExcelRowComparator} does.
+ * </p>
+ * <p>
+ * Registered as a step listener, this index is then updated with the rows emitted by the writer. The writer sorts
+ * the Excel sheet and gives to each written row its new position (see
+ * {@link org.springframework.batch.item.support.SortedItemStreamWriter}): its row index is this position plus
+ * {@code rowsToSkip}. The rows of the same resource following a replaced or an inserted row are shifted as the writer
+ * did. The resource of the written rows is taken from the {@link ResourceContext} of the {@code outputWriter}: we
+ * expect a chunk to be written into a single resource. Without {@code outputWriter}, we consider that there is only
+ * one resource.
+ * </p>
  *
  * @author Almex
  * @since 1.0
  */
 public class FilterTwoSensPerDayProcessor implements ItemProcessor<BatchExcelRow, BatchExcelRow>, InitializingBean {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger("2Ss", AggregateExpectedTimeProcessor.class);
+    private static final Logger LOGGER = LoggerFactory.getLogger("2Ss", FilterTwoSensPerDayProcessor.class);
     private ItemStreamReader<BatchExcelRow> outputReader;
+    private ResourceContextAccessibleItemStream outputWriter;
     private ExecutionContext executionContext;
     private String language = Language.EN.name();
+    private int rowsToSkip = 0;
+    private StationBasedExcelRowComparator<BatchExcelRow> comparator;
+    private Map<Key, Entry> index;
+    private final Map<BatchExcelRow, Entry> replacements = new IdentityHashMap<>();
 
     private static boolean isEmpty(Object object) {
         return object == null;
@@ -62,94 +90,196 @@ public class FilterTwoSensPerDayProcessor implements ItemProcessor<BatchExcelRow
         this.executionContext = new ExecutionContext();
     }
 
+    @BeforeStep
+    public void beforeStep(StepExecution stepExecution) {
+        index = null;
+        replacements.clear();
+        buildIndex();
+    }
+
+    @AfterStep
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        index = null;
+        replacements.clear();
+
+        return null;
+    }
+
+    /**
+     * Add to our index the rows emitted by the writer with their new row index and shift the rows they have moved.
+     *
+     * @param items written by the writer
+     */
+    @AfterWrite
+    public void afterWrite(List<? extends BatchExcelRow> items) {
+        if (index != null) {
+            Resource resource = getCurrentResource(outputWriter);
+            Set<Entry> replaced = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<Long> removedIndexes = new ArrayList<>();
+            List<Long> insertedIndexes = new ArrayList<>();
+
+            for (BatchExcelRow item : items) {
+                Entry entry = replacements.get(item);
+
+                if (entry != null && entry.index != null) {
+                    replaced.add(entry);
+                    removedIndexes.add(entry.index);
+                }
+
+                if (item != null && item.getIndex() != null) {
+                    insertedIndexes.add(item.getIndex() + rowsToSkip);
+                }
+            }
+
+            Collections.sort(removedIndexes);
+            Collections.sort(insertedIndexes);
+
+            for (Entry entry : index.values()) {
+                if (entry.index != null && !replaced.contains(entry)
+                        && (resource == null || entry.resource == null || resource.equals(entry.resource))) {
+                    entry.index = shift(entry.index, removedIndexes, insertedIndexes);
+                }
+            }
+
+            for (BatchExcelRow item : items) {
+                if (item != null && !isEmpty(item)) {
+                    Long rowIndex = item.getIndex() != null ? item.getIndex() + rowsToSkip : null;
+
+                    index.put(key(item), new Entry(resource, rowIndex, item.getDelay()));
+                }
+            }
+        }
+
+        replacements.clear();
+    }
+
+    /**
+     * Compute the new row index of a row which was not written, as the writer would do: first remove the replaced
+     * rows then insert the written rows at their sorted position.
+     */
+    private static long shift(long rowIndex, List<Long> removedIndexes, List<Long> insertedIndexes) {
+        long result = rowIndex;
+
+        for (Long removedIndex : removedIndexes) {
+            if (removedIndex < rowIndex) {
+                result--;
+            }
+        }
+
+        for (Long insertedIndex : insertedIndexes) {
+            if (insertedIndex <= result) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public BatchExcelRow process(final BatchExcelRow item) throws Exception {
         /*
          * By default we return the item itself
          */
         BatchExcelRow result = item;
-        Language lang = Language.valueOf(language.toUpperCase(Locale.US));
-        StationBasedExcelRowComparator comparator = new StationBasedExcelRowComparator(lang);
 
         LOGGER.trace("item", item);
 
+        if (index == null) {
+            buildIndex();
+        }
+
+        Entry matching = index != null ? index.get(key(item)) : null;
+
+        if (matching == null) {
+            /*
+             * In that case there is no row matching the item. So, we have to add a new row to the Excel sheet.
+             */
+            LOGGER.debug("no_matching", item);
+        } else if (item.getDelay() > matching.delay) {
+            /*
+             * Here we know that we have a collision: we match the same date and the same sens.
+             * The delay of the item is greater than the matching Excel row.
+             * We must replace the row currently in the Excel sheet with our item.
+             */
+            if (matching.index == null) {
+                throw new IllegalArgumentException("We don't know the current index of this Excel row. We cannot replace it!");
+            }
+
+            result.setIndex(matching.index);
+            replacements.put(result, matching);
+
+            LOGGER.trace("Replace row index={} of resource={}", matching.index, matching.resource);
+        } else {
+            /*
+             * If the delay of the item is not greater than the one in the Excel sheet then we skip it.
+             */
+            result = null;
+
+            LOGGER.trace("not_replace_matching", item);
+        }
+
+        LOGGER.trace("result", result);
+
+        return result;
+    }
+
+    /**
+     * Read all rows of the {@code outputReader} to build our index. If the resource is not available yet, the
+     * index is left {@code null} and we will retry on the next item.
+     */
+    private void buildIndex() {
+        Map<Key, Entry> result = new HashMap<>();
+        Language lang = Language.valueOf(language.toUpperCase(Locale.US));
+
+        comparator = new StationBasedExcelRowComparator<>(lang);
+
         try {
             outputReader.open(executionContext);
 
             try {
-                /*
-                 * If we reach the End Of File we still return the item (The Writer should append a new line).
-                 */
-                for (BatchExcelRow matchingExcelRow = outputReader.read(); matchingExcelRow != null; matchingExcelRow = outputReader.read()) {
-                    if (!isEmpty(matchingExcelRow)) {
-                        if (comparator.compare(item, matchingExcelRow) == 0) {
-                            /*
-                             * Here we know that we have a collision: we match the same date and the same sens.
-                             * If the delay of the item is not greater than the one in the Excel sheet then we skip it.
-                             */
-                            if (item.getDelay() > matchingExcelRow.getDelay()) {
-                                result = item;
-
-                                if (matchingExcelRow.getIndex() != null) {
-                                    result.setIndex(matchingExcelRow.getIndex());
-
-                                    /*
-                                     * Here, the delay of the item is greater than the matching Excel row.
-                                     * We must replace the row currently in the Excel sheet with our item.
-                                     */
-                                    LOGGER.trace("replace_matching", matchingExcelRow);
-                                } else {
-                                    throw new IllegalArgumentException("We don't know the current index of this Excel row. We cannot replace it!");
-                                }
-                            } else {
-                                result = null;
-
-                                LOGGER.trace("not_replace_matching", matchingExcelRow);
-                            }
-
-                            /*
-                             * We stop searching here. Either the result is found or we have to skip this item.
-                             */
-                            LOGGER.debug("stop_searching", result);
-
-                            break;
-                        } else if (item.getDate().isBefore(matchingExcelRow.getDate())) {
-                            result = item;
-
-                            /*
-                             * We stop searching. We expect that the content of the Excel file is sorted by date.
-                             * This clause should never happen if the data read are also sorted by date.
-                             */
-                            LOGGER.debug("item_before_matching", matchingExcelRow);
-
-                            break;
-                        }
-                    } else {
-                        result = item;
-                        result.setIndex(null);
-
+                for (BatchExcelRow row = outputReader.read(); row != null; row = outputReader.read()) {
+                    if (!isEmpty(row)) {
                         /*
-                         * In that case we reach the first empty row without matching any previous data.
-                         * So, we have to add a new row to the Excel sheet.
+                         * We keep the first matching row like a scan would do.
                          */
-                        LOGGER.debug("first_empty_row", item);
-
-                        break;
+                        result.putIfAbsent(key(row), new Entry(getCurrentResource(outputReader), row.getIndex(),
+                                row.getDelay()));
                     }
                 }
             } finally {
                 outputReader.close();
             }
+
+            index = result;
+
+            LOGGER.debug("Indexed {} Excel rows", result.size());
         } catch (ItemStreamException e) {
             LOGGER.warn("Error when opening ResourceAwareItemReaderItemStream. Maybe the resource is not available yet.", e);
-            result = item;
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot build the index of the Excel rows", e);
         }
+    }
 
-        LOGGER.trace("result", result);
+    private static Resource getCurrentResource(Object stream) {
+        Resource result = null;
+
+        if (stream instanceof ResourceContextAccessibleItemStream) {
+            ResourceContext context = ((ResourceContextAccessibleItemStream) stream).getResourceContext();
+
+            if (context != null && context.containsResource()) {
+                result = context.getResource();
+            }
+        }
 
         return result;
     }
 
+    private Key key(BatchExcelRow row) {
+        return new Key(row.getDate(),
+                comparator.getStationName(row.getDepartureStation()),
+                comparator.getStationName(row.getArrivalStation()));
+    }
+
     private boolean isEmpty(BatchExcelRow row) {
         boolean result = true;
 
@@ -171,4 +301,70 @@ public class FilterTwoSensPerDayProcessor implements ItemProcessor<BatchExcelRow
     public void setOutputReader(ItemStreamReader<BatchExcelRow> outputReader) {
         this.outputReader = outputReader;
     }
+
+    public void setOutputWriter(ResourceContextAccessibleItemStream outputWriter) {
+        this.outputWriter = outputWriter;
+    }
+
+    /**
+     * @param rowsToSkip number of rows before the first item of the Excel sheet, the writer gives to each row
+     *                   its position without them (by default it's set to {@code 0}).
+     */
+    public void setRowsToSkip(int rowsToSkip) {
+        this.rowsToSkip = rowsToSkip;
+    }
+
+    /**
+     * Date and normalised names of the departure and the arrival stations.
+     */
+    private static final class Key {
+
+        private final LocalDate date;
+        private final String departure;
+        private final String arrival;
+
+        private Key(LocalDate date, String departure, String arrival) {
+            this.date = date;
+            this.departure = departure;
+            this.arrival = arrival;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            boolean result = false;
+
+            if (this == o) {
+                result = true;
+            } else if (o instanceof Key) {
+                Key key = (Key) o;
+
+                result = Objects.equals(date, key.date)
+                        && Objects.equals(departure, key.departure)
+                        && Objects.equals(arrival, key.arrival);
+            }
+
+            return result;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(date, departure, arrival);
+        }
+    }
+
+    /**
+     * Where an Excel row is stored and its delay. The row index is shifted when the writer moves this row.
+     */
+    private static final class Entry {
+
+        private final Resource resource;
+        private Long index;
+        private final long delay;
+
+        private Entry(Resource resource, Long index, Long delay) {
+            this.resource = resource;
+            this.index = index;
+            this.delay = delay != null ? delay : 0L;
+        }
+    }
 }
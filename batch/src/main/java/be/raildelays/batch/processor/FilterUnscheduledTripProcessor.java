@@ -1,10 +1,9 @@
 package be.raildelays.batch.processor;
 
-import be.raildelays.batch.gtfs.CalendarDate;
+import be.raildelays.batch.gtfs.GtfsFeed;
 import be.raildelays.batch.gtfs.Trip;
 import be.raildelays.logging.Logger;
 import be.raildelays.logging.LoggerFactory;
-import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.util.Assert;
 
@@ -18,14 +17,14 @@ import java.time.LocalDate;
  */
 public class FilterUnscheduledTripProcessor extends AbstractGtfsDataProcessor<Trip, Trip> implements InitializingBean {
 
-    private ItemStreamReader<CalendarDate> calendarDatesReader;
+    private GtfsFeed feed;
     private LocalDate date;
 
     private static final Logger LOGGER = LoggerFactory.getLogger("Uns", FilterUnscheduledTripProcessor.class);
 
     @Override
     public void afterPropertiesSet() throws Exception {
-        Assert.notNull(calendarDatesReader, "The property 'calendarDatesReader' is mandatory");
+        Assert.notNull(feed, "The property 'feed' is mandatory");
         Assert.notNull(date, "The property 'date' is mandatory");
     }
 
@@ -43,20 +42,11 @@ public class FilterUnscheduledTripProcessor extends AbstractGtfsDataProcessor<Tr
     }
 
     private boolean isScheduled(String serviceId) {
-        boolean result = false;
-
-        if (serviceId != null) {
-            result = readAll(calendarDatesReader)
-                    .parallelStream()
-                    .filter(calendarDate -> serviceId.equals(calendarDate.getServiceId()))
-                    .anyMatch(calendarDate -> calendarDate.isIncluded(this.date));
-        }
-
-        return result;
+        return feed.isActive(serviceId, date);
     }
 
-    public void setCalendarDatesReader(ItemStreamReader<CalendarDate> calendarDatesReader) {
-        this.calendarDatesReader = calendarDatesReader;
+    public void setFeed(GtfsFeed feed) {
+        this.feed = feed;
     }
 
     public void setDate(LocalDate date) {
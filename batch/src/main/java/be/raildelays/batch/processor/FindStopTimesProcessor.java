@@ -1,18 +1,13 @@
 package be.raildelays.batch.processor;
 
+import be.raildelays.batch.gtfs.GtfsFeed;
 import be.raildelays.batch.gtfs.StopTime;
 import be.raildelays.batch.gtfs.Trip;
 import be.raildelays.logging.Logger;
 import be.raildelays.logging.LoggerFactory;
-import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.util.Assert;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * Retrieve all {@link StopTime} that belong to a {@link Trip} from GTFS data.
  *
@@ -21,38 +16,25 @@ import java.util.stream.Collectors;
  */
 public class FindStopTimesProcessor extends AbstractGtfsDataProcessor<Trip, Trip> implements InitializingBean {
 
-    private ItemStreamReader<StopTime> stopTimesReader;
+    private GtfsFeed feed;
 
     private static final Logger LOGGER = LoggerFactory.getLogger("Fin", FindStopTimesProcessor.class);
 
     @Override
     public void afterPropertiesSet() throws Exception {
-        Assert.notNull(stopTimesReader, "The property 'stopTimesReader' is mandatory");
+        Assert.notNull(feed, "The property 'feed' is mandatory");
     }
 
     @Override
     public Trip process(Trip item) throws Exception {
-        item.setStopTimes(findStopTimes(item.getTripId()));
+        item.setStopTimes(feed.getStopTimes(item.getTripId()));
 
         LOGGER.debug("result", item);
 
         return item;
     }
 
-    private List<StopTime> findStopTimes(String tripId) {
-        List<StopTime> result = Collections.emptyList();
-
-        if (tripId != null) {
-            result = readAll(stopTimesReader)
-                    .parallelStream()
-                    .filter(stopTime -> tripId.equals(stopTime.getTripId()))
-                    .collect(Collectors.toCollection(ArrayList::new));
-        }
-
-        return result;
-    }
-
-    public void setStopTimesReader(ItemStreamReader<StopTime> stopTimesReader) {
-        this.stopTimesReader = stopTimesReader;
+    public void setFeed(GtfsFeed feed) {
+        this.feed = feed;
     }
 }
@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.batch.reader;
+
+import be.raildelays.domain.Sens;
+import be.raildelays.domain.entities.LineStop;
+import be.raildelays.domain.entities.Station;
+import be.raildelays.repository.LineStopDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Cursor-like reader of the delays of one day at one station.
+ * <p>
+ * The delays are read in a single pass ordered by expected time: each page of {@code pageSize} delays is searched
+ * with one keyset query on the expected time and the id of the last {@link LineStop} read (see
+ * {@link LineStopDao#findArrivalDelaysAfter}), without any count query. This query also fetches the previous and next
+ * stops needed by the processors. The page size is independent of the commit interval of the step.
+ * </p>
+ * <p>
+ * Depending on {@code sens}, we search delayed or canceled arrivals ({@link Sens#ARRIVAL}, the default) or
+ * departures ({@link Sens#DEPARTURE}) at the {@code station}.
+ * </p>
+ * <p>
+ * Note that the restartability of this reader is only based on {@link AbstractItemCountingItemStreamItemReader}.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is not thread-safe
+ * @since 2.0
+ */
+public class DelaysItemReader extends AbstractItemCountingItemStreamItemReader<LineStop> implements InitializingBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DelaysItemReader.class);
+
+    private LineStopDao lineStopDao;
+    private LocalDate date;
+    private Station station;
+    private long delayThreshold;
+    private Sens sens = Sens.ARRIVAL;
+    private int pageSize = 100;
+    private Deque<LineStop> page;
+    private LineStop last;
+    private boolean exhausted;
+
+    public DelaysItemReader() {
+        setName(ClassUtils.getShortName(DelaysItemReader.class));
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Assert.notNull(lineStopDao, "The property 'lineStopDao' is mandatory");
+        Assert.notNull(date, "The property 'date' is mandatory");
+        Assert.notNull(station, "The property 'station' is mandatory");
+        Assert.notNull(sens, "The property 'sens' is mandatory");
+        Assert.isTrue(pageSize > 0, "The property 'pageSize' must be greater than 0");
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        page = new ArrayDeque<>(pageSize);
+        last = null;
+        exhausted = false;
+    }
+
+    @Override
+    protected LineStop doRead() throws Exception {
+        if (page.isEmpty() && !exhausted) {
+            readPage();
+        }
+
+        return page.poll();
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        page = null;
+        last = null;
+    }
+
+    private void readPage() {
+        List<LineStop> delays = sens == Sens.DEPARTURE ?
+                lineStopDao.findDepartureDelaysAfter(date, station, delayThreshold, last, pageSize) :
+                lineStopDao.findArrivalDelaysAfter(date, station, delayThreshold, last, pageSize);
+
+        exhausted = delays.size() < pageSize;
+
+        if (!delays.isEmpty()) {
+            page.addAll(delays);
+            last = delays.get(delays.size() - 1);
+        }
+
+        LOGGER.debug("Read a page of {} delays for date={} station={} sens={}", delays.size(), date, station, sens);
+    }
+
+    public void setLineStopDao(LineStopDao lineStopDao) {
+        this.lineStopDao = lineStopDao;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public void setStation(Station station) {
+        this.station = station;
+    }
+
+    public void setDelayThreshold(long delayThreshold) {
+        this.delayThreshold = delayThreshold;
+    }
+
+    public void setSens(Sens sens) {
+        this.sens = sens;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+}
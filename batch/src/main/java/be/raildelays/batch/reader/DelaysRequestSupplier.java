@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.batch.reader;
+
+import be.raildelays.domain.Language;
+import be.raildelays.httpclient.impl.DelaysRequestV2;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Supply one {@link DelaysRequestV2} per train id taken from a {@link TrainIdWorkQueue} by a partition.
+ * <p>
+ * The bucket of the partition is the comma-separated list of train ids stored under the key {@code trainIds} of its
+ * {@link org.springframework.batch.item.ExecutionContext} by {@link TrainIdPartitioner}. Each train id stolen from
+ * another partition is added to this list, then a restart of this partition also covers the stolen trains. The train
+ * ids stolen from this partition are recorded by the {@link TrainIdWorkQueue} under the key {@code stolenTrainIds}
+ * and they are removed from the bucket on restart.
+ * </p>
+ *
+ * @author Almex
+ * @since 2.0
+ * @see ScraperItemReader#setRequestSupplier(Supplier)
+ */
+public class DelaysRequestSupplier implements Supplier<DelaysRequestV2>, InitializingBean {
+
+    public static final String TRAIN_IDS_KEY = "trainIds";
+
+    private TrainIdWorkQueue workQueue;
+
+    private StepExecution stepExecution;
+
+    private LocalDate date;
+
+    private Language language = Language.EN;
+
+    private Set<String> bucket;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Assert.notNull(workQueue, "The 'workQueue' property must have a value");
+        Assert.notNull(stepExecution, "The 'stepExecution' property must have a value");
+        Assert.notNull(date, "The 'date' property must have a value");
+        Assert.notNull(language, "The 'language' property must have a value");
+        bucket = new LinkedHashSet<>(StringUtils.commaDelimitedListToSet(
+                stepExecution.getExecutionContext().getString(TRAIN_IDS_KEY, "")));
+        bucket.removeAll(StringUtils.commaDelimitedListToSet(
+                stepExecution.getExecutionContext().getString(TrainIdWorkQueue.STOLEN_TRAIN_IDS_KEY, "")));
+    }
+
+    @Override
+    public DelaysRequestV2 get() {
+        DelaysRequestV2 result = null;
+        String partitionName = stepExecution.getStepName().substring(stepExecution.getStepName().indexOf(':') + 1);
+        String trainId = workQueue.poll(stepExecution.getJobExecutionId(), partitionName, bucket,
+                stepExecution.getExecutionContext());
+
+        if (trainId != null) {
+            if (bucket.add(trainId)) {
+                stepExecution.getExecutionContext().putString(TRAIN_IDS_KEY,
+                        StringUtils.collectionToCommaDelimitedString(bucket));
+            }
+
+            result = new DelaysRequestV2(trainId, date, language);
+        }
+
+        return result;
+    }
+
+    public void setWorkQueue(TrainIdWorkQueue workQueue) {
+        this.workQueue = workQueue;
+    }
+
+    public void setStepExecution(StepExecution stepExecution) {
+        this.stepExecution = stepExecution;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public void setLanguage(Language language) {
+        this.language = language;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.batch.reader;
+
+import be.raildelays.domain.Language;
+import be.raildelays.httpclient.impl.DelaysRequestV2;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Build one {@link DelaysRequestV2} per train of a train list for a given day.
+ * <p>
+ * The train list is a text file containing one train id per line (i.e.: the {@code train.list} also used by
+ * {@link TrainIdPartitioner}). Blank lines are ignored.
+ * </p>
+ *
+ * @author Almex
+ * @since 2.0
+ * @see ScraperItemReader#setRequests(List)
+ */
+public class DelaysRequestsFactoryBean implements FactoryBean<List<DelaysRequestV2>>, InitializingBean {
+
+    private Resource trainList;
+
+    private LocalDate date;
+
+    private Language language = Language.EN;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Assert.notNull(trainList, "The 'trainList' property must have a value");
+        Assert.notNull(date, "The 'date' property must have a value");
+        Assert.notNull(language, "The 'language' property must have a value");
+    }
+
+    @Override
+    public List<DelaysRequestV2> getObject() throws Exception {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(trainList.getInputStream(), StandardCharsets.ISO_8859_1))) {
+            return reader.lines()
+                    .map(String::trim)
+                    .filter(trainId -> !trainId.isEmpty())
+                    .map(trainId -> new DelaysRequestV2(trainId, date, language))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public Class<?> getObjectType() {
+        return List.class;
+    }
+
+    @Override
+    public boolean isSingleton() {
+        return false;
+    }
+
+    public void setTrainList(Resource trainList) {
+        this.trainList = trainList;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public void setLanguage(Language language) {
+        this.language = language;
+    }
+}
@@ -0,0 +1,172 @@
+package be.raildelays.batch.reader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This {@link Partitioner} split a GTFS stop_times.txt file into {@code gridSize} byte ranges of about the same size.
+ * <p>
+ * Each range starts at the beginning of a line and never cuts a group of lines sharing the same {@code trip_id}.
+ * To find a boundary we only read the few lines following the ideal offset and compare their first column: the file
+ * is neither parsed nor read entirely. Each partition can then parse its own range with a
+ * {@link org.springframework.batch.item.resource.ByteRangeResource} and a {@link GtfsTripItemReader}: stop_times.txt
+ * is parsed only once in total.
+ * </p>
+ * <p>
+ * The {@link ExecutionContext} of each partition contains the key {@code startOffset} (included) and the key
+ * {@code endOffset} (excluded) both of {@link Long} type. Only the partition starting at offset 0 contains the header.
+ * Ranges which would be empty (a trip bigger than a range) are not created. The name of the partition is 'partitionX'
+ * where 'X' is the zero-based index in order of creation.
+ * </p>
+ *
+ * @author Almex
+ * @since 2.0
+ */
+public class GtfsStopTimesPartitioner implements Partitioner, InitializingBean {
+
+    public static final String START_OFFSET_KEY = "startOffset";
+    public static final String END_OFFSET_KEY = "endOffset";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GtfsStopTimesPartitioner.class);
+
+    private Resource resource;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Assert.notNull(resource, "The property 'resource' is mandatory");
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(final int gridSize) {
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        int partitionCount = Math.max(1, gridSize);
+
+        try {
+            long length = resource.contentLength();
+            long startOffset = 0;
+
+            for (int i = 1; i <= partitionCount; i++) {
+                long endOffset = i < partitionCount ? findTripBoundary(length * i / partitionCount, length) : length;
+
+                if (endOffset > startOffset || partitions.isEmpty() && i == partitionCount) {
+                    ExecutionContext executionContext = new ExecutionContext();
+                    String partitionName = "partition" + partitions.size();
+
+                    executionContext.putLong(START_OFFSET_KEY, startOffset);
+                    executionContext.putLong(END_OFFSET_KEY, endOffset);
+                    partitions.put(partitionName, executionContext);
+
+                    LOGGER.debug("Partition created with name={} startOffset={} endOffset={}",
+                            partitionName, startOffset, endOffset);
+
+                    startOffset = endOffset;
+                }
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Cannot split " + resource.getDescription(), e);
+        }
+
+        return partitions;
+    }
+
+    /**
+     * Search the offset of the first line after {@code offset} whose {@code trip_id} differs from the one of the
+     * preceding line.
+     *
+     * @param offset ideal offset of the boundary
+     * @param length length of the resource
+     * @return the offset of a line starting a new trip or {@code length} if there is none
+     */
+    private long findTripBoundary(long offset, long length) throws IOException {
+        long result = length;
+
+        try (InputStream inputStream = new BufferedInputStream(resource.getInputStream())) {
+            long position = skipFully(inputStream, offset);
+            // We skip the end of the current line to be at the beginning of the next one
+            position += skipLine(inputStream, null);
+
+            if (position < length) {
+                ByteArrayOutputStream previousTripId = new ByteArrayOutputStream();
+                ByteArrayOutputStream tripId = new ByteArrayOutputStream();
+
+                position += skipLine(inputStream, previousTripId);
+
+                while (position < length && result == length) {
+                    long lineLength;
+
+                    tripId.reset();
+                    lineLength = skipLine(inputStream, tripId);
+
+                    if (!Arrays.equals(previousTripId.toByteArray(), tripId.toByteArray())) {
+                        result = position;
+                    } else {
+                        position += lineLength;
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static long skipFully(InputStream inputStream, long count) throws IOException {
+        long result = 0;
+
+        while (result < count) {
+            long skipped = inputStream.skip(count - result);
+
+            if (skipped <= 0) {
+                if (inputStream.read() < 0) {
+                    break;
+                }
+                skipped = 1;
+            }
+
+            result += skipped;
+        }
+
+        return result;
+    }
+
+    /**
+     * Consume one line (including its line feed) and copy its first column into {@code firstColumn}.
+     *
+     * @return the number of bytes consumed
+     */
+    private static long skipLine(InputStream inputStream, ByteArrayOutputStream firstColumn) throws IOException {
+        long result = 0;
+        boolean inFirstColumn = firstColumn != null;
+
+        for (int b = inputStream.read(); b >= 0; b = inputStream.read()) {
+            result++;
+
+            if (b == '\n') {
+                break;
+            } else if (b == ',' || b == '\r') {
+                inFirstColumn = false;
+            } else if (inFirstColumn) {
+                firstColumn.write(b);
+            }
+        }
+
+        return result;
+    }
+
+    public void setResource(Resource resource) {
+        this.resource = resource;
+    }
+}
@@ -0,0 +1,145 @@
+package be.raildelays.batch.reader;
+
+import be.raildelays.batch.gtfs.GtfsFeed;
+import be.raildelays.batch.gtfs.StopTime;
+import be.raildelays.batch.gtfs.Trip;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Streaming reader joining GTFS trips.txt and stop_times.txt in a single pass.
+ * <p>
+ * The trips are looked up in the {@link GtfsFeed} which indexes trips.txt once for all readers. Then stop_times.txt
+ * is read sequentially and each group of consecutive {@link StopTime} sharing the same {@code trip_id} is emitted as
+ * one {@link Trip} with its stop times sorted by {@code stop_sequence}. Groups of trips which are not scheduled for
+ * the given {@code date} (according to the calendar of the {@link GtfsFeed}) are skipped without being kept.
+ * Only the {@code trip_id} of emitted trips is kept to check the grouping. Therefore the peak memory of this reader
+ * is bounded by the largest trip plus the identifiers of the trips scheduled for the day, and not by the size of
+ * stop_times.txt.
+ * </p>
+ * <p>
+ * As described by the GTFS reference, stop_times.txt must be grouped by {@code trip_id}. If a scheduled trip is
+ * found twice we fail fast with an {@link IllegalStateException}: use
+ * {@link be.raildelays.batch.processor.FindStopTimesProcessor} in that case.
+ * </p>
+ * <p>
+ * When the step is partitioned (see {@link GtfsStopTimesPartitioner}), the {@code stopTimesReader} of each partition
+ * only reads a range of stop_times.txt which never cuts a trip. Hence stop_times.txt is parsed only once over all
+ * partitions.
+ * </p>
+ * <p>
+ * Note that the restartability of this reader is only based on {@link AbstractItemCountingItemStreamItemReader}.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is not thread-safe
+ * @since 2.0
+ */
+public class GtfsTripItemReader extends AbstractItemCountingItemStreamItemReader<Trip> implements InitializingBean {
+
+    private ItemStreamReader<StopTime> stopTimesReader;
+    private GtfsFeed feed;
+    private LocalDate date;
+    private Set<String> emittedTripIds;
+    private StopTime nextStopTime;
+
+    public GtfsTripItemReader() {
+        setName(ClassUtils.getShortName(GtfsTripItemReader.class));
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Assert.notNull(stopTimesReader, "The property 'stopTimesReader' is mandatory");
+        Assert.notNull(feed, "The property 'feed' is mandatory");
+        Assert.notNull(date, "The property 'date' is mandatory");
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        emittedTripIds = new HashSet<>();
+
+        stopTimesReader.open(new ExecutionContext());
+        nextStopTime = stopTimesReader.read();
+    }
+
+    @Override
+    protected Trip doRead() throws Exception {
+        Trip result = null;
+
+        while (result == null && nextStopTime != null) {
+            String tripId = nextStopTime.getTripId();
+            Trip trip = feed.getTrip(tripId);
+            boolean scheduled = trip != null && feed.isActive(trip.getServiceId(), date);
+            List<StopTime> stopTimes = scheduled ? new ArrayList<>() : null;
+
+            if (scheduled && !emittedTripIds.add(tripId)) {
+                throw new IllegalStateException("The stop_times.txt file is not grouped by trip_id: trip_id="
+                        + tripId + " has been found twice");
+            }
+
+            do {
+                if (stopTimes != null) {
+                    stopTimes.add(nextStopTime);
+                }
+                nextStopTime = stopTimesReader.read();
+            } while (nextStopTime != null && Objects.equals(tripId, nextStopTime.getTripId()));
+
+            if (scheduled) {
+                stopTimes.sort(StopTime.STOP_SEQUENCE_ORDER);
+                result = copyOf(trip);
+                result.setStopTimes(stopTimes);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        try {
+            stopTimesReader.close();
+        } finally {
+            emittedTripIds = null;
+            nextStopTime = null;
+        }
+    }
+
+    /**
+     * The {@link Trip} of the {@link GtfsFeed} is shared by all readers: we never modify it.
+     */
+    private static Trip copyOf(Trip trip) {
+        Trip result = new Trip();
+
+        result.setRouteId(trip.getRouteId());
+        result.setServiceId(trip.getServiceId());
+        result.setTripId(trip.getTripId());
+        result.setTripHeadsign(trip.getTripHeadsign());
+        result.setTripShortName(trip.getTripShortName());
+        result.setDirectionId(trip.getDirectionId());
+        result.setBlockId(trip.getBlockId());
+        result.setShapeId(trip.getShapeId());
+        result.setWheelchairAccessible(trip.getWheelchairAccessible());
+        result.setBikesAllowed(trip.getBikesAllowed());
+
+        return result;
+    }
+
+    public void setStopTimesReader(ItemStreamReader<StopTime> stopTimesReader) {
+        this.stopTimesReader = stopTimesReader;
+    }
+
+    public void setFeed(GtfsFeed feed) {
+        this.feed = feed;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+}
@@ -36,6 +36,14 @@ import org.springframework.retry.backoff.BackOffPolicy;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.util.Assert;
 
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+
 /**
  * {@link org.springframework.batch.item.ItemReader} capable of retrieving data from a website.
  * This implementation use a {@link org.springframework.retry.RetryPolicy} to allow to configure upon which
@@ -48,8 +56,19 @@ import org.springframework.util.Assert;
  * To retrieve data from a website, this reader need to have a {@code request}, a {@code streamer} and a {@code parser}.
  * </p>
  * <p>
- * To be respectful of the website we attempt to read, this reader also wait between 1 and 5 seconds between two
- * reads. Then we avoid any Deny Of Service.
+ * To be respectful of the website we attempt to read, the {@code streamer} should share a
+ * {@link be.raildelays.httpclient.RateLimiter} with all other readers of the same website. Then we avoid any Deny
+ * Of Service without holding a thread when the website can still be requested.
+ * </p>
+ * <p>
+ * Instead of one {@code request}, this reader can be given a list of {@code requests}. They are sent with
+ * {@link RequestStreamer#streamAsync(Request)} with at most {@code maxInFlight} requests in progress, and the results
+ * are returned in the order of completion. A request which fails is retried synchronously with the
+ * {@link org.springframework.retry.RetryPolicy}. Requests giving no result are skipped.
+ * </p>
+ * <p>
+ * The {@code requests} can also be pulled one by one from a {@code requestSupplier} returning {@code null} when there
+ * is no more request (e.g.: to steal requests from other readers).
  * </p>
  */
 public class ScraperItemReader<T, R extends Request> implements ItemReader<T>, InitializingBean {
@@ -68,11 +87,27 @@ public class ScraperItemReader<T, R extends Request> implements ItemReader<T>, I
 
     private RetryTemplate retryTemplate;
 
+    private List<R> requests;
+
+    private Supplier<R> requestSupplier;
+
+    private int maxInFlight = 4;
+
+    private Iterator<R> pendingRequests;
+
+    private R nextRequest;
+
+    private int inFlight;
+
+    private final BlockingQueue<InFlightRequest<T, R>> completedRequests = new LinkedBlockingQueue<>();
+
     @Override
     public void afterPropertiesSet() throws Exception {
         // Validate all job parameters
         Assert.notNull(parser, "The 'parser' property must have a value");
-        Assert.notNull(request, "The 'request' property must have a value");
+        Assert.isTrue(request != null || requests != null || requestSupplier != null,
+                "The 'request', 'requests' or 'requestSupplier' property must have a value");
+        Assert.isTrue(maxInFlight > 0, "The 'maxInFlight' property must be greater than 0");
         Assert.notNull(streamer, "The 'streamer' property must have a value");
         Assert.notNull(retryPolicy, "The 'retryPolicy' property must have a value");
         Assert.notNull(backOffPolicy, "The 'backOffPolicy' property must have a value");
@@ -83,38 +118,96 @@ public class ScraperItemReader<T, R extends Request> implements ItemReader<T>, I
 
     @Override
     public T read() throws Exception {
+        T result;
+
+        if (requests != null || requestSupplier != null) {
+            result = readNextCompleted();
+        } else {
+            result = retryTemplate.execute(context -> {
+                T item = null;
 
-        return retryTemplate.execute(context -> {
-            T result = null;
+                if (request != null) {
+                    item = fetch(request);
 
-            if (request != null) {
-                LOGGER.debug("Requesting Railtime for {}", request);
+                    request = null; // We consume read, then next time we will return null if no new request is provided
+                }
 
-                waitRandomly();
+                return item;
+            });
+        }
+
+        return result;
+    }
 
-                result = parser.parse(streamer.stream(request));
+    private T readNextCompleted() throws Exception {
+        T result = null;
 
-                request = null; // We consume read, then next time we will return null if no new request is provided
+        while (result == null && (inFlight > 0 || peekRequest() != null)) {
+            while (inFlight < maxInFlight && peekRequest() != null) {
+                sendAsync(nextRequest);
+                nextRequest = null;
             }
 
-            return result;
-        });
+            InFlightRequest<T, R> completed = completedRequests.take();
+
+            inFlight--;
+
+            try {
+                result = completed.future.get();
+            } catch (ExecutionException e) {
+                LOGGER.warn("Asynchronous request failed for {}, retrying: {}", completed.request, e.getCause().toString());
+
+                result = retryTemplate.execute(context -> fetch(completed.request));
+            }
+        }
+
+        return result;
     }
 
     /**
-     * Wait a certain period of time before processing. It's more respectful for
-     * grabber to do so.
-     * <p>
-     * Wait between 1 and 5 seconds.
-     *
-     * @throws InterruptedException
+     * @return the next request to send without consuming it or {@code null} if there is no more request
      */
-    private void waitRandomly() throws InterruptedException {
-        long waitTime = 1000 + Math.round(5000L * Math.random());
+    private R peekRequest() {
+        if (nextRequest == null) {
+            if (requests != null) {
+                if (pendingRequests == null) {
+                    pendingRequests = requests.iterator();
+                }
+
+                nextRequest = pendingRequests.hasNext() ? pendingRequests.next() : null;
+            } else {
+                nextRequest = requestSupplier.get();
+            }
+        }
+
+        return nextRequest;
+    }
+
+    private void sendAsync(R pendingRequest) {
+        LOGGER.debug("Requesting Railtime asynchronously for {}", pendingRequest);
+
+        InFlightRequest<T, R> inFlightRequest = new InFlightRequest<>(pendingRequest,
+                streamer.streamAsync(pendingRequest).thenApply(parser::parse));
+
+        inFlight++;
+        inFlightRequest.future.whenComplete((item, throwable) -> completedRequests.add(inFlightRequest));
+    }
+
+    private T fetch(R request) {
+        LOGGER.debug("Requesting Railtime for {}", request);
 
-        LOGGER.debug("Waiting " + (waitTime / 1000) + " seconds...");
+        return parser.parse(streamer.stream(request));
+    }
+
+    private static final class InFlightRequest<T, R> {
+
+        private final R request;
+        private final CompletableFuture<T> future;
 
-        Thread.sleep(waitTime);
+        private InFlightRequest(R request, CompletableFuture<T> future) {
+            this.request = request;
+            this.future = future;
+        }
     }
 
     public void setRetryPolicy(RetryPolicy retryPolicy) {
@@ -136,4 +229,16 @@ public class ScraperItemReader<T, R extends Request> implements ItemReader<T>, I
     public void setRequest(R request) {
         this.request = request;
     }
+
+    public void setRequests(List<R> requests) {
+        this.requests = requests;
+    }
+
+    public void setRequestSupplier(Supplier<R> requestSupplier) {
+        this.requestSupplier = requestSupplier;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
 }
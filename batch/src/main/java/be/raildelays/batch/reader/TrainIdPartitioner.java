@@ -24,8 +24,15 @@
 
 package be.raildelays.batch.reader;
 
+import be.raildelays.repository.LineStopDao;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.partition.support.PartitionNameProvider;
 import org.springframework.batch.core.partition.support.Partitioner;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemStreamReader;
@@ -34,73 +41,298 @@ import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.batch.repeat.support.RepeatTemplate;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
- * This {@link org.springframework.batch.core.partition.support.Partitioner} is used to create one partition per trainLine.
- * Meaning that we will have dynamically one step per trainLine. And depending on the
- * {@code TaskExecutor} those steps can be executed concurrently.
+ * This {@link org.springframework.batch.core.partition.support.Partitioner} is used to split the train list into
+ * {@code gridSize} partitions. Meaning that we will have dynamically one step per bucket of trains. And depending
+ * on the {@code TaskExecutor} those steps can be executed concurrently.
  * <p>
- *     The {@link ExecutionContext} of each trainLine contains the key {@code trainId} with a value of {@link Integer} type.
- *     The name of the partition is 'partitionX' where 'X' is the zero-based index in order of creation.
+ *     The {@link ExecutionContext} of each partition contains the key {@code trainIds} with the comma-separated list
+ *     of its train ids and, if there is only one, the key {@code trainId} with a value of {@link Integer} type.
+ *     The name of the partition is 'partitionX' where 'X' is the zero-based index in order of creation. A bucket can
+ *     be empty when there are less trains than partitions: its partition only steals trains from the others.
+ * </p>
+ * <p>
+ *     As a {@link PartitionNameProvider}, the names of the partitions only depend on {@code gridSize}. Then on restart
+ *     Spring Batch does not call {@link #partition(int)}: each failed partition is re-executed with the bucket
+ *     persisted in its own step execution context, even if the list of incomplete trains has changed since.
+ * </p>
+ * <p>
+ *     Buckets are balanced by assigning each train, from the slowest to the fastest, to the bucket with the lowest
+ *     total latency. If a {@code jobExplorer} is provided, the latency of a train is its average duration within the
+ *     partitions of the last {@code historySize} executions of the step {@code stepName} of the job {@code jobName}.
+ *     Otherwise, or for a new train, we use the average latency of all known trains.
+ * </p>
+ * <p>
+ *     If a {@code lineStopDao} and a {@code date} are provided, the trains already having a complete chain of
+ *     {@link be.raildelays.domain.entities.LineStop} with their final delays for that day are skipped: only missing,
+ *     incomplete or not yet final data are retrieved again.
+ * </p>
+ * <p>
+ *     If a {@code workQueue} is provided, buckets are assigned to it, then a partition can steal trains from the
+ *     others when it has finished its own bucket.
  * </p>
  *
  * @author Almex
  * @since 1.0
  * @see org.springframework.core.task.TaskExecutor
+ * @see TrainIdWorkQueue
  */
-public class TrainIdPartitioner implements Partitioner, InitializingBean {
+public class TrainIdPartitioner implements Partitioner, PartitionNameProvider, InitializingBean {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TrainIdPartitioner.class);
 
     private ItemStreamReader<String> trainListReader;
 
+    private TrainIdWorkQueue workQueue;
+
+    private StepExecution stepExecution;
+
+    private JobExplorer jobExplorer;
+
+    private String jobName;
+
+    private String stepName;
+
+    private int historySize = 5;
+
+    private LineStopDao lineStopDao;
+
+    private LocalDate date;
+
     @Override
     public void afterPropertiesSet() throws Exception {
         Assert.notNull(trainListReader, "The property 'trainListReader' must be provided");
+        Assert.isTrue(workQueue == null || stepExecution != null,
+                "The property 'stepExecution' must be provided with a 'workQueue'");
+        Assert.isTrue(jobExplorer == null || (jobName != null && stepName != null),
+                "The properties 'jobName' and 'stepName' must be provided with a 'jobExplorer'");
+        Assert.isTrue(lineStopDao == null || date != null, "The property 'date' must be provided with a 'lineStopDao'");
     }
 
     @Override
     public Map<String, ExecutionContext> partition(final int gridSize) {
         Map<String, ExecutionContext> partitions = new HashMap<>();
+        Map<String, List<String>> buckets = new HashMap<>();
+        List<String> trainIds = skipCompleted(readTrainIds());
+        Map<String, Double> latencies = getLatencies();
+        double defaultLatency = latencies.values().stream().mapToDouble(Double::doubleValue).average().orElse(1.0);
+        PriorityQueue<Bucket> leastLoaded = new PriorityQueue<>();
+
+        for (String partitionName : getPartitionNames(gridSize)) {
+            leastLoaded.add(new Bucket(partitionName));
+        }
+
+        trainIds.sort(Comparator.comparingDouble(
+                (String trainId) -> latencies.getOrDefault(trainId, defaultLatency)).reversed());
+
+        for (String trainId : trainIds) {
+            Bucket bucket = leastLoaded.poll();
+
+            bucket.trainIds.add(trainId);
+            bucket.latency += latencies.getOrDefault(trainId, defaultLatency);
+            leastLoaded.add(bucket);
+        }
+
+        for (Bucket bucket : leastLoaded) {
+            ExecutionContext executionContext = new ExecutionContext();
+
+            executionContext.putString(DelaysRequestSupplier.TRAIN_IDS_KEY,
+                    StringUtils.collectionToCommaDelimitedString(bucket.trainIds));
+
+            if (bucket.trainIds.size() == 1) {
+                executionContext.putInt("trainId", Integer.parseInt(bucket.trainIds.get(0)));
+            }
+
+            partitions.put(bucket.name, executionContext);
+            buckets.put(bucket.name, bucket.trainIds);
+
+            LOGGER.debug("Partition created with name={}, trainIds={} and latency={}ms",
+                    bucket.name, bucket.trainIds, Math.round(bucket.latency));
+        }
+
+        if (workQueue != null) {
+            workQueue.assign(stepExecution.getJobExecutionId(), buckets);
+        }
+
+        return partitions;
+    }
+
+    @Override
+    public Collection<String> getPartitionNames(int gridSize) {
+        List<String> result = new ArrayList<>();
+
+        for (int i = 0; i < Math.max(gridSize, 1); i++) {
+            result.add("partition" + i);
+        }
+
+        return result;
+    }
+
+    private List<String> readTrainIds() {
+        List<String> result = new ArrayList<>();
 
         trainListReader.open(new ExecutionContext());
 
         try {
             new RepeatTemplate().iterate(context -> {
-                RepeatStatus result = RepeatStatus.CONTINUABLE;
+                RepeatStatus status = RepeatStatus.CONTINUABLE;
 
                 try {
                     String trainId = trainListReader.read();
 
                     if (trainId != null) {
-                        ExecutionContext executionContext = new ExecutionContext();
-                        int partitionId = partitions.size();
-
-                        executionContext.putInt("trainId", Integer.parseInt(trainId));
-                        partitions.put("partition" + partitionId, executionContext);
-
-                        LOGGER.debug("Partition created with id={} and trainId={}", partitionId, trainId);
+                        if (StringUtils.hasText(trainId)) {
+                            result.add(String.valueOf(Integer.parseInt(trainId.trim())));
+                        }
                     } else {
-                        result = RepeatStatus.FINISHED;
+                        status = RepeatStatus.FINISHED;
                     }
                 } catch (Exception e) {
                     throw new UnexpectedInputException("Error during reading list of trainLine", e);
                 }
 
-                return result;
+                return status;
             });
         } finally {
             trainListReader.close();
         }
 
-        return partitions;
+        return result;
+    }
+
+    /**
+     * @return the train ids without those already having a complete chain of line stops for the {@code date}
+     */
+    private List<String> skipCompleted(List<String> trainIds) {
+        List<String> result = trainIds;
+
+        if (lineStopDao != null && !trainIds.isEmpty()) {
+            Set<String> completed = lineStopDao.findCompletedRouteIds(
+                    trainIds.stream().map(Long::valueOf).collect(Collectors.toSet()), date, LocalDateTime.now())
+                    .stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.toSet());
+
+            result = trainIds.stream()
+                    .filter(trainId -> !completed.contains(trainId))
+                    .collect(Collectors.toList());
+
+            LOGGER.info("Skipping {} trains already complete for {}", completed.size(), date);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the average latency in milliseconds per train id from the history of the partitioned step
+     */
+    private Map<String, Double> getLatencies() {
+        Map<String, Double> result = new HashMap<>();
+
+        if (jobExplorer != null) {
+            Map<String, Long> totals = new HashMap<>();
+            Map<String, Integer> counts = new HashMap<>();
+
+            for (JobInstance jobInstance : jobExplorer.getJobInstances(jobName, 0, historySize)) {
+                for (JobExecution jobExecution : jobExplorer.getJobExecutions(jobInstance)) {
+                    for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+                        List<String> trainIds = getTrainIds(stepExecution);
+
+                        if (stepExecution.getStepName().startsWith(stepName + ":") &&
+                                stepExecution.getStatus() == BatchStatus.COMPLETED &&
+                                stepExecution.getEndTime() != null && !trainIds.isEmpty()) {
+                            long latency = (stepExecution.getEndTime().getTime() -
+                                    stepExecution.getStartTime().getTime()) / trainIds.size();
+
+                            for (String trainId : trainIds) {
+                                totals.merge(trainId, latency, Long::sum);
+                                counts.merge(trainId, 1, Integer::sum);
+                            }
+                        }
+                    }
+                }
+            }
+
+            totals.forEach((trainId, total) -> result.put(trainId, (double) total / counts.get(trainId)));
+        }
+
+        return result;
+    }
+
+    private static List<String> getTrainIds(StepExecution stepExecution) {
+        List<String> result = new ArrayList<>();
+        ExecutionContext executionContext = stepExecution.getExecutionContext();
+
+        if (executionContext.containsKey(DelaysRequestSupplier.TRAIN_IDS_KEY)) {
+            result.addAll(StringUtils.commaDelimitedListToSet(
+                    executionContext.getString(DelaysRequestSupplier.TRAIN_IDS_KEY)));
+        } else if (executionContext.containsKey("trainId")) {
+            result.add(String.valueOf(executionContext.getInt("trainId")));
+        }
+
+        return result;
+    }
+
+    private static final class Bucket implements Comparable<Bucket> {
+
+        private final String name;
+        private final List<String> trainIds = new ArrayList<>();
+        private double latency;
+
+        private Bucket(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int compareTo(Bucket other) {
+            return Double.compare(latency, other.latency);
+        }
     }
 
     public void setTrainListReader(ItemStreamReader<String> trainListReader) {
         this.trainListReader = trainListReader;
     }
 
+    public void setWorkQueue(TrainIdWorkQueue workQueue) {
+        this.workQueue = workQueue;
+    }
+
+    /**
+     * @param stepExecution of the partitioned step, used to assign the buckets to the {@code workQueue}
+     */
+    public void setStepExecution(StepExecution stepExecution) {
+        this.stepExecution = stepExecution;
+    }
+
+    public void setJobExplorer(JobExplorer jobExplorer) {
+        this.jobExplorer = jobExplorer;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public void setStepName(String stepName) {
+        this.stepName = stepName;
+    }
+
+    public void setHistorySize(int historySize) {
+        this.historySize = historySize;
+    }
+
+    public void setLineStopDao(LineStopDao lineStopDao) {
+        this.lineStopDao = lineStopDao;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
 }
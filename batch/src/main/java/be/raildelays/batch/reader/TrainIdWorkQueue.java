@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.batch.reader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+
+/**
+ * Queues of train ids shared by the partitions of a step to balance their work dynamically.
+ * <p>
+ * Each partition takes the train ids of its own bucket from the head of its queue. When its queue is empty, it steals
+ * a train id from the tail of the longest queue of another partition. Then a slow train does not leave other
+ * partitions idle.
+ * </p>
+ * <p>
+ * A stolen train id is owned by the thief: the victim records it under the key {@code stolenTrainIds} of its
+ * {@link ExecutionContext} (given at its first {@link #poll}) so that a restart of the victim does not process it
+ * again. Then each train id belongs to exactly one persisted bucket, even if both partitions fail.
+ * </p>
+ * <p>
+ * The buckets are assigned by {@link TrainIdPartitioner} for a given job execution. When a job is restarted the
+ * partitioner is not called (it's a {@link org.springframework.batch.core.partition.support.PartitionNameProvider}):
+ * the first {@link #poll} of another job execution drops the queues of the previous one and each restarted partition
+ * registers the bucket persisted in its step execution context at its first {@link #poll}.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @since 2.0
+ */
+public class TrainIdWorkQueue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrainIdWorkQueue.class);
+
+    public static final String STOLEN_TRAIN_IDS_KEY = "stolenTrainIds";
+
+    private final Map<String, Deque<String>> queues = new HashMap<>();
+
+    private final Map<String, Set<String>> stolenTrainIds = new HashMap<>();
+
+    private final Map<String, ExecutionContext> executionContexts = new HashMap<>();
+
+    private Long jobExecutionId;
+
+    /**
+     * Replace all queues by the given buckets.
+     *
+     * @param jobExecutionId id of the job execution of the partitions
+     * @param buckets        train ids per partition name
+     */
+    public synchronized void assign(Long jobExecutionId, Map<String, List<String>> buckets) {
+        clear(jobExecutionId);
+        buckets.forEach((partitionName, trainIds) -> queues.put(partitionName, new ArrayDeque<>(trainIds)));
+    }
+
+    /**
+     * @param jobExecutionId   id of the job execution of the partition
+     * @param partitionName    name of the partition requesting a train id
+     * @param bucket           train ids of this partition, only used if this partition has not been assigned yet
+     * @param executionContext context of the step execution of this partition, where we record the train ids stolen
+     *                         from it
+     * @return the next train id of this partition or one stolen from another partition, {@code null} if there is no
+     * more train id to process
+     */
+    public synchronized String poll(Long jobExecutionId, String partitionName, Collection<String> bucket,
+                                    ExecutionContext executionContext) {
+        if (!Objects.equals(this.jobExecutionId, jobExecutionId)) {
+            LOGGER.debug("Dropping the queues of jobExecutionId={} for jobExecutionId={}",
+                    this.jobExecutionId, jobExecutionId);
+
+            clear(jobExecutionId);
+        }
+
+        if (executionContexts.putIfAbsent(partitionName, executionContext) == null) {
+            // Keep the steals of a previous execution and record the ones done before the start of this partition
+            stolenFrom(partitionName).addAll(
+                    StringUtils.commaDelimitedListToSet(executionContext.getString(STOLEN_TRAIN_IDS_KEY, "")));
+            saveStolenTrainIds(partitionName);
+        }
+
+        String result = queues.computeIfAbsent(partitionName, key -> new ArrayDeque<>(bucket)).pollFirst();
+
+        if (result == null) {
+            Optional<Map.Entry<String, Deque<String>>> victim = queues.entrySet().stream()
+                    .filter(entry -> !entry.getValue().isEmpty())
+                    .max(Comparator.comparingInt(entry -> entry.getValue().size()));
+
+            if (victim.isPresent()) {
+                result = victim.get().getValue().pollLast();
+                stolenFrom(victim.get().getKey()).add(result);
+                saveStolenTrainIds(victim.get().getKey());
+
+                LOGGER.debug("Partition {} stole trainId={} from {}", partitionName, result, victim.get().getKey());
+            }
+        }
+
+        return result;
+    }
+
+    private void clear(Long jobExecutionId) {
+        this.jobExecutionId = jobExecutionId;
+        queues.clear();
+        stolenTrainIds.clear();
+        executionContexts.clear();
+    }
+
+    private Set<String> stolenFrom(String partitionName) {
+        return stolenTrainIds.computeIfAbsent(partitionName, key -> new LinkedHashSet<>());
+    }
+
+    private void saveStolenTrainIds(String partitionName) {
+        ExecutionContext executionContext = executionContexts.get(partitionName);
+        Set<String> trainIds = stolenFrom(partitionName);
+
+        // The victim persists its context at its next commit or at its end, even if it fails
+        if (executionContext != null && !trainIds.isEmpty()) {
+            executionContext.putString(STOLEN_TRAIN_IDS_KEY, StringUtils.collectionToCommaDelimitedString(trainIds));
+        }
+    }
+}
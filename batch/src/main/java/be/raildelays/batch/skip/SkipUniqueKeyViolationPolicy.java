@@ -30,6 +30,7 @@ import org.springframework.batch.core.step.skip.SkipPolicy;
 import org.springframework.dao.DataIntegrityViolationException;
 
 import javax.persistence.PersistenceException;
+import java.sql.BatchUpdateException;
 import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.Locale;
 import java.util.function.Function;
@@ -40,6 +41,8 @@ import java.util.function.Function;
  * The {@code Exception} that we should match would be the {@link org.hibernate.exception.ConstraintViolationException} or
  * the {@link java.sql.SQLIntegrityConstraintViolationException} but unfortunately Hibernate convert this {@code class} into
  * more generic one called {@link javax.persistence.PersistenceException}.
+ * When we write with JDBC batch statements, Spring gives us a {@link DataIntegrityViolationException} caused by a
+ * {@link java.sql.BatchUpdateException} whose message or chained exceptions name the constraint.
  *
  * @author Almex
  * @since 1.2
@@ -74,6 +77,12 @@ public class SkipUniqueKeyViolationPolicy implements SkipPolicy {
         } else if (e instanceof SQLIntegrityConstraintViolationException) {
             // We must ignore accent (we use Local.ENGLISH for that) and case
             violated = matchAnyViolationNames(e.getMessage().toUpperCase(Locale.ENGLISH)::contains);
+        } else if (e instanceof BatchUpdateException) {
+            // The driver may give the violation in the message of the batch or in the chained exceptions
+            violated = e.getMessage() != null
+                    && matchAnyViolationNames(e.getMessage().toUpperCase(Locale.ENGLISH)::contains)
+                    || isExpectedViolation(((BatchUpdateException) e).getNextException())
+                    || isExpectedViolation(e.getCause());
         } else if (e instanceof PersistenceException && e.getCause() != null ||
                 e instanceof DataIntegrityViolationException) {
             /**
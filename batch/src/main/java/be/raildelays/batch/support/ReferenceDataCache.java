@@ -0,0 +1,190 @@
+package be.raildelays.batch.support;
+
+import be.raildelays.domain.entities.Station;
+import be.raildelays.domain.entities.TrainLine;
+import be.raildelays.repository.StationDao;
+import be.raildelays.repository.TrainLineDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.util.Assert;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Bounded and thread-safe cache of reference data: {@link Station} by normalised name and {@link TrainLine} by
+ * route id.
+ * <p>
+ * As a {@link StepExecutionListener}, it's warmed from the database when a first step starts (i.e. shared by all
+ * partitions of a step) and cleared when the last running step ends. So, a later job never gets the entities
+ * detached by a previous one. On a miss, the given loader is called and its result is cached (insert-through).
+ * Once {@code maxSize} entries of one kind are cached, new ones are returned without being cached.
+ * </p>
+ * <p>
+ * A {@link Station} is looked up like {@code ExistingLineStops} does: by its English name, or its French name,
+ * or its Dutch name (the first one which is not empty). Names are compared trimmed and in upper-case.
+ * </p>
+ * <p>
+ * Cached entities are detached: only cache entities which are committed.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @since 2.0
+ */
+public class ReferenceDataCache implements StepExecutionListener, InitializingBean {
+
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    private final Map<String, Station> stations = new ConcurrentHashMap<>();
+    private final Map<Long, TrainLine> trainLines = new ConcurrentHashMap<>();
+    private StationDao stationDao;
+    private TrainLineDao trainLineDao;
+    private int maxSize = DEFAULT_MAX_SIZE;
+    private int runningSteps; // Guarded by 'this'
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Assert.notNull(stationDao, "The property 'stationDao' is mandatory");
+        Assert.notNull(trainLineDao, "The property 'trainLineDao' is mandatory");
+        Assert.isTrue(maxSize > 0, "The property 'maxSize' must be greater than 0");
+    }
+
+    @Override
+    public synchronized void beforeStep(StepExecution stepExecution) {
+        if (runningSteps++ == 0) {
+            warm();
+        }
+    }
+
+    @Override
+    public synchronized ExitStatus afterStep(StepExecution stepExecution) {
+        if (runningSteps > 0 && --runningSteps == 0) {
+            stations.clear();
+            trainLines.clear();
+
+            LOGGER.debug("Reference data cache cleared");
+        }
+
+        return null;
+    }
+
+    private void warm() {
+        PageRequest firstPage = new PageRequest(0, maxSize);
+
+        stationDao.findAll(firstPage).forEach(this::putStation);
+        trainLineDao.findAll(firstPage).forEach(this::putTrainLine);
+
+        LOGGER.info("Reference data cache warmed with {} station names and {} train lines",
+                stations.size(), trainLines.size());
+    }
+
+    /**
+     * Retrieve a {@link Station} from the cache or from the {@code loader}.
+     *
+     * @param station the one we are looking for
+     * @param loader  called on a miss, it should find or create the {@link Station}
+     * @return the cached {@link Station} or the one given by the {@code loader}
+     */
+    public Station getStation(Station station, Supplier<Station> loader) {
+        String key = stationKey(station);
+        Station result = key != null ? stations.get(key) : null;
+
+        if (result == null) {
+            result = loader.get();
+
+            if (result != null) {
+                putStation(result);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Retrieve a {@link TrainLine} from the cache or from the {@code loader}.
+     *
+     * @param trainLine the one we are looking for
+     * @param loader    called on a miss, it should find or create the {@link TrainLine}
+     * @return the cached {@link TrainLine} or the one given by the {@code loader}
+     */
+    public TrainLine getTrainLine(TrainLine trainLine, Supplier<TrainLine> loader) {
+        Long key = trainLine.getRouteId();
+        TrainLine result = key != null ? trainLines.get(key) : null;
+
+        if (result == null) {
+            result = loader.get();
+
+            if (result != null) {
+                putTrainLine(result);
+            }
+        }
+
+        return result;
+    }
+
+    private void putStation(Station station) {
+        putStation("EN", station.getEnglishName(), station);
+        putStation("FR", station.getFrenchName(), station);
+        putStation("NL", station.getDutchName(), station);
+    }
+
+    private void putStation(String language, String name, Station station) {
+        String key = normalise(language, name);
+
+        if (key != null && station.getId() != null && stations.size() < maxSize) {
+            stations.putIfAbsent(key, station);
+        }
+    }
+
+    private void putTrainLine(TrainLine trainLine) {
+        if (trainLine.getRouteId() != null && trainLine.getId() != null && trainLines.size() < maxSize) {
+            trainLines.putIfAbsent(trainLine.getRouteId(), trainLine);
+        }
+    }
+
+    private static String stationKey(Station station) {
+        String result = normalise("EN", station.getEnglishName());
+
+        if (result == null) {
+            result = normalise("FR", station.getFrenchName());
+        }
+
+        if (result == null) {
+            result = normalise("NL", station.getDutchName());
+        }
+
+        return result;
+    }
+
+    private static String normalise(String language, String name) {
+        String result = null;
+
+        if (name != null && !name.trim().isEmpty()) {
+            result = language + ':' + name.trim().toUpperCase(Locale.ROOT);
+        }
+
+        return result;
+    }
+
+    public void setStationDao(StationDao stationDao) {
+        this.stationDao = stationDao;
+    }
+
+    public void setTrainLineDao(TrainLineDao trainLineDao) {
+        this.trainLineDao = trainLineDao;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.batch.writer;
+
+import be.raildelays.delays.TimeDelay;
+import be.raildelays.domain.entities.LineStop;
+import be.raildelays.repository.fact.DelayFact;
+import be.raildelays.repository.fact.DelayFactStore;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append the delay of each {@link LineStop} of a chain into a {@link DelayFactStore}.
+ * <p>
+ * This writer is meant to be chained after the one writing into the database: the {@code Station} of each
+ * {@link LineStop} must already have an id. The arrival time is used, or the departure time for a stop without
+ * arrival (i.e.: the first stop of a train). A stop without any time or canceled is not appended because it has no
+ * delay.
+ * </p>
+ * <p>
+ * The store is not transactional: within a transaction, the facts of a chunk are only appended once it's committed.
+ * Then a chunk rolled back (e.g.: a skip or a retry of a write) leaves no fact without its line stops in the database.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @see JdbcLineStopItemWriter
+ * @since 2.0
+ */
+public class DelayFactItemWriter implements ItemWriter<LineStop>, InitializingBean {
+
+    private DelayFactStore store;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Assert.notNull(store, "The property 'store' is mandatory");
+    }
+
+    @Override
+    public void write(List<? extends LineStop> items) throws Exception {
+        List<DelayFact> facts = new ArrayList<>();
+
+        for (LineStop lineStop : JdbcLineStopItemWriter.flatten(items)) {
+            DelayFact fact = toFact(lineStop);
+
+            if (fact != null) {
+                facts.add(fact);
+            }
+        }
+
+        if (!facts.isEmpty()) {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCommit() {
+                        append(facts);
+                    }
+                });
+            } else {
+                append(facts);
+            }
+        }
+    }
+
+    private void append(List<DelayFact> facts) {
+        try {
+            store.append(facts);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append " + facts.size() + " delay facts", e);
+        }
+    }
+
+    /**
+     * @return the fact of this stop or {@code null} if it has no delay
+     */
+    static DelayFact toFact(LineStop lineStop) {
+        DelayFact result = null;
+        TimeDelay time = null;
+
+        if (lineStop.getArrivalTime() != null && !lineStop.isCanceledArrival()) {
+            time = lineStop.getArrivalTime();
+        } else if (lineStop.getArrivalTime() == null && lineStop.getDepartureTime() != null
+                && !lineStop.isCanceledDeparture()) {
+            time = lineStop.getDepartureTime();
+        }
+
+        if (time != null && time.getExpectedTime() != null) {
+            Assert.notNull(lineStop.getStation().getId(), "The station of " + lineStop + " must be persisted");
+
+            result = new DelayFact(lineStop.getDate(),
+                    Math.toIntExact(lineStop.getTrainLine().getRouteId()),
+                    Math.toIntExact(lineStop.getStation().getId()),
+                    time.getExpectedTime().toSecondOfDay(),
+                    Math.toIntExact(TimeUnit.MILLISECONDS.toSeconds(time.getDelay())));
+        }
+
+        return result;
+    }
+
+    public void setStore(DelayFactStore store) {
+        this.store = store;
+    }
+}
@@ -0,0 +1,277 @@
+package be.raildelays.batch.writer;
+
+import be.raildelays.delays.TimeDelay;
+import be.raildelays.domain.entities.AbstractEntity;
+import be.raildelays.domain.entities.LineStop;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Types;
+import java.util.*;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * {@link ItemWriter} persisting chains of {@link LineStop} with JDBC batch statements instead of JPA cascades.
+ * <p>
+ * Each item is flattened from the head to the tail of its chain. Ids of new rows are allocated before writing:
+ * </p>
+ * <ul>
+ * <li>by default with the {@link IdentifierGenerator} that Hibernate uses for {@link LineStop}. It relies on the SQL
+ * of the configured dialect (HSQLDB, Derby, ...) and on its optimizer, so our ids never collide with the ones
+ * allocated by JPA;</li>
+ * <li>or all at once with the {@code idQuery} which must return as many rows as its single parameter
+ * (e.g.: {@link #HSQLDB_ID_QUERY}).</li>
+ * </ul>
+ * <p>
+ * Then, whatever the size of the chunk:
+ * </p>
+ * <ol>
+ * <li>one batch INSERT of all new rows with their links to rows already in the database;</li>
+ * <li>one batch UPDATE of the rows which already have an id;</li>
+ * <li>one batch UPDATE patching the links between new rows (the foreign keys are checked on each statement).</li>
+ * </ol>
+ * <p>
+ * The {@link be.raildelays.domain.entities.Station} and the {@link be.raildelays.domain.entities.TrainLine} of each
+ * {@link LineStop} must already be persisted. If an {@code entityManagerFactory} is given, the transactional
+ * {@link EntityManager} is flushed before writing to make them visible for our foreign keys. One of the properties
+ * {@code entityManagerFactory} or {@code idQuery} is mandatory.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @since 2.0
+ */
+public class JdbcLineStopItemWriter implements ItemWriter<LineStop>, InitializingBean {
+
+    /**
+     * Allocate ids from the sequence used by Hibernate for {@link AbstractEntity} with HSQLDB only.
+     */
+    public static final String HSQLDB_ID_QUERY =
+            "SELECT NEXT VALUE FOR hibernate_sequence FROM UNNEST(SEQUENCE_ARRAY(1, ?, 1))";
+
+    private static final String COLUMNS = "TRAIN_ID, STATION_ID, DATE, CANCELED_DEPARTURE, CANCELED_ARRIVAL, " +
+            "ARRIVAL_TIME_EXPECTED, ARRIVAL_TIME_DELAY, DEPARTURE_TIME_EXPECTED, DEPARTURE_TIME_DELAY, " +
+            "PREVIOUS_ID, NEXT_ID";
+
+    private static final String INSERT_SQL = "INSERT INTO LINE_STOP (" + COLUMNS + ", ID) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL = "UPDATE LINE_STOP SET TRAIN_ID = ?, STATION_ID = ?, DATE = ?, " +
+            "CANCELED_DEPARTURE = ?, CANCELED_ARRIVAL = ?, ARRIVAL_TIME_EXPECTED = ?, ARRIVAL_TIME_DELAY = ?, " +
+            "DEPARTURE_TIME_EXPECTED = ?, DEPARTURE_TIME_DELAY = ?, PREVIOUS_ID = ?, NEXT_ID = ? WHERE ID = ?";
+
+    private static final String UPDATE_LINKS_SQL = "UPDATE LINE_STOP SET PREVIOUS_ID = ?, NEXT_ID = ? WHERE ID = ?";
+
+    private static final int[] ROW_TYPES = {Types.BIGINT, Types.BIGINT, Types.DATE, Types.BOOLEAN, Types.BOOLEAN,
+            Types.TIME, Types.BIGINT, Types.TIME, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT};
+
+    private static final int[] LINKS_TYPES = {Types.BIGINT, Types.BIGINT, Types.BIGINT};
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcLineStopItemWriter.class);
+
+    private JdbcTemplate jdbcTemplate;
+    private EntityManagerFactory entityManagerFactory;
+    private String idQuery;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Assert.notNull(jdbcTemplate, "The property 'dataSource' is mandatory");
+        Assert.isTrue(entityManagerFactory != null || idQuery != null,
+                "One of the properties 'entityManagerFactory' or 'idQuery' is mandatory");
+    }
+
+    @Override
+    public void write(List<? extends LineStop> items) throws Exception {
+        List<LineStop> rows = flatten(items);
+
+        if (!rows.isEmpty()) {
+            flush();
+            writeRows(rows);
+        }
+    }
+
+    private void writeRows(List<LineStop> rows) {
+        Map<LineStop, Long> ids = new IdentityHashMap<>(rows.size());
+        Set<LineStop> persisted = Collections.newSetFromMap(new IdentityHashMap<>(rows.size()));
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> links = new ArrayList<>();
+        Iterator<Long> newIds = allocateIds(rows.stream().filter(row -> row.getId() == null).collect(toList()));
+
+        for (LineStop row : rows) {
+            if (row.getId() != null) {
+                ids.put(row, row.getId());
+                persisted.add(row);
+            } else {
+                ids.put(row, newIds.next());
+            }
+        }
+
+        for (LineStop row : rows) {
+            Long id = ids.get(row);
+
+            if (row.getId() != null) {
+                updates.add(toRow(row, id, linkId(row.getPrevious(), ids), linkId(row.getNext(), ids)));
+            } else {
+                Long previousId = persisted.contains(row.getPrevious()) ? ids.get(row.getPrevious()) : null;
+                Long nextId = persisted.contains(row.getNext()) ? ids.get(row.getNext()) : null;
+
+                inserts.add(toRow(row, id, previousId, nextId));
+                persisted.add(row);
+
+                // Links to rows inserted later are patched once every row exists
+                if (!Objects.equals(previousId, linkId(row.getPrevious(), ids))
+                        || !Objects.equals(nextId, linkId(row.getNext(), ids))) {
+                    links.add(new Object[]{linkId(row.getPrevious(), ids), linkId(row.getNext(), ids), id});
+                }
+            }
+        }
+
+        batchUpdate(INSERT_SQL, inserts, ROW_TYPES);
+        batchUpdate(UPDATE_SQL, updates, ROW_TYPES);
+        batchUpdate(UPDATE_LINKS_SQL, links, LINKS_TYPES);
+
+        LOGGER.debug("Written {} line stops: inserts={} updates={} links={}",
+                rows.size(), inserts.size(), updates.size(), links.size());
+    }
+
+    /**
+     * Flatten all chains from head to tail without visiting twice the same {@link LineStop}.
+     */
+    static List<LineStop> flatten(List<? extends LineStop> items) {
+        List<LineStop> result = new ArrayList<>();
+        Set<LineStop> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (LineStop item : items) {
+            LineStop head = item;
+
+            while (head != null && head.getPrevious() != null) {
+                head = head.getPrevious();
+            }
+
+            for (LineStop row = head; row != null && visited.add(row); row = row.getNext()) {
+                result.add(row);
+            }
+        }
+
+        return result;
+    }
+
+    private void flush() {
+        if (entityManagerFactory != null) {
+            EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+
+            if (entityManager != null) {
+                entityManager.flush();
+            }
+        }
+    }
+
+    private Iterator<Long> allocateIds(List<LineStop> newRows) {
+        int count = newRows.size();
+        List<Long> result;
+
+        if (count == 0) {
+            result = Collections.emptyList();
+        } else if (idQuery != null) {
+            result = jdbcTemplate.queryForList(idQuery, Long.class, count);
+        } else {
+            result = generateIds(newRows);
+        }
+
+        if (result.size() != count) {
+            throw new IllegalStateException("The idQuery has returned " + result.size() + " ids instead of " + count);
+        }
+
+        return result.iterator();
+    }
+
+    private List<Long> generateIds(List<LineStop> newRows) {
+        List<Long> result = new ArrayList<>(newRows.size());
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+
+        if (entityManager == null) {
+            throw new IllegalStateException("We need a transactional EntityManager to generate the ids");
+        }
+
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        IdentifierGenerator generator = session.getFactory().getIdentifierGenerator(LineStop.class.getName());
+
+        for (LineStop row : newRows) {
+            result.add(((Number) generator.generate(session, row)).longValue());
+        }
+
+        return result;
+    }
+
+    private void batchUpdate(String sql, List<Object[]> batchArgs, int[] argTypes) {
+        if (!batchArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batchArgs, argTypes);
+        }
+    }
+
+    private static Long linkId(LineStop link, Map<LineStop, Long> ids) {
+        Long result = null;
+
+        if (link != null) {
+            result = ids.containsKey(link) ? ids.get(link) : link.getId();
+        }
+
+        return result;
+    }
+
+    private static Object[] toRow(LineStop lineStop, Long id, Long previousId, Long nextId) {
+        TimeDelay arrivalTime = lineStop.getArrivalTime();
+        TimeDelay departureTime = lineStop.getDepartureTime();
+
+        return new Object[]{
+                requireId(lineStop.getTrainLine(), "trainLine", lineStop),
+                requireId(lineStop.getStation(), "station", lineStop),
+                lineStop.getDate() != null ? Date.valueOf(lineStop.getDate()) : null,
+                lineStop.isCanceledDeparture(),
+                lineStop.isCanceledArrival(),
+                arrivalTime != null && arrivalTime.getExpectedTime() != null ?
+                        Time.valueOf(arrivalTime.getExpectedTime()) : null,
+                arrivalTime != null ? arrivalTime.getDelay() : null,
+                departureTime != null && departureTime.getExpectedTime() != null ?
+                        Time.valueOf(departureTime.getExpectedTime()) : null,
+                departureTime != null ? departureTime.getDelay() : null,
+                previousId,
+                nextId,
+                id
+        };
+    }
+
+    private static Long requireId(AbstractEntity entity, String name, LineStop lineStop) {
+        if (entity == null || entity.getId() == null) {
+            throw new IllegalStateException("The " + name + " must be persisted before writing " + lineStop);
+        }
+
+        return entity.getId();
+    }
+
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void setIdQuery(String idQuery) {
+        this.idQuery = idQuery;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package org.springframework.batch.concurrent.scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ThreadFactory} creating the cheapest threads available to run tasks mostly blocked on I/O.
+ * <p>
+ * When the JVM supports virtual threads (Java 21+), they are used. Otherwise we create daemon platform threads with
+ * a small stack of {@code stackSize} bytes then we can afford one thread per task. Combined with a
+ * {@link org.springframework.core.task.SimpleAsyncTaskExecutor}, the concurrency is only limited by its
+ * {@code concurrencyLimit}.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @since 2.0
+ */
+public class LightweightThreadFactory implements ThreadFactory {
+
+    public static final long DEFAULT_STACK_SIZE = 256 * 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LightweightThreadFactory.class);
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private String threadNamePrefix = "lightweight-";
+    private long stackSize = DEFAULT_STACK_SIZE;
+    private boolean virtualThreads = true;
+    private volatile ThreadFactory virtualThreadFactory;
+    private volatile boolean initialized;
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        ThreadFactory factory = getVirtualThreadFactory();
+        Thread result;
+
+        if (factory != null) {
+            result = factory.newThread(runnable);
+        } else {
+            result = new Thread(null, runnable, threadNamePrefix + threadCount.incrementAndGet(), stackSize);
+            result.setDaemon(true);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return a factory of virtual threads or {@code null} if they are not supported or disabled
+     */
+    private ThreadFactory getVirtualThreadFactory() {
+        if (!initialized) {
+            synchronized (this) {
+                if (!initialized) {
+                    if (virtualThreads) {
+                        try {
+                            // Thread.ofVirtual().name(threadNamePrefix, 1).factory() without compiling against Java 21
+                            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+
+                            builder = builderClass.getMethod("name", String.class, long.class)
+                                    .invoke(builder, threadNamePrefix, 1L);
+                            virtualThreadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+
+                            LOGGER.info("Using virtual threads");
+                        } catch (ReflectiveOperationException e) {
+                            LOGGER.info("Virtual threads are not supported, using platform threads with a stack of {} bytes",
+                                    stackSize);
+                        }
+                    }
+
+                    initialized = true;
+                }
+            }
+        }
+
+        return virtualThreadFactory;
+    }
+
+    public void setThreadNamePrefix(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+    }
+
+    /**
+     * @param stackSize stack size in bytes of platform threads, 0 means the default of the JVM
+     */
+    public void setStackSize(long stackSize) {
+        this.stackSize = stackSize;
+    }
+
+    /**
+     * @param virtualThreads {@code false} to always use platform threads even if virtual threads are supported
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+}
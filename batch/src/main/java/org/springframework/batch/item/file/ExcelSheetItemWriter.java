@@ -18,9 +18,11 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.io.Resource;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.FileTime;
 import java.time.Instant;
 
@@ -38,6 +40,12 @@ import java.time.Instant;
  * Note that the restartability of this writer is only based on
  * {@link AbstractItemCountingItemStreamItemWriter}.
  * </p>
+ * <p>
+ * By default, the whole {@link Workbook} is written to the {@link Resource} after each row. In write-behind mode,
+ * it's only written on {@link #update(ExecutionContext)} (i.e. at each chunk commit) and on {@link #close()}.
+ * In both cases, the {@link Workbook} is first written into a temporary file which is then renamed as our
+ * {@link Resource}.
+ * </p>
  *
  * @param <T> parameter type of the method {@link #write(java.util.List)}
  * @author Almex
@@ -61,6 +69,9 @@ public class ExcelSheetItemWriter<T> extends AbstractItemCountingItemStreamItemW
     protected int rowsToSkip = 0;
     protected int sheetIndex = 0;
     private boolean shouldDeleteIfExists = false;
+    private boolean writeBehind = false;
+    private boolean dirty = false;
+    private Path outputPath;
 
     private static boolean isValidExcelFile(File file) throws IOException {
         try (InputStream inputStream = new PushbackInputStream(new FileInputStream(file), 8)) {
@@ -95,9 +106,10 @@ public class ExcelSheetItemWriter<T> extends AbstractItemCountingItemStreamItemW
     @Override
     public void doOpen() throws ItemStreamException {
         try {
-            Path outputPath = resource.getFile().toPath();
             boolean created = false;
 
+            outputPath = resource.getFile().toPath();
+
             if (Files.exists(outputPath) && (shouldDeleteIfExists || !isValidExcelFile(outputPath.toFile()))) {
                 boolean deleted = Files.deleteIfExists(outputPath);
 
@@ -126,7 +138,8 @@ public class ExcelSheetItemWriter<T> extends AbstractItemCountingItemStreamItemW
             /**
              * We write our first bytes after read the template or created the new Workbook.
              */
-            flush();
+            dirty = true;
+            flushIfNeeded();
         } catch (IOException e) {
             throw new ItemStreamException("I/O exception when opening the Excel file", e);
         } catch (InvalidFormatException e) {
@@ -140,8 +153,9 @@ public class ExcelSheetItemWriter<T> extends AbstractItemCountingItemStreamItemW
 
         if (item != null) {
             previousRow = rowAggregator.aggregate(item, workbook, sheetIndex, getCurrentItemIndex());
+            dirty = true;
 
-            flush();
+            flushIfNeeded();
 
             LOGGER.trace("Previous row={}", previousRow);
         }
@@ -152,7 +166,7 @@ public class ExcelSheetItemWriter<T> extends AbstractItemCountingItemStreamItemW
     @Override
     public void doClose() throws ItemStreamException {
         try {
-            if (workbook != null) {
+            if (workbook != null && dirty) {
                 flush();
             }
         } catch (IOException e) {
@@ -160,6 +174,7 @@ public class ExcelSheetItemWriter<T> extends AbstractItemCountingItemStreamItemW
         } finally {
             IOUtils.closeQuietly(workbook);
             workbook = null;
+            dirty = false;
         }
     }
 
@@ -187,16 +202,49 @@ public class ExcelSheetItemWriter<T> extends AbstractItemCountingItemStreamItemW
         return Files.exists(outputPath);
     }
 
+    private void flushIfNeeded() throws IOException {
+        if (!writeBehind) {
+            flush();
+        }
+    }
+
+    /**
+     * Write the whole {@link Workbook} into a temporary file of the same directory and then replace the file from
+     * which it was opened.
+     */
     private void flush() throws IOException {
-        try (OutputStream output = Files.newOutputStream(resource.getFile().toPath())) {
-            workbook.write(output);
-            output.flush();
+        Path temporaryPath = Files.createTempFile(outputPath.toAbsolutePath().getParent(), outputPath.getFileName().toString(), ".tmp");
+
+        try {
+            try (OutputStream output = Files.newOutputStream(temporaryPath)) {
+                workbook.write(output);
+                output.flush();
+            }
+
+            try {
+                Files.move(temporaryPath, outputPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryPath, outputPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            dirty = false;
+        } finally {
+            Files.deleteIfExists(temporaryPath);
         }
     }
 
     @Override
     public void update(ExecutionContext executionContext) throws ItemStreamException {
         super.update(executionContext);
+
+        if (workbook != null && dirty) {
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new ItemStreamException("I/O error when writing Excel outputDirectory file", e);
+            }
+        }
+
         if (isSaveState()) {
             if (rowsToSkip < Integer.MAX_VALUE) {
                 executionContext.putInt(getExecutionContextKey(ROW_TO_SKIP_KEY), rowsToSkip);
@@ -231,6 +279,15 @@ public class ExcelSheetItemWriter<T> extends AbstractItemCountingItemStreamItemW
         this.shouldDeleteIfExists = shouldDeleteIfExists;
     }
 
+    /**
+     * @param writeBehind {@code true} if the {@link Workbook} should only be written on
+     *                    {@link #update(ExecutionContext)} and on {@link #close()}, {@code false} if it should be
+     *                    written after each row (by default it's set to {@code false}).
+     */
+    public void setWriteBehind(boolean writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
     public enum Format {
         OLE2(".xls") {
             @Override
@@ -0,0 +1,86 @@
+package org.springframework.batch.item.resource;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link Resource} exposing only the bytes of a delegate between {@code start} (included) and {@code end} (excluded).
+ * <p>
+ * It allows several readers to consume distinct parts of the same file: e.g. a {@code FlatFileItemReader} per
+ * partition. The bounds must be on line boundaries, this class does not align them.
+ * </p>
+ *
+ * @author Almex
+ * @since 2.0
+ */
+public class ByteRangeResource extends AbstractResource {
+
+    private final Resource delegate;
+    private final long start;
+    private final long end;
+
+    public ByteRangeResource(Resource delegate, long start, long end) {
+        Assert.notNull(delegate, "The delegate resource is mandatory");
+        Assert.isTrue(start >= 0 && start <= end, "We expect 0 <= start <= end");
+
+        this.delegate = delegate;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public boolean exists() {
+        return delegate.exists();
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        return end - start;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        InputStream inputStream = delegate.getInputStream();
+
+        try {
+            long remaining = start;
+
+            // InputStream.skip() may skip less than requested without reaching the end of the stream
+            while (remaining > 0) {
+                long skipped = inputStream.skip(remaining);
+
+                if (skipped <= 0) {
+                    if (inputStream.read() < 0) {
+                        throw new IOException("Cannot skip " + start + " bytes of " + delegate.getDescription());
+                    }
+                    skipped = 1;
+                }
+
+                remaining -= skipped;
+            }
+        } catch (IOException e) {
+            inputStream.close();
+            throw e;
+        }
+
+        return new BoundedInputStream(inputStream, end - start);
+    }
+
+    @Override
+    public String getDescription() {
+        return "bytes [" + start + ", " + end + ") of " + delegate.getDescription();
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+}
@@ -24,6 +24,8 @@
 
 package org.springframework.batch.item.resource;
 
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
 import org.springframework.batch.item.ItemStreamWriter;
 import org.springframework.core.io.Resource;
 
@@ -43,6 +45,21 @@ public class ResourceLocatorItemStreamWriter<S extends ResourceAwareItemStreamWr
         extends AbstractResourceLocatorItemStream<S, T>
         implements ItemStreamWriter<T>, ResourceAwareItemStreamWriter<T> {
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Our delegate is only updated if it's currently opened.
+     * </p>
+     */
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        if (opened) {
+            delegate.update(executionContext);
+        }
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -19,13 +19,17 @@ import java.util.*;
  * <br/>
  * To achieve that goal this writer during {@link SortedItemStreamWriter#write(List)}:
  * <ul>
- * <li>Read entirely content of the resource</li>
- * <li>Add new items</li>
- * <li>Sort all items in memory</li>
+ * <li>Read entirely content of the resource, only once while this stream is open for the same resource</li>
+ * <li>Merge new items, sorted, into the sorted content kept in memory</li>
  * <li>Write all items in a temporary resource</li>
  * <li>Delete the original resource and rename the temporary resource as the original resource</li>
  * </ul>
  * <br/>
+ * In incremental mode (without temporary resource), only the items from the first changed index are given to
+ * the writer and the writer stays open until {@link #update(ExecutionContext)} or {@link #close()}: the resource is
+ * only persisted on commit. It requires a writer able to write each item at its index, like
+ * {@link org.springframework.batch.item.file.ExcelSheetItemWriter} does.
+ * <br/>
  * This writer is on itself restartable and therefor is not a real {@link ItemStream}.
  * Only the {@link ItemStream#open(ExecutionContext)} method is used to have a
  * reference to the {@link ExecutionContext} during {@link SortedItemStreamWriter#write(List)}.
@@ -43,6 +47,12 @@ public class SortedItemStreamWriter<T extends Comparable<T>> extends ItemStreamS
     private Resource outputResource;
     private ExecutionContext executionContext;
     private boolean useTemporaryFile = false;
+    private boolean incremental = false;
+    private boolean writerOpened = false;
+    private Resource contentResource;
+    private List<T> content;
+    private Map<Long, T> contentByIndex;
+    private Long indexOffset;
 
     @Override
     public void afterPropertiesSet() throws Exception {
@@ -59,65 +69,113 @@ public class SortedItemStreamWriter<T extends Comparable<T>> extends ItemStreamS
 
     @Override
     public void write(List<? extends T> items) throws Exception {
+        boolean incrementalWrite = incremental && !useTemporaryFile;
+
+        if (!Objects.equals(resource, contentResource)) {
+            closeWriter();
+            clearContent();
+        }
+
         initializeStreams();
 
         try {
-            List<T> allItems = replaceItems(readContent(), items);
-            sort(allItems);
-            writeAll(allItems);
+            int firstChangedIndex = content == null ? readContent() : content.size();
+
+            firstChangedIndex = Math.min(firstChangedIndex, merge(items));
+            indexItems(content);
+
+            try {
+                writeAll(incrementalWrite ? content.subList(firstChangedIndex, content.size()) : content);
+            } finally {
+                if (!incrementalWrite) {
+                    closeWriter();
+                }
+            }
+
+            indexContent();
         } catch (Exception e) {
+            closeWriter();
+            clearContent();
             rollback(e);
         }
 
         commit();
     }
 
-    private void sort(List<T> allItems) {
-        allItems.sort(comparator);
-        indexItems(allItems);
+    /**
+     * Persist what we have written since the last commit.
+     */
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        closeWriter();
+    }
 
-        LOGGER.trace("Items sorted={}", allItems.size());
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+        closeWriter();
+        clearContent();
     }
 
-    private List<T> replaceItems(Map<Long, T> content, List<? extends T> items) {
-        List<T> allItems = new ArrayList<>();
+    /**
+     * Merge the sorted items with our sorted content and remove the items they replace.
+     *
+     * @return the index of the first item which has changed
+     */
+    private int merge(List<? extends T> items) {
+        List<T> sortedItems = new ArrayList<>(items);
+        List<T> result = new ArrayList<>(content.size() + items.size());
+        Set<T> replaced = Collections.newSetFromMap(new IdentityHashMap<>());
+        int firstChangedIndex = content.size();
 
-        allItems.addAll(content.values());
+        sortedItems.sort(comparator);
 
         for (T item : items) {
-            Long index = null;
+            Long index = getIndex(item);
+
+            /**
+             * We know here that expect to replace an item and we must do it before sorting.
+             */
+            if (index != null && contentByIndex.containsKey(index)) {
+                replaced.add(contentByIndex.remove(index));
 
-            if (item instanceof IndexedItem) {
-                index = ((IndexedItem) item).getIndex();
+                LOGGER.debug("Removed item on index={}", index);
             }
+        }
 
-            if (index != null) {
-                /**
-                 * We know here that expect to replace an item and we must do it before sorting.
-                 */
-                if (content.containsKey(index)) {
-                    allItems.remove(content.get(index));
+        for (int i = 0, j = 0; i < content.size() || j < sortedItems.size(); ) {
+            if (i < content.size() && replaced.contains(content.get(i))) {
+                firstChangedIndex = Math.min(firstChangedIndex, result.size());
+                i++;
+            } else if (j < sortedItems.size()
+                    && (i >= content.size() || comparator.compare(sortedItems.get(j), content.get(i)) < 0)) {
+                firstChangedIndex = Math.min(firstChangedIndex, result.size());
+                result.add(sortedItems.get(j));
 
-                    LOGGER.debug("Removed item on index={}", index);
-                }
+                LOGGER.trace("Item added: {}", sortedItems.get(j));
+
+                j++;
+            } else {
+                result.add(content.get(i++));
             }
+        }
 
-            allItems.add(item);
+        content = result;
 
-            LOGGER.trace("Item added: {}", item);
-        }
+        LOGGER.trace("Items merged={}", result.size());
 
-        return allItems;
+        return firstChangedIndex;
     }
 
     private void indexItems(List<T> items) {
-        for (T item : items) {
-            if (item instanceof ItemCountAware) {
-                final int index = items.indexOf(item);
+        for (int i = 0; i < items.size(); i++) {
+            T item = items.get(i);
 
-                ((ItemCountAware) item).setItemCount(index);
+            if (item instanceof ItemCountAware) {
+                ((ItemCountAware) item).setItemCount(i);
 
-                LOGGER.trace("Indexed item to={}", index);
+                LOGGER.trace("Indexed item to={}", i);
             } else {
                 /**
                  * Optimization: do not need to loop over all items if one of them is not of the good type
@@ -127,28 +185,57 @@ public class SortedItemStreamWriter<T extends Comparable<T>> extends ItemStreamS
         }
     }
 
-    private Map<Long, T> readContent() throws Exception {
+    /**
+     * Index our content as the reader would do after reading again the resource. If we don't know how to compute
+     * this index, the resource will be read again on the next write.
+     */
+    private void indexContent() {
+        if (indexOffset != null) {
+            contentByIndex = new HashMap<>(content.size());
+
+            for (int i = 0; i < content.size(); i++) {
+                contentByIndex.put(indexOffset + i, content.get(i));
+            }
+        } else {
+            // The next write will read the resource again, it must be persisted before
+            closeWriter();
+            clearContent();
+        }
+    }
+
+    /**
+     * Read and sort the content of the resource.
+     *
+     * @return the index of the first item which has been moved by the sort
+     */
+    private int readContent() throws Exception {
+        List<T> items = new ArrayList<>();
         Map<Long, T> result = new HashMap<>();
+        Long offset = null;
+        boolean regularIndexes = true;
 
         try {
             reader.open(executionContext);
 
             long i = 0;
             for (T item = reader.read(); item != null; item = reader.read(), i++) {
-                Long index = null;
-
-                if (item instanceof IndexedItem) {
-                    index = ((IndexedItem) item).getIndex();
+                Long index = getIndex(item);
 
+                if (index != null) {
                     LOGGER.trace("Retrieving existing index={}", index);
-                }
-
-                if (index == null) {
+                } else {
                     index = i;
 
                     LOGGER.trace("Setting new index={}", index);
                 }
 
+                if (offset == null) {
+                    offset = index - i;
+                } else if (index - i != offset) {
+                    regularIndexes = false;
+                }
+
+                items.add(item);
                 result.put(index, item);
 
                 LOGGER.debug("Read content : line={}, item={}", index, item);
@@ -157,6 +244,38 @@ public class SortedItemStreamWriter<T extends Comparable<T>> extends ItemStreamS
             reader.close();
         }
 
+        content = new ArrayList<>(items);
+        content.sort(comparator);
+        contentByIndex = result;
+        contentResource = resource;
+        indexOffset = regularIndexes ? offset : null;
+
+        int firstChangedIndex = items.size();
+
+        for (int i = 0; i < items.size(); i++) {
+            if (content.get(i) != items.get(i)) {
+                firstChangedIndex = i;
+                break;
+            }
+        }
+
+        return firstChangedIndex;
+    }
+
+    private void clearContent() {
+        content = null;
+        contentByIndex = null;
+        contentResource = null;
+        indexOffset = null;
+    }
+
+    private static Long getIndex(Object item) {
+        Long result = null;
+
+        if (item instanceof IndexedItem) {
+            result = ((IndexedItem) item).getIndex();
+        }
+
         return result;
     }
 
@@ -172,12 +291,19 @@ public class SortedItemStreamWriter<T extends Comparable<T>> extends ItemStreamS
     }
 
     private void writeAll(List<? extends T> items) throws Exception {
-        try {
+        if (!writerOpened) {
             writer.open(executionContext);
-            writer.write(items);
+            writerOpened = true;
+        }
 
-            LOGGER.debug("Written {} items", items.size());
-        } finally {
+        writer.write(items);
+
+        LOGGER.debug("Written {} items", items.size());
+    }
+
+    private void closeWriter() {
+        if (writerOpened) {
+            writerOpened = false;
             writer.close();
         }
     }
@@ -232,4 +358,13 @@ public class SortedItemStreamWriter<T extends Comparable<T>> extends ItemStreamS
     public void setUseTemporaryFile(boolean useTemporaryFile) {
         this.useTemporaryFile = useTemporaryFile;
     }
+
+    /**
+     * @param incremental {@code true} if only the items from the first changed index should be written and persisted
+     *                    on commit, {@code false} if all items should be written and persisted on each write
+     *                    (by default it's set to {@code false}). It has no effect with a temporary file.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
 }
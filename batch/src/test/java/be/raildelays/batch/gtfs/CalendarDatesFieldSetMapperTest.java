@@ -9,7 +9,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.BlockJUnit4ClassRunner;
 import org.springframework.batch.item.file.transform.FieldSet;
 
-import java.util.Date;
+import java.time.LocalDate;
 
 import static org.easymock.EasyMock.expect;
 
@@ -33,7 +33,7 @@ public class CalendarDatesFieldSetMapperTest extends EasyMockSupport {
 
     @Test
     public void testMapFieldSet() throws Exception {
-        expect(fieldSetMock.readDate("date", GtfsFiledSetMapper.DATE_FORMAT)).andReturn(new Date());
+        expect(fieldSetMock.readString("date")).andReturn("20160701");
         expect(fieldSetMock.readString("service_id")).andReturn("1");
         expect(fieldSetMock.readInt("exception_type")).andReturn(0);
 
@@ -41,6 +41,7 @@ public class CalendarDatesFieldSetMapperTest extends EasyMockSupport {
         CalendarDate actual = mapper.mapFieldSet(fieldSetMock);
 
         Assert.assertNotNull(actual);
+        Assert.assertEquals(LocalDate.of(2016, 7, 1), actual.getDate());
         verifyAll();
     }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package be.raildelays.batch.gtfs;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.chrono.IsoChronology;
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * JMH benchmark comparing the parsing of GTFS fields done by {@link GtfsFiledSetMapper} with the former
+ * implementation based on {@link DateTimeFormatter}, {@link java.text.SimpleDateFormat} and {@link Pattern}.
+ * <p>
+ * It's not executed during the build. Run it with the {@link #main(String[])} method from the test classpath.
+ * </p>
+ *
+ * @author Almex
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GtfsFiledSetMapperBenchmark {
+
+    private String time = "25:36:12";
+    private String date = "20160701";
+    private String routeShortName = "IC466";
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GtfsFiledSetMapperBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Benchmark
+    public LocalTime readTime() {
+        return LocalTime.ofSecondOfDay(GtfsFiledSetMapper.parseSecondsOfDay(time) % GtfsFiledSetMapper.SECONDS_PER_DAY);
+    }
+
+    @Benchmark
+    public LocalTime readTimeWithFormatter() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(GtfsFiledSetMapper.TIME_FORMAT, Locale.ENGLISH)
+                .withChronology(IsoChronology.INSTANCE)
+                .withResolverStyle(ResolverStyle.LENIENT);
+
+        return LocalTime.parse(time, formatter);
+    }
+
+    @Benchmark
+    public LocalDate readDate() {
+        return LocalDate.ofEpochDay(GtfsFiledSetMapper.parseEpochDay(date));
+    }
+
+    @Benchmark
+    public LocalDate readDateWithSimpleDateFormat() throws Exception {
+        java.text.SimpleDateFormat format = new java.text.SimpleDateFormat(GtfsFiledSetMapper.DATE_FORMAT);
+
+        format.setLenient(false);
+
+        return format.parse(date)
+                .toInstant()
+                .atZone(ZoneId.systemDefault())
+                .toLocalDate();
+    }
+
+    @Benchmark
+    public Long parseRouteId() {
+        return GtfsFiledSetMapper.parseRouteId(routeShortName);
+    }
+
+    @Benchmark
+    public Long parseRouteIdWithPattern() {
+        StringBuilder builder = new StringBuilder();
+        Pattern pattern = Pattern.compile("[0-9]+");
+
+        for (int i = 0; i < routeShortName.length(); i++) {
+            char character = routeShortName.charAt(i);
+
+            if (pattern.matcher(new String(new char[]{character})).find()) {
+                builder.append(character);
+            }
+        }
+
+        return Long.parseLong(builder.toString());
+    }
+}
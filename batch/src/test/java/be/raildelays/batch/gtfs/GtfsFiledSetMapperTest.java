@@ -0,0 +1,85 @@
+package be.raildelays.batch.gtfs;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Almex
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class GtfsFiledSetMapperTest {
+
+    @Test
+    public void testParseRouteId() throws Exception {
+        assertEquals(Long.valueOf(466), GtfsFiledSetMapper.parseRouteId("IC466"));
+        assertEquals(Long.valueOf(1234), GtfsFiledSetMapper.parseRouteId("route:P12-34"));
+        assertEquals(Long.valueOf(Long.MAX_VALUE), GtfsFiledSetMapper.parseRouteId("IC9223372036854775807"));
+        assertNull(GtfsFiledSetMapper.parseRouteId(null));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseRouteIdWithoutDigit() throws Exception {
+        GtfsFiledSetMapper.parseRouteId("IC");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseRouteIdOverflow() throws Exception {
+        GtfsFiledSetMapper.parseRouteId("IC9223372036854775808");
+    }
+
+    @Test
+    public void testParseSecondsOfDay() throws Exception {
+        assertEquals(0, GtfsFiledSetMapper.parseSecondsOfDay("00:00:00"));
+        assertEquals(5 * 3600 + 36 * 60 + 7, GtfsFiledSetMapper.parseSecondsOfDay("05:36:07"));
+        assertEquals(5 * 3600 + 36 * 60 + 7, GtfsFiledSetMapper.parseSecondsOfDay("5:36:07"));
+        assertEquals(25 * 3600 + 1, GtfsFiledSetMapper.parseSecondsOfDay("25:00:01"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseSecondsOfDayInvalidMinutes() throws Exception {
+        GtfsFiledSetMapper.parseSecondsOfDay("05:60:00");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseSecondsOfDayInvalidFormat() throws Exception {
+        GtfsFiledSetMapper.parseSecondsOfDay("05-36-00");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseSecondsOfDayNull() throws Exception {
+        GtfsFiledSetMapper.parseSecondsOfDay(null);
+    }
+
+    /**
+     * We expect the same result as LocalDate for every day of a few years (including leap years).
+     */
+    @Test
+    public void testParseEpochDay() throws Exception {
+        for (LocalDate date = LocalDate.of(1999, 1, 1); date.getYear() < 2025; date = date.plusDays(1)) {
+            String value = String.format("%04d%02d%02d", date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+
+            assertEquals(value, date.toEpochDay(), GtfsFiledSetMapper.parseEpochDay(value));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseEpochDayInvalidDay() throws Exception {
+        GtfsFiledSetMapper.parseEpochDay("20150229");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseEpochDayInvalidLength() throws Exception {
+        GtfsFiledSetMapper.parseEpochDay("2016071");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseEpochDayInvalidCharacter() throws Exception {
+        GtfsFiledSetMapper.parseEpochDay("2016O701");
+    }
+}
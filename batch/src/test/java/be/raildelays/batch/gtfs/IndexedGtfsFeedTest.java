@@ -0,0 +1,168 @@
+package be.raildelays.batch.gtfs;
+
+import org.easymock.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.springframework.batch.item.ItemStreamReader;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.*;
+
+/**
+ * @author Almex
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class IndexedGtfsFeedTest extends EasyMockSupport {
+
+    private static final LocalDate DATE = LocalDate.of(2016, 7, 1);
+
+    @Rule
+    public EasyMockRule easyMockRule = new EasyMockRule(this);
+
+    @Mock(type = MockType.NICE)
+    private ItemStreamReader<StopTime> stopTimesReader;
+
+    @Mock(type = MockType.NICE)
+    private ItemStreamReader<Trip> tripsReader;
+
+    @Mock(type = MockType.NICE)
+    private ItemStreamReader<Stop> stopsReader;
+
+    @Mock(type = MockType.NICE)
+    private ItemStreamReader<CalendarDate> calendarDatesReader;
+
+    /**
+     * We expect stop times to be grouped by trip and sorted by stop sequence.
+     */
+    @Test
+    public void testGetStopTimes() throws Exception {
+        expect(stopTimesReader.read()).andReturn(stopTime("1", 3));
+        expect(stopTimesReader.read()).andReturn(stopTime("2", 1));
+        expect(stopTimesReader.read()).andReturn(stopTime("1", 1));
+        expect(stopTimesReader.read()).andReturn(stopTime("1", 2));
+        expect(stopTimesReader.read()).andReturn(null);
+
+        replayAll();
+
+        GtfsFeed feed = new IndexedGtfsFeed.Builder().stopTimes(stopTimesReader).build();
+        List<StopTime> actual = feed.getStopTimes("1");
+
+        assertEquals(3, actual.size());
+        assertEquals(Integer.valueOf(1), actual.get(0).getStopSequence());
+        assertEquals(Integer.valueOf(2), actual.get(1).getStopSequence());
+        assertEquals(Integer.valueOf(3), actual.get(2).getStopSequence());
+        assertEquals(1, feed.getStopTimes("2").size());
+        assertTrue(feed.getStopTimes("3").isEmpty());
+        assertTrue(feed.getStopTimes(null).isEmpty());
+    }
+
+    /**
+     * We expect to retrieve a trip by its id.
+     */
+    @Test
+    public void testGetTrip() throws Exception {
+        Trip trip = new Trip();
+
+        trip.setTripId("1");
+
+        expect(tripsReader.read()).andReturn(trip);
+        expect(tripsReader.read()).andReturn(null);
+
+        replayAll();
+
+        GtfsFeed feed = new IndexedGtfsFeed.Builder().trips(tripsReader).build();
+
+        assertSame(trip, feed.getTrip("1"));
+        assertNull(feed.getTrip("2"));
+        assertNull(feed.getTrip(null));
+    }
+
+    /**
+     * We expect to retrieve a stop by its id.
+     */
+    @Test
+    public void testGetStop() throws Exception {
+        Stop stop = new Stop();
+
+        stop.setStopId("1");
+
+        expect(stopsReader.read()).andReturn(stop);
+        expect(stopsReader.read()).andReturn(null);
+
+        replayAll();
+
+        GtfsFeed feed = new IndexedGtfsFeed.Builder().stops(stopsReader).build();
+
+        assertSame(stop, feed.getStop("1"));
+        assertNull(feed.getStop("2"));
+        assertNull(feed.getStop(null));
+    }
+
+    /**
+     * We expect that only added dates are considered as active.
+     */
+    @Test
+    public void testIsActive() throws Exception {
+        expect(calendarDatesReader.read()).andReturn(calendarDate("1", DATE, CalendarDate.ExceptionType.ADDED));
+        expect(calendarDatesReader.read()).andReturn(calendarDate("1", DATE.plusDays(3), CalendarDate.ExceptionType.ADDED));
+        expect(calendarDatesReader.read()).andReturn(calendarDate("2", DATE, CalendarDate.ExceptionType.REMOVED));
+        expect(calendarDatesReader.read()).andReturn(null);
+
+        replayAll();
+
+        GtfsFeed feed = new IndexedGtfsFeed.Builder().calendarDates(calendarDatesReader).build();
+
+        assertTrue(feed.isActive("1", DATE));
+        assertTrue(feed.isActive("1", DATE.plusDays(3)));
+        assertFalse(feed.isActive("1", DATE.plusDays(1)));
+        assertFalse(feed.isActive("1", DATE.minusDays(1)));
+        assertFalse(feed.isActive("2", DATE));
+        assertFalse(feed.isActive(null, DATE));
+    }
+
+    /**
+     * We expect an empty feed when no reader is given.
+     */
+    @Test
+    public void testEmptyFeed() throws Exception {
+        GtfsFeed feed = new IndexedGtfsFeed.Builder().build();
+
+        assertTrue(feed.getStopTimes("1").isEmpty());
+        assertNull(feed.getTrip("1"));
+        assertNull(feed.getStop("1"));
+        assertFalse(feed.isActive("1", DATE));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testReadWithException() throws Exception {
+        expect(stopsReader.read()).andThrow(new Exception());
+
+        replayAll();
+
+        new IndexedGtfsFeed.Builder().stops(stopsReader);
+    }
+
+    private static StopTime stopTime(String tripId, int stopSequence) {
+        StopTime result = new StopTime();
+
+        result.setTripId(tripId);
+        result.setStopSequence(stopSequence);
+
+        return result;
+    }
+
+    private static CalendarDate calendarDate(String serviceId, LocalDate date, CalendarDate.ExceptionType type) {
+        CalendarDate result = new CalendarDate();
+
+        result.setServiceId(serviceId);
+        result.setDate(date);
+        result.setExceptionType(type);
+
+        return result;
+    }
+}
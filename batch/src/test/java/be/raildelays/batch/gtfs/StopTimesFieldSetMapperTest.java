@@ -9,6 +9,8 @@ import org.junit.runner.RunWith;
 import org.junit.runners.BlockJUnit4ClassRunner;
 import org.springframework.batch.item.file.transform.FieldSet;
 
+import java.time.LocalTime;
+
 import static org.easymock.EasyMock.expect;
 
 /**
@@ -41,6 +43,8 @@ public class StopTimesFieldSetMapperTest extends EasyMockSupport {
         StopTime actual = mapper.mapFieldSet(fieldSetMock);
 
         Assert.assertNotNull(actual);
+        Assert.assertEquals(LocalTime.of(5, 36), actual.getArrivalTime());
+        Assert.assertEquals(LocalTime.of(1, 36), actual.getDepartureTime());
         verifyAll();
     }
 }
\ No newline at end of file
@@ -10,10 +10,20 @@ import org.easymock.*;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.easymock.EasyMock.*;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 /**
@@ -31,6 +41,8 @@ public class AggregateLineStopProcessorTest extends EasyMockSupport {
     private TrainLineDao trainLineDao;
     @Mock(type = MockType.NICE)
     private StationDao stationDao;
+    @Mock(type = MockType.NICE)
+    private PlatformTransactionManager transactionManager;
 
     @Rule
     public EasyMockRule easyMockRule = new EasyMockRule(this);
@@ -58,7 +70,7 @@ public class AggregateLineStopProcessorTest extends EasyMockSupport {
                 )
                 .build(false);
 
-        expect(lineStopDao.findByTrainLineAndDateAndStation(anyObject(), anyObject(), anyObject())).andReturn(null);
+        expect(lineStopDao.findByTrainLinesAndDates(anyObject(), anyObject())).andReturn(Collections.emptyList());
         expect(stationDao.findByEnglishName(anyString())).andReturn(station);
         expect(trainLineDao.findByRouteId(anyLong())).andReturn(trainLine);
 
@@ -82,11 +94,101 @@ public class AggregateLineStopProcessorTest extends EasyMockSupport {
                 )
                 .build(false);
 
-        expect(lineStopDao.findByTrainLineAndDateAndStation(anyObject(), anyObject(), anyObject()))
-                .andReturn(expected);
+        expect(lineStopDao.findByTrainLinesAndDates(anyObject(), anyObject()))
+                .andReturn(Arrays.asList(expected, expected.getNext()));
 
         replayAll();
 
         assertNotNull(processor.process(expected));
     }
+
+    /**
+     * We expect a missing Station to be created in a new transaction and then searched again.
+     */
+    @Test
+    public void testProcessAggregateInNewTransaction() throws Exception {
+        Station station = new Station("Liège-Guillemins");
+        TrainLine trainLine = new TrainLine.Builder(1L).build(false);
+        LineStop expected = new LineStop.Builder()
+                .trainLine(trainLine)
+                .station(station)
+                .date(LocalDate.now())
+                .build(false);
+        Capture<TransactionDefinition> definition = newCapture();
+
+        processor.setTransactionManager(transactionManager);
+
+        expect(lineStopDao.findByTrainLinesAndDates(anyObject(), anyObject())).andReturn(Collections.emptyList());
+        expect(stationDao.findByEnglishName(anyString())).andReturn(null).times(2);
+        expect(stationDao.save(station)).andReturn(station).once();
+        expect(stationDao.findByEnglishName(anyString())).andReturn(station);
+        expect(trainLineDao.findByRouteId(anyLong())).andReturn(trainLine);
+        expect(transactionManager.getTransaction(capture(definition))).andReturn(null).once();
+
+        replayAll();
+
+        LineStop result = processor.process(expected);
+
+        assertEquals(station, result.getStation());
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, definition.getValue().getPropagationBehavior());
+        verifyAll();
+    }
+
+    /**
+     * We expect only one insert of the same Station when several processors aggregate it concurrently.
+     */
+    @Test
+    public void testProcessAggregateConcurrently() throws Exception {
+        final int threads = 8;
+        final AtomicReference<Station> database = new AtomicReference<>();
+        final AtomicInteger inserts = new AtomicInteger();
+        final TrainLine trainLine = new TrainLine.Builder(1L).build(false);
+        final CyclicBarrier barrier = new CyclicBarrier(threads);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<LineStop>> results = new ArrayList<>();
+
+        expect(lineStopDao.findByTrainLinesAndDates(anyObject(), anyObject()))
+                .andReturn(Collections.emptyList()).anyTimes();
+        expect(stationDao.findByEnglishName(anyString())).andAnswer(database::get).anyTimes();
+        expect(stationDao.save(anyObject(Station.class))).andAnswer(() -> {
+            Station station = (Station) getCurrentArguments()[0];
+
+            inserts.incrementAndGet();
+            Thread.sleep(10); // Give a chance to other threads to search for it
+            database.set(station);
+
+            return station;
+        }).anyTimes();
+        expect(trainLineDao.findByRouteId(anyLong())).andReturn(trainLine).anyTimes();
+
+        replayAll();
+
+        try {
+            for (int i = 0; i < threads; i++) {
+                AggregateLineStopProcessor concurrent = new AggregateLineStopProcessor();
+
+                concurrent.setLineStopDao(lineStopDao);
+                concurrent.setStationDao(stationDao);
+                concurrent.setTrainLineDao(trainLineDao);
+                concurrent.afterPropertiesSet();
+                results.add(executor.submit(() -> {
+                    barrier.await();
+
+                    return concurrent.process(new LineStop.Builder()
+                            .trainLine(trainLine)
+                            .station(new Station("Liège-Guillemins"))
+                            .date(LocalDate.now())
+                            .build(false));
+                }));
+            }
+
+            for (Future<LineStop> result : results) {
+                assertNotNull(result.get(10, TimeUnit.SECONDS).getStation());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, inserts.get());
+    }
 }
@@ -1,5 +1,6 @@
 package be.raildelays.batch.processor;
 
+import be.raildelays.batch.gtfs.IndexedGtfsFeed;
 import be.raildelays.batch.gtfs.Stop;
 import be.raildelays.batch.gtfs.StopTime;
 import be.raildelays.batch.gtfs.Trip;
@@ -23,7 +24,6 @@ public class BuildLineStopProcessorTest extends EasyMockSupport {
 
     private final Trip item = new Trip();
 
-    @TestSubject
     public BuildLineStopProcessor processor = new BuildLineStopProcessor();
     @Mock(type = MockType.NICE)
     private ItemStreamReader<Stop> stopsReader;
@@ -37,7 +37,6 @@ public class BuildLineStopProcessorTest extends EasyMockSupport {
 
         stopTime.setStopId("1");
         processor.setDate(LocalDate.now());
-        processor.setStopsReader(stopsReader);
         item.setStopTimes(Arrays.asList(stopTime, new StopTime()));
     }
 
@@ -54,6 +53,8 @@ public class BuildLineStopProcessorTest extends EasyMockSupport {
 
         replayAll();
 
+        processor.setFeed(new IndexedGtfsFeed.Builder().stops(stopsReader).build());
+
         assertNotNull(processor.process(item));
     }
 
@@ -70,6 +71,8 @@ public class BuildLineStopProcessorTest extends EasyMockSupport {
 
         replayAll();
 
+        processor.setFeed(new IndexedGtfsFeed.Builder().stops(stopsReader).build());
+
         assertNotNull(processor.process(item));
     }
 
@@ -86,6 +89,8 @@ public class BuildLineStopProcessorTest extends EasyMockSupport {
 
         replayAll();
 
+        processor.setFeed(new IndexedGtfsFeed.Builder().stops(stopsReader).build());
+
         assertNotNull(processor.process(item));
     }
 }
\ No newline at end of file
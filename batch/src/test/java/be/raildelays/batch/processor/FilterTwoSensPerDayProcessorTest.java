@@ -21,6 +21,8 @@ import org.springframework.core.io.Resource;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -36,6 +38,8 @@ public class FilterTwoSensPerDayProcessorTest {
 
     private Station stationB;
 
+    private int opened;
+
     @Before
     public void setUp() throws Exception {
         stationA = new Station("A");
@@ -57,6 +61,7 @@ public class FilterTwoSensPerDayProcessorTest {
             @Override
             public void open(ExecutionContext executionContext) throws ItemStreamException {
                 iterator = list.iterator();
+                opened++;
             }
 
             @Override
@@ -278,4 +283,106 @@ public class FilterTwoSensPerDayProcessorTest {
         Assert.assertNotNull(excelRow);
     }
 
+    /**
+     * We expect to read the Excel rows only once at step start, even if we process several items.
+     */
+    @Test
+    public void testProcessReadOnce() throws Exception {
+        processor.beforeStep(MetaDataInstanceFactory.createStepExecution());
+
+        Assert.assertNull(processor.process(new Builder(LocalDate.parse("2000-01-01"), Sens.DEPARTURE) //
+                .departureStation(stationA) //
+                .arrivalStation(stationB) //
+                .delay(1L) //
+                .build(false)));
+        Assert.assertNotNull(processor.process(new Builder(LocalDate.parse("2000-01-04"), Sens.DEPARTURE) //
+                .departureStation(stationA) //
+                .arrivalStation(stationB) //
+                .delay(1L) //
+                .build(false)));
+        Assert.assertEquals(1, opened);
+    }
+
+    /**
+     * We expect the rows emitted by the writer to be indexed with their new index without reading again the
+     * Excel rows.
+     */
+    @Test
+    public void testProcessAfterWrite() throws Exception {
+        BatchExcelRow written = new Builder(LocalDate.parse("2000-01-04"), Sens.DEPARTURE) //
+                .departureStation(stationA) //
+                .arrivalStation(stationB) //
+                .delay(20L) //
+                .index(5L) //
+                .build(false);
+
+        processor.beforeStep(MetaDataInstanceFactory.createStepExecution());
+        processor.afterWrite(Collections.singletonList(written));
+
+        Assert.assertNull(processor.process(new Builder(LocalDate.parse("2000-01-04"), Sens.DEPARTURE) //
+                .departureStation(stationA) //
+                .arrivalStation(stationB) //
+                .delay(10L) //
+                .build(false)));
+
+        BatchExcelRow excelRow = processor.process(new Builder(LocalDate.parse("2000-01-04"), Sens.DEPARTURE) //
+                .departureStation(stationA) //
+                .arrivalStation(stationB) //
+                .delay(30L) //
+                .build(false));
+
+        Assert.assertNotNull(excelRow);
+        Assert.assertEquals(Long.valueOf(5L), excelRow.getIndex());
+        Assert.assertEquals(1, opened);
+    }
+
+    /**
+     * We expect the rows moved by the writer to be shifted: a replaced row is removed and the written rows are
+     * inserted at their sorted position.
+     */
+    @Test
+    public void testProcessAfterWriteShift() throws Exception {
+        processor.beforeStep(MetaDataInstanceFactory.createStepExecution());
+
+        BatchExcelRow inserted = processor.process(new Builder(LocalDate.parse("2000-01-01"), Sens.DEPARTURE) //
+                .departureStation(stationA) //
+                .arrivalStation(new Station("C")) //
+                .delay(10L) //
+                .build(false));
+        BatchExcelRow replacing = processor.process(new Builder(LocalDate.parse("2000-01-02"), Sens.ARRIVAL) //
+                .departureStation(stationB) //
+                .arrivalStation(stationA) //
+                .delay(25L) //
+                .build(false));
+
+        Assert.assertEquals(Long.valueOf(3L), replacing.getIndex());
+
+        // The writer removes the row 3 then inserts its items sorted: they get their new position
+        inserted.setIndex(1L);
+        replacing.setIndex(4L);
+        processor.afterWrite(Arrays.asList(inserted, replacing));
+
+        Assert.assertEquals(Long.valueOf(5L), processor.process(new Builder(LocalDate.parse("2000-01-03"), Sens.DEPARTURE) //
+                .departureStation(stationA) //
+                .arrivalStation(stationB) //
+                .delay(20L) //
+                .build(false)).getIndex());
+        Assert.assertEquals(Long.valueOf(3L), processor.process(new Builder(LocalDate.parse("2000-01-02"), Sens.DEPARTURE) //
+                .departureStation(stationA) //
+                .arrivalStation(stationB) //
+                .delay(11L) //
+                .build(false)).getIndex());
+        Assert.assertEquals(Long.valueOf(0L), processor.process(new Builder(LocalDate.parse("2000-01-01"), Sens.DEPARTURE) //
+                .departureStation(stationA) //
+                .arrivalStation(stationB) //
+                .delay(6L) //
+                .build(false)).getIndex());
+        Assert.assertNull(processor.process(new Builder(LocalDate.parse("2000-01-02"), Sens.ARRIVAL) //
+                .departureStation(stationB) //
+                .arrivalStation(stationA) //
+                .delay(20L) //
+                .build(false)));
+        Assert.assertEquals(1, opened);
+    }
+
 }
@@ -1,15 +1,20 @@
 package be.raildelays.batch.processor;
 
 import be.raildelays.batch.gtfs.CalendarDate;
+import be.raildelays.batch.gtfs.IndexedGtfsFeed;
 import be.raildelays.batch.gtfs.Trip;
 import org.easymock.*;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.BlockJUnit4ClassRunner;
 import org.springframework.batch.item.ItemStreamReader;
 
+import java.time.LocalDate;
+
 import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
 /**
@@ -18,7 +23,8 @@ import static org.junit.Assert.assertNull;
 @RunWith(BlockJUnit4ClassRunner.class)
 public class FilterUnscheduledTripProcessorTest extends EasyMockSupport {
 
-    @TestSubject
+    private static final LocalDate TODAY = LocalDate.now();
+
     public FilterUnscheduledTripProcessor processor = new FilterUnscheduledTripProcessor();
 
     @Mock(type = MockType.NICE)
@@ -27,17 +33,57 @@ public class FilterUnscheduledTripProcessorTest extends EasyMockSupport {
     @Rule
     public EasyMockRule easyMockRule = new EasyMockRule(this);
 
-    /**
-     * We expect that with no tripId the Trip is filtered.
-     */
-    @Test
-    public void testProcess() throws Exception {
+    @Before
+    public void setUp() throws Exception {
+        CalendarDate calendarDate = new CalendarDate();
+
+        calendarDate.setServiceId("1");
+        calendarDate.setDate(TODAY);
+        calendarDate.setExceptionType(CalendarDate.ExceptionType.ADDED);
 
+        expect(reader.read()).andReturn(calendarDate);
         expect(reader.read()).andReturn(new CalendarDate());
         expect(reader.read()).andReturn(null);
 
         replayAll();
 
+        processor.setFeed(new IndexedGtfsFeed.Builder()
+                .calendarDates(reader)
+                .build());
+        processor.setDate(TODAY);
+        processor.afterPropertiesSet();
+    }
+
+    /**
+     * We expect that with no serviceId the Trip is filtered.
+     */
+    @Test
+    public void testProcess() throws Exception {
         assertNull(processor.process(new Trip()));
     }
-}
\ No newline at end of file
+
+    /**
+     * We expect that a Trip scheduled for today is kept.
+     */
+    @Test
+    public void testProcessScheduled() throws Exception {
+        Trip trip = new Trip();
+
+        trip.setServiceId("1");
+
+        assertNotNull(processor.process(trip));
+    }
+
+    /**
+     * We expect that a Trip not scheduled for that day is filtered.
+     */
+    @Test
+    public void testProcessOtherDay() throws Exception {
+        Trip trip = new Trip();
+
+        trip.setServiceId("1");
+        processor.setDate(TODAY.plusDays(1));
+
+        assertNull(processor.process(trip));
+    }
+}
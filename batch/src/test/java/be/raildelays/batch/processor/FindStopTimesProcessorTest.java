@@ -1,8 +1,11 @@
 package be.raildelays.batch.processor;
 
+import be.raildelays.batch.gtfs.GtfsFeed;
+import be.raildelays.batch.gtfs.IndexedGtfsFeed;
 import be.raildelays.batch.gtfs.StopTime;
 import be.raildelays.batch.gtfs.Trip;
 import org.easymock.*;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -10,6 +13,7 @@ import org.junit.runners.BlockJUnit4ClassRunner;
 import org.springframework.batch.item.ItemStreamReader;
 
 import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -19,7 +23,6 @@ import static org.junit.Assert.assertTrue;
 @RunWith(BlockJUnit4ClassRunner.class)
 public class FindStopTimesProcessorTest extends EasyMockSupport {
 
-    @TestSubject
     public FindStopTimesProcessor processor = new FindStopTimesProcessor();
 
     @Mock(type = MockType.NICE)
@@ -28,20 +31,50 @@ public class FindStopTimesProcessorTest extends EasyMockSupport {
     @Rule
     public EasyMockRule easyMockRule = new EasyMockRule(this);
 
-    /**
-     * We expect that with no tripId the StopTime list is empty.
-     */
-    @Test
-    public void testProcess() throws Exception {
+    @Before
+    public void setUp() throws Exception {
+        StopTime stopTime = new StopTime();
+
+        stopTime.setTripId("1");
+        stopTime.setStopSequence(1);
 
+        expect(reader.read()).andReturn(stopTime);
         expect(reader.read()).andReturn(new StopTime());
         expect(reader.read()).andReturn(null);
 
         replayAll();
 
+        GtfsFeed feed = new IndexedGtfsFeed.Builder()
+                .stopTimes(reader)
+                .build();
+
+        processor.setFeed(feed);
+        processor.afterPropertiesSet();
+    }
+
+    /**
+     * We expect that with no tripId the StopTime list is empty.
+     */
+    @Test
+    public void testProcess() throws Exception {
         Trip trip = processor.process(new Trip());
 
         assertNotNull(trip);
         assertTrue(trip.getStopTimes().isEmpty());
     }
-}
\ No newline at end of file
+
+    /**
+     * We expect to retrieve the StopTime of the trip.
+     */
+    @Test
+    public void testProcessWithTripId() throws Exception {
+        Trip item = new Trip();
+
+        item.setTripId("1");
+
+        Trip trip = processor.process(item);
+
+        assertNotNull(trip);
+        assertEquals(1, trip.getStopTimes().size());
+    }
+}
@@ -0,0 +1,111 @@
+package be.raildelays.batch.reader;
+
+import be.raildelays.domain.Sens;
+import be.raildelays.domain.entities.LineStop;
+import be.raildelays.domain.entities.Station;
+import be.raildelays.domain.entities.TrainLine;
+import be.raildelays.repository.LineStopDao;
+import org.easymock.EasyMockSupport;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isNull;
+import static org.easymock.EasyMock.same;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Almex
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class DelaysItemReaderTest extends EasyMockSupport {
+
+    private static final LocalDate DATE = LocalDate.of(2000, 1, 1);
+    private static final Station STATION = new Station("Bruxelles-Central");
+
+    private DelaysItemReader reader;
+    private LineStopDao lineStopDao;
+
+    private static LineStop lineStop(long id) {
+        return new LineStop.Builder()
+                .id(id)
+                .date(DATE)
+                .trainLine(new TrainLine.Builder(id).build())
+                .station(STATION)
+                .build();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        lineStopDao = createMock(LineStopDao.class);
+
+        reader = new DelaysItemReader();
+        reader.setLineStopDao(lineStopDao);
+        reader.setDate(DATE);
+        reader.setStation(STATION);
+        reader.setDelayThreshold(900000L);
+        reader.setPageSize(2);
+        reader.afterPropertiesSet();
+    }
+
+    /**
+     * We expect to read page after page with the last line stop read and to keep the order of the keyset query,
+     * without any other query.
+     */
+    @Test
+    public void testRead() throws Exception {
+        LineStop last = lineStop(1L);
+
+        expect(lineStopDao.findArrivalDelaysAfter(eq(DATE), eq(STATION), eq(900000L), isNull(LineStop.class), eq(2)))
+                .andReturn(Arrays.asList(lineStop(2L), last));
+        expect(lineStopDao.findArrivalDelaysAfter(eq(DATE), eq(STATION), eq(900000L), same(last), eq(2)))
+                .andReturn(Collections.singletonList(lineStop(3L)));
+        replayAll();
+
+        reader.open(new ExecutionContext());
+
+        assertEquals(Long.valueOf(2L), reader.read().getId());
+        assertEquals(Long.valueOf(1L), reader.read().getId());
+        assertEquals(Long.valueOf(3L), reader.read().getId());
+        assertNull(reader.read());
+
+        reader.close();
+
+        verifyAll();
+    }
+
+    /**
+     * We expect to search departures when the sens is DEPARTURE and to stop reading when a page is empty.
+     */
+    @Test
+    public void testReadDeparture() throws Exception {
+        LineStop last = lineStop(2L);
+
+        expect(lineStopDao.findDepartureDelaysAfter(eq(DATE), eq(STATION), eq(900000L), isNull(LineStop.class), eq(2)))
+                .andReturn(Arrays.asList(lineStop(1L), last));
+        expect(lineStopDao.findDepartureDelaysAfter(eq(DATE), eq(STATION), eq(900000L), same(last), eq(2)))
+                .andReturn(Collections.emptyList());
+        replayAll();
+
+        reader.setSens(Sens.DEPARTURE);
+        reader.open(new ExecutionContext());
+
+        assertEquals(Long.valueOf(1L), reader.read().getId());
+        assertEquals(Long.valueOf(2L), reader.read().getId());
+        assertNull(reader.read());
+        assertNull(reader.read());
+
+        reader.close();
+
+        verifyAll();
+    }
+}
@@ -0,0 +1,112 @@
+package be.raildelays.batch.reader;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.resource.ByteRangeResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.util.StreamUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Almex
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class GtfsStopTimesPartitionerTest {
+
+    private static final String CONTENT = "trip_id,arrival_time,departure_time,stop_id,stop_sequence\r\n" +
+            "A,08:00:00,08:00:00,1,1\r\n" +
+            "A,08:10:00,08:11:00,2,2\r\n" +
+            "A,08:20:00,08:20:00,3,3\r\n" +
+            "B,09:00:00,09:00:00,1,1\r\n" +
+            "B,09:10:00,09:11:00,2,2\r\n" +
+            "B,09:20:00,09:21:00,3,3\r\n" +
+            "B,09:30:00,09:30:00,4,4\r\n" +
+            "C,10:00:00,10:00:00,1,1\r\n" +
+            "D,11:00:00,11:00:00,4,1\r\n" +
+            "D,11:10:00,11:10:00,3,2\r\n";
+
+    private ByteArrayResource resource;
+
+    private GtfsStopTimesPartitioner partitioner;
+
+    @Before
+    public void setUp() throws Exception {
+        resource = new ByteArrayResource(CONTENT.getBytes(StandardCharsets.UTF_8));
+        partitioner = new GtfsStopTimesPartitioner();
+        partitioner.setResource(resource);
+        partitioner.afterPropertiesSet();
+    }
+
+    /**
+     * We expect contiguous ranges covering the whole file where each trip belongs to one and only one range.
+     */
+    @Test
+    public void testPartition() throws Exception {
+        Map<String, ExecutionContext> partitions = partitioner.partition(3);
+        Map<String, String> tripIds = new HashMap<>();
+        StringBuilder content = new StringBuilder();
+        long expectedStart = 0;
+
+        Assert.assertEquals(3, partitions.size());
+        for (int i = 0; i < partitions.size(); i++) {
+            ExecutionContext executionContext = partitions.get("partition" + i);
+            long startOffset = executionContext.getLong(GtfsStopTimesPartitioner.START_OFFSET_KEY);
+            long endOffset = executionContext.getLong(GtfsStopTimesPartitioner.END_OFFSET_KEY);
+            String range = StreamUtils.copyToString(
+                    new ByteRangeResource(resource, startOffset, endOffset).getInputStream(), StandardCharsets.UTF_8);
+
+            Assert.assertEquals(expectedStart, startOffset);
+            Assert.assertTrue(range.endsWith("\n"));
+            for (String line : range.split("\r\n")) {
+                String tripId = line.substring(0, line.indexOf(','));
+                String previous = tripIds.put(tripId, "partition" + i);
+
+                Assert.assertTrue(previous == null || previous.equals("partition" + i));
+            }
+
+            content.append(range);
+            expectedStart = endOffset;
+        }
+
+        Assert.assertEquals(CONTENT, content.toString());
+    }
+
+    /**
+     * We expect no empty range when there are more partitions than trips.
+     */
+    @Test
+    public void testPartitionWithBigGridSize() throws Exception {
+        Map<String, ExecutionContext> partitions = partitioner.partition(50);
+
+        Assert.assertTrue(partitions.size() <= 5);
+        for (ExecutionContext executionContext : partitions.values()) {
+            Assert.assertTrue(executionContext.getLong(GtfsStopTimesPartitioner.START_OFFSET_KEY)
+                    < executionContext.getLong(GtfsStopTimesPartitioner.END_OFFSET_KEY));
+        }
+    }
+
+    /**
+     * We expect at least one partition even with an invalid grid size.
+     */
+    @Test
+    public void testPartitionWithoutGridSize() throws Exception {
+        Map<String, ExecutionContext> partitions = partitioner.partition(0);
+
+        Assert.assertEquals(1, partitions.size());
+        Assert.assertEquals(0, partitions.get("partition0").getLong(GtfsStopTimesPartitioner.START_OFFSET_KEY));
+        Assert.assertEquals(CONTENT.length(),
+                partitions.get("partition0").getLong(GtfsStopTimesPartitioner.END_OFFSET_KEY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAfterPropertiesSet() throws Exception {
+        new GtfsStopTimesPartitioner().afterPropertiesSet();
+    }
+}
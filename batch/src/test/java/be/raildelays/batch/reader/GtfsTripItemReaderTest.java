@@ -0,0 +1,156 @@
+package be.raildelays.batch.reader;
+
+import be.raildelays.batch.gtfs.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Almex
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class GtfsTripItemReaderTest {
+
+    private static final LocalDate DATE = LocalDate.of(2016, 7, 1);
+
+    private GtfsTripItemReader reader;
+
+    private GtfsFeed feed;
+
+    private static StopTime stopTime(String tripId, int stopSequence) {
+        StopTime result = new StopTime();
+
+        result.setTripId(tripId);
+        result.setStopSequence(stopSequence);
+
+        return result;
+    }
+
+    private static Trip trip(String tripId, String serviceId) {
+        Trip result = new Trip();
+
+        result.setTripId(tripId);
+        result.setRouteId("route" + tripId);
+        result.setServiceId(serviceId);
+
+        return result;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        CalendarDate calendarDate = new CalendarDate();
+
+        calendarDate.setServiceId("1");
+        calendarDate.setDate(DATE);
+        calendarDate.setExceptionType(CalendarDate.ExceptionType.ADDED);
+
+        reader = new GtfsTripItemReader();
+        reader.setDate(DATE);
+        feed = new IndexedGtfsFeed.Builder()
+                .calendarDates(new ListItemStreamReader<>(calendarDate))
+                .trips(new ListItemStreamReader<>(
+                        trip("A", "1"),
+                        trip("B", "2"),
+                        trip("C", "1")
+                ))
+                .build();
+        reader.setFeed(feed);
+    }
+
+    /**
+     * We expect one Trip per group of stop times, only for scheduled trips and with sorted stop times.
+     */
+    @Test
+    public void testRead() throws Exception {
+        reader.setStopTimesReader(new ListItemStreamReader<>(
+                stopTime("A", 2),
+                stopTime("A", 1),
+                stopTime("B", 1),
+                stopTime("B", 2),
+                stopTime("C", 1)
+        ));
+        reader.afterPropertiesSet();
+        reader.open(new ExecutionContext());
+
+        Trip first = reader.read();
+        Trip second = reader.read();
+
+        assertEquals("A", first.getTripId());
+        assertEquals(2, first.getStopTimes().size());
+        assertEquals(Integer.valueOf(1), first.getStopTimes().get(0).getStopSequence());
+        assertEquals("C", second.getTripId());
+        assertEquals(1, second.getStopTimes().size());
+        assertNull(reader.read());
+
+        reader.close();
+    }
+
+    /**
+     * We expect a failure if stop_times.txt is not grouped by trip_id.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testReadNotGrouped() throws Exception {
+        reader.setStopTimesReader(new ListItemStreamReader<>(
+                stopTime("A", 1),
+                stopTime("C", 1),
+                stopTime("A", 2)
+        ));
+        reader.open(new ExecutionContext());
+
+        assertNotNull(reader.read());
+        assertNotNull(reader.read());
+        reader.read();
+    }
+
+    /**
+     * We expect the Trip of the feed to stay untouched as it is shared by all partitions.
+     */
+    @Test
+    public void testReadDoesNotModifyFeed() throws Exception {
+        reader.setStopTimesReader(new ListItemStreamReader<>(stopTime("A", 1)));
+        reader.open(new ExecutionContext());
+
+        Trip actual = reader.read();
+
+        assertEquals(1, actual.getStopTimes().size());
+        assertNotSame(feed.getTrip("A"), actual);
+        assertTrue(feed.getTrip("A").getStopTimes().isEmpty());
+
+        reader.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAfterPropertiesSet() throws Exception {
+        new GtfsTripItemReader().afterPropertiesSet();
+    }
+
+    private static class ListItemStreamReader<T> extends ItemStreamSupport implements ItemStreamReader<T> {
+
+        private final List<T> items;
+        private Iterator<T> iterator;
+
+        @SafeVarargs
+        private ListItemStreamReader(T... items) {
+            this.items = Arrays.asList(items);
+        }
+
+        @Override
+        public void open(ExecutionContext executionContext) {
+            iterator = items.iterator();
+        }
+
+        @Override
+        public T read() {
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+    }
+}
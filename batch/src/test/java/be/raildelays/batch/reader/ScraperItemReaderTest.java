@@ -25,7 +25,9 @@
 package be.raildelays.batch.reader;
 
 import be.raildelays.httpclient.AbstractRequest;
+import be.raildelays.httpclient.DefaultStream;
 import be.raildelays.httpclient.Request;
+import be.raildelays.httpclient.RequestStreamer;
 import be.raildelays.httpclient.Stream;
 import org.junit.Assert;
 import org.junit.Before;
@@ -34,10 +36,16 @@ import org.junit.runner.RunWith;
 import org.junit.runners.BlockJUnit4ClassRunner;
 import org.springframework.retry.backoff.NoBackOffPolicy;
 import org.springframework.retry.policy.NeverRetryPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
 
 import java.io.BufferedReader;
 import java.io.CharArrayReader;
 import java.io.Reader;
+import java.io.StringReader;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 @RunWith(BlockJUnit4ClassRunner.class)
 public class ScraperItemReaderTest {
@@ -71,4 +79,98 @@ public class ScraperItemReaderTest {
     public void testRead() throws Exception {
         Assert.assertTrue(reader.read().allMatch(line -> "test".equals(line)));
     }
-}
\ No newline at end of file
+
+    private static AbstractRequest request(String trainId) {
+        AbstractRequest result = new AbstractRequest() {
+        };
+
+        result.setValue(trainId, "trainId", String.class);
+
+        return result;
+    }
+
+    /**
+     * We expect all requests to be read once, with at most 'maxInFlight' in progress, while skipping empty results
+     * and retrying failures.
+     */
+    @Test
+    public void testReadRequests() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        ScraperItemReader<String, AbstractRequest> reader = new ScraperItemReader<>();
+
+        reader.setParser(stream -> stream.getReader() != null ?
+                new BufferedReader(stream.getReader()).lines().collect(Collectors.joining()) : null);
+        reader.setStreamer(new RequestStreamer<AbstractRequest>() {
+            @Override
+            public Stream<AbstractRequest> stream(AbstractRequest request) {
+                String trainId = request.getValue("trainId");
+
+                if ("3".equals(trainId) && failures.getAndIncrement() == 0) {
+                    throw new IllegalStateException("Connection reset");
+                }
+
+                return new DefaultStream<>("5".equals(trainId) ? null : new StringReader(trainId), request);
+            }
+
+            @Override
+            public CompletableFuture<Stream<AbstractRequest>> streamAsync(AbstractRequest request) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+
+                return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        Thread.sleep(20);
+
+                        return stream(request);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+        });
+        reader.setRequests(Arrays.asList(request("1"), request("2"), request("3"), request("4"), request("5"),
+                request("6")));
+        reader.setMaxInFlight(2);
+        reader.setRetryPolicy(new SimpleRetryPolicy(2,
+                Collections.singletonMap(IllegalStateException.class, true)));
+        reader.setBackOffPolicy(new NoBackOffPolicy());
+        reader.afterPropertiesSet();
+
+        Set<String> actual = new HashSet<>();
+
+        for (String item = reader.read(); item != null; item = reader.read()) {
+            actual.add(item);
+        }
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("1", "2", "3", "4", "6")), actual);
+        Assert.assertTrue(maxInFlight.get() <= 2);
+        Assert.assertNull(reader.read());
+    }
+
+    /**
+     * We expect requests to be pulled from the 'requestSupplier' until it returns null.
+     */
+    @Test
+    public void testReadRequestSupplier() throws Exception {
+        Iterator<AbstractRequest> requests = Arrays.asList(request("1"), request("2"), request("3")).iterator();
+        ScraperItemReader<String, AbstractRequest> reader = new ScraperItemReader<>();
+
+        reader.setParser(stream -> new BufferedReader(stream.getReader()).lines().collect(Collectors.joining()));
+        reader.setStreamer(request -> new DefaultStream<>(new StringReader(request.getValue("trainId")), request));
+        reader.setRequestSupplier(() -> requests.hasNext() ? requests.next() : null);
+        reader.setRetryPolicy(new NeverRetryPolicy());
+        reader.setBackOffPolicy(new NoBackOffPolicy());
+        reader.afterPropertiesSet();
+
+        Set<String> actual = new HashSet<>();
+
+        for (String item = reader.read(); item != null; item = reader.read()) {
+            actual.add(item);
+        }
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("1", "2", "3")), actual);
+    }
+}
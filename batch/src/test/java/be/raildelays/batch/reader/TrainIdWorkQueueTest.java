@@ -0,0 +1,160 @@
+package be.raildelays.batch.reader;
+
+import be.raildelays.domain.Language;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Almex
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class TrainIdWorkQueueTest {
+
+    private TrainIdWorkQueue workQueue;
+
+    private Map<String, ExecutionContext> executionContexts;
+
+    @Before
+    public void setUp() throws Exception {
+        Map<String, List<String>> buckets = new HashMap<>();
+
+        buckets.put("partition0", Arrays.asList("1", "2"));
+        buckets.put("partition1", Arrays.asList("3", "4", "5", "6"));
+
+        workQueue = new TrainIdWorkQueue();
+        workQueue.assign(1L, buckets);
+        executionContexts = new HashMap<>();
+    }
+
+    private String poll(long jobExecutionId, String partitionName, List<String> bucket) {
+        return workQueue.poll(jobExecutionId, partitionName, bucket,
+                executionContexts.computeIfAbsent(partitionName, key -> new ExecutionContext()));
+    }
+
+    private String stolenTrainIds(String partitionName) {
+        return executionContexts.get(partitionName).getString(TrainIdWorkQueue.STOLEN_TRAIN_IDS_KEY, null);
+    }
+
+    /**
+     * We expect a partition to take its own trains first and then to steal from the tail of the longest queue.
+     */
+    @Test
+    public void testPoll() throws Exception {
+        Assert.assertEquals("1", poll(1L, "partition0", Collections.emptyList()));
+        Assert.assertEquals("2", poll(1L, "partition0", Collections.emptyList()));
+        Assert.assertEquals("6", poll(1L, "partition0", Collections.emptyList()));
+        Assert.assertEquals("3", poll(1L, "partition1", Collections.emptyList()));
+        Assert.assertEquals("5", poll(1L, "partition0", Collections.emptyList()));
+        Assert.assertEquals("4", poll(1L, "partition1", Collections.emptyList()));
+        Assert.assertNull(poll(1L, "partition1", Collections.emptyList()));
+    }
+
+    /**
+     * We expect a victim to record the trains stolen from it, even the ones stolen before its first poll, and a thief
+     * to record nothing.
+     */
+    @Test
+    public void testPollRecordsStolenTrains() throws Exception {
+        Assert.assertEquals("1", poll(1L, "partition0", Collections.emptyList()));
+        Assert.assertEquals("2", poll(1L, "partition0", Collections.emptyList()));
+        Assert.assertEquals("6", poll(1L, "partition0", Collections.emptyList()));
+        Assert.assertEquals("3", poll(1L, "partition1", Collections.emptyList()));
+        Assert.assertEquals("6", stolenTrainIds("partition1"));
+        Assert.assertEquals("5", poll(1L, "partition0", Collections.emptyList()));
+        Assert.assertEquals("6,5", stolenTrainIds("partition1"));
+        Assert.assertNull(stolenTrainIds("partition0"));
+    }
+
+    /**
+     * We expect a restarted partition to keep the trains stolen from it during a previous execution.
+     */
+    @Test
+    public void testPollKeepsPreviousStolenTrains() throws Exception {
+        executionContexts.put("partition0", new ExecutionContext());
+        executionContexts.get("partition0").putString(TrainIdWorkQueue.STOLEN_TRAIN_IDS_KEY, "9");
+
+        Assert.assertEquals("3", poll(2L, "partition0", Arrays.asList("3", "4")));
+        Assert.assertEquals("4", poll(2L, "partition1", Collections.emptyList()));
+        Assert.assertEquals("9,4", stolenTrainIds("partition0"));
+    }
+
+    /**
+     * We expect a partition which has not been assigned (i.e.: a restart) to register its own bucket.
+     */
+    @Test
+    public void testPollNotAssigned() throws Exception {
+        workQueue.assign(1L, Collections.emptyMap());
+
+        Assert.assertEquals("7", poll(1L, "partition2", Arrays.asList("7", "8")));
+        Assert.assertEquals("8", poll(1L, "partition3", Collections.emptyList()));
+        Assert.assertNull(poll(1L, "partition2", Arrays.asList("7", "8")));
+    }
+
+    /**
+     * We expect the queues of a previous job execution to be dropped when a partition of a restart polls: only the
+     * buckets persisted by the restarted partitions are processed.
+     */
+    @Test
+    public void testPollRestart() throws Exception {
+        Assert.assertEquals("1", poll(1L, "partition0", Collections.emptyList()));
+
+        Assert.assertEquals("3", poll(2L, "partition1", Arrays.asList("3", "4")));
+        Assert.assertEquals("4", poll(2L, "partition0", Collections.emptyList()));
+        Assert.assertNull(poll(2L, "partition0", Collections.emptyList()));
+    }
+
+    /**
+     * We expect a stolen train to be added to the 'trainIds' of the step execution context of the thief.
+     */
+    @Test
+    public void testSupplierRecordsStolenTrains() throws Exception {
+        StepExecution stepExecution = new StepExecution("retrieveDataFromAfasStep:partition0", new JobExecution(1L));
+        DelaysRequestSupplier supplier = new DelaysRequestSupplier();
+
+        stepExecution.getExecutionContext().putString("trainIds", "1,2");
+        supplier.setWorkQueue(workQueue);
+        supplier.setStepExecution(stepExecution);
+        supplier.setDate(LocalDate.of(2015, 4, 8));
+        supplier.setLanguage(Language.FR);
+        supplier.afterPropertiesSet();
+
+        Assert.assertEquals("1", supplier.get().getTrainId());
+        Assert.assertEquals("2", supplier.get().getTrainId());
+        Assert.assertEquals("1,2", stepExecution.getExecutionContext().getString("trainIds"));
+        Assert.assertEquals("6", supplier.get().getTrainId());
+        Assert.assertEquals("1,2,6", stepExecution.getExecutionContext().getString("trainIds"));
+    }
+
+    /**
+     * We expect a restarted supplier to remove the trains stolen from it from its bucket.
+     */
+    @Test
+    public void testSupplierSkipsStolenTrains() throws Exception {
+        StepExecution stepExecution = new StepExecution("retrieveDataFromAfasStep:partition1", new JobExecution(2L));
+        DelaysRequestSupplier supplier = new DelaysRequestSupplier();
+
+        stepExecution.getExecutionContext().putString("trainIds", "3,4,5,6");
+        stepExecution.getExecutionContext().putString(TrainIdWorkQueue.STOLEN_TRAIN_IDS_KEY, "6,5");
+        supplier.setWorkQueue(workQueue);
+        supplier.setStepExecution(stepExecution);
+        supplier.setDate(LocalDate.of(2015, 4, 8));
+        supplier.afterPropertiesSet();
+
+        Assert.assertEquals("3", supplier.get().getTrainId());
+        Assert.assertEquals("4", supplier.get().getTrainId());
+        Assert.assertNull(supplier.get());
+    }
+}
@@ -24,20 +24,34 @@
 
 package be.raildelays.batch.reader;
 
+import be.raildelays.httpclient.impl.DelaysRequestV2;
+import be.raildelays.repository.LineStopDao;
+import org.easymock.EasyMock;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.BlockJUnit4ClassRunner;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.partition.support.SimpleStepExecutionSplitter;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.MapJobRepositoryFactoryBean;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.UnexpectedInputException;
 import org.springframework.batch.item.support.AbstractItemStreamItemReader;
 import org.springframework.batch.item.support.ItemStreamItemReaderDelegator;
 import org.springframework.batch.item.support.ListItemReader;
 
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * @author Almex
@@ -62,27 +76,19 @@ public class TrainLineIdPartitionerTest {
     }
 
     /**
-     * We expect to have a 'trainId' key in the ExecutionContext of each partition and that each partition name
-     * follow the regex pattern 'partition[0-9]'.
+     * We expect to have 'gridSize' partitions with the names given by getPartitionNames(), that each partition name
+     * follow the regex pattern 'partition[0-9]' and that each train has its own partition with a 'trainId' key.
      */
     @Test
     public void testPartition() throws Exception {
         Map<String, ExecutionContext> partitions = partitioner.partition(10);
 
-        Assert.assertEquals(3, partitions.size());
-        Assert.assertTrue(partitions
-                        .entrySet()
-                        .stream()
-                        .allMatch(entry -> entry.getKey().matches("partition[0-9]") &&
-                                        TRAIN_IDS
-                                                .stream()
-                                                .anyMatch(trainId -> String
-                                                                .valueOf(entry.getValue().getInt("trainId"))
-                                                                .equals(trainId)
-                                                )
-
-                        )
-        );
+        Assert.assertEquals(new HashSet<>(partitioner.getPartitionNames(10)), partitions.keySet());
+        Assert.assertTrue(partitions.keySet().stream().allMatch(name -> name.matches("partition[0-9]")));
+        Assert.assertEquals(new HashSet<>(TRAIN_IDS), partitions.values().stream()
+                .filter(executionContext -> executionContext.containsKey("trainId"))
+                .map(executionContext -> String.valueOf(executionContext.getInt("trainId")))
+                .collect(Collectors.toSet()));
     }
 
     /**
@@ -102,4 +108,280 @@ public class TrainLineIdPartitionerTest {
         );
         partitioner.partition(10);
     }
-}
\ No newline at end of file
+
+    private void setTrainIds(String... trainIds) {
+        partitioner.setTrainListReader(new ItemStreamItemReaderDelegator<>(new ListItemReader<>(Arrays.asList(trainIds))));
+    }
+
+    private static List<String> trainIds(ExecutionContext executionContext) {
+        return Arrays.asList(executionContext.getString("trainIds").split(","));
+    }
+
+    /**
+     * We expect to have at most 'gridSize' partitions containing all trains in balanced buckets when there is no
+     * history.
+     */
+    @Test
+    public void testPartitionGridSize() throws Exception {
+        setTrainIds("1", "2", "3", "4", "5", "6", "7", "8", "9", "10");
+
+        Map<String, ExecutionContext> partitions = partitioner.partition(3);
+        List<Integer> sizes = partitions.values().stream()
+                .map(executionContext -> trainIds(executionContext).size())
+                .collect(Collectors.toList());
+
+        Assert.assertEquals(3, partitions.size());
+        Assert.assertEquals(10, sizes.stream().mapToInt(Integer::intValue).sum());
+        Assert.assertTrue(Collections.max(sizes) - Collections.min(sizes) <= 1);
+        Assert.assertEquals(10, partitions.values().stream()
+                .flatMap(executionContext -> trainIds(executionContext).stream())
+                .distinct()
+                .count());
+    }
+
+    /**
+     * We expect a train known to be slow to get its own bucket while the other trains share the other one. We also
+     * expect the buckets to be assigned to the work queue.
+     */
+    @Test
+    public void testPartitionWithHistory() throws Exception {
+        JobExplorer jobExplorer = EasyMock.createMock(JobExplorer.class);
+        JobInstance jobInstance = new JobInstance(1L, "mainJob");
+        JobExecution jobExecution = new JobExecution(jobInstance, 1L, null, null);
+        TrainIdWorkQueue workQueue = new TrainIdWorkQueue();
+
+        addStepExecution(jobExecution, "retrieveDataFromAfasStep:partition0", "414", 900);
+        addStepExecution(jobExecution, "retrieveDataFromAfasStep:partition1", "415,416,417", 300);
+        EasyMock.expect(jobExplorer.getJobInstances("mainJob", 0, 5))
+                .andReturn(Collections.singletonList(jobInstance));
+        EasyMock.expect(jobExplorer.getJobExecutions(jobInstance))
+                .andReturn(Collections.singletonList(jobExecution));
+        EasyMock.replay(jobExplorer);
+
+        setTrainIds("414", "415", "416", "417");
+        partitioner.setJobExplorer(jobExplorer);
+        partitioner.setJobName("mainJob");
+        partitioner.setStepName("retrieveDataFromAfasStep");
+        partitioner.setWorkQueue(workQueue);
+        partitioner.setStepExecution(new StepExecution("retrieveDataFromAfasStep", new JobExecution(1L)));
+        partitioner.afterPropertiesSet();
+
+        Map<String, ExecutionContext> partitions = partitioner.partition(2);
+        Set<List<String>> buckets = partitions.values().stream()
+                .map(executionContext -> trainIds(executionContext))
+                .collect(Collectors.toSet());
+
+        Assert.assertTrue(buckets.contains(Collections.singletonList("414")));
+        Assert.assertTrue(buckets.stream().anyMatch(bucket -> bucket.size() == 3));
+        Assert.assertNotNull(workQueue.poll(1L, "partition0", Collections.emptyList(), new ExecutionContext()));
+        EasyMock.verify(jobExplorer);
+    }
+
+    private static void addStepExecution(JobExecution jobExecution, String stepName, String trainIds, long duration) {
+        StepExecution stepExecution = jobExecution.createStepExecution(stepName);
+
+        stepExecution.getExecutionContext().putString("trainIds", trainIds);
+        stepExecution.setStatus(BatchStatus.COMPLETED);
+        stepExecution.setStartTime(new Date(0));
+        stepExecution.setEndTime(new Date(duration));
+    }
+
+    /**
+     * We expect trains already having a complete chain for the date to be skipped with only one query.
+     */
+    @Test
+    public void testPartitionSkipCompleted() throws Exception {
+        LineStopDao lineStopDao = EasyMock.createMock(LineStopDao.class);
+        LocalDate date = LocalDate.of(2015, 4, 8);
+
+        EasyMock.expect(lineStopDao.findCompletedRouteIds(EasyMock.eq(new HashSet<>(Arrays.asList(414L, 415L, 416L))),
+                EasyMock.eq(date), EasyMock.anyObject(LocalDateTime.class)))
+                .andReturn(Arrays.asList(414L, 416L));
+        EasyMock.replay(lineStopDao);
+
+        partitioner.setLineStopDao(lineStopDao);
+        partitioner.setDate(date);
+        partitioner.afterPropertiesSet();
+
+        Map<String, ExecutionContext> partitions = partitioner.partition(10);
+        List<ExecutionContext> nonEmpty = partitions.values().stream()
+                .filter(executionContext -> !executionContext.getString("trainIds").isEmpty())
+                .collect(Collectors.toList());
+
+        Assert.assertEquals(10, partitions.size());
+        Assert.assertEquals(1, nonEmpty.size());
+        Assert.assertEquals(415, nonEmpty.get(0).getInt("trainId"));
+        EasyMock.verify(lineStopDao);
+    }
+
+    /**
+     * We expect a restart to re-execute only the failed partition with the bucket persisted in its step execution
+     * context: the partitioner is not called again, even if the list of incomplete trains has changed, and the
+     * queues of the previous job execution are not used anymore.
+     */
+    @Test
+    public void testRestart() throws Exception {
+        MapJobRepositoryFactoryBean factory = new MapJobRepositoryFactoryBean();
+        JobParameters jobParameters = new JobParametersBuilder().addString("date", "2015-04-08").toJobParameters();
+        TrainIdWorkQueue workQueue = new TrainIdWorkQueue();
+        String failedTrainIds = null;
+
+        factory.afterPropertiesSet();
+
+        JobRepository jobRepository = factory.getObject();
+        SimpleStepExecutionSplitter splitter =
+                new SimpleStepExecutionSplitter(jobRepository, false, "retrieveDataFromAfasStep", partitioner);
+        JobExecution jobExecution = jobRepository.createJobExecution("mainJob", jobParameters);
+        StepExecution stepExecution = jobExecution.createStepExecution("retrieveDataFromAfasStep");
+
+        jobRepository.add(stepExecution);
+        setTrainIds("1", "2", "3", "4", "5", "6", "7", "8", "9", "10");
+        partitioner.setWorkQueue(workQueue);
+        partitioner.setStepExecution(stepExecution);
+        partitioner.afterPropertiesSet();
+
+        for (StepExecution partition : splitter.split(stepExecution, 10)) {
+            if (partition.getStepName().endsWith(":partition7")) {
+                failedTrainIds = partition.getExecutionContext().getString("trainIds");
+                partition.setStatus(BatchStatus.FAILED);
+            } else {
+                partition.setStatus(BatchStatus.COMPLETED);
+            }
+
+            partition.setEndTime(new Date());
+            jobRepository.update(partition);
+        }
+
+        stepExecution.setStatus(BatchStatus.FAILED);
+        stepExecution.setEndTime(new Date());
+        jobRepository.update(stepExecution);
+        jobExecution.setStatus(BatchStatus.FAILED);
+        jobExecution.setEndTime(new Date());
+        jobRepository.update(jobExecution);
+
+        JobExecution restartJobExecution = jobRepository.createJobExecution("mainJob", jobParameters);
+        StepExecution restartStepExecution = restartJobExecution.createStepExecution("retrieveDataFromAfasStep");
+
+        // As done by the SimpleStepHandler: the context of the previous execution contains the grid size
+        restartStepExecution.setExecutionContext(new ExecutionContext(jobRepository.getLastStepExecution(
+                jobExecution.getJobInstance(), "retrieveDataFromAfasStep").getExecutionContext()));
+        jobRepository.add(restartStepExecution);
+        partitioner.setTrainListReader(new ItemStreamItemReaderDelegator<>(new AbstractItemStreamItemReader<String>() {
+            @Override
+            public String read() throws Exception {
+                throw new IllegalStateException("The partitioner should not be called on restart");
+            }
+        }));
+        partitioner.setStepExecution(restartStepExecution);
+
+        Set<StepExecution> partitions = splitter.split(restartStepExecution, 10);
+
+        Assert.assertEquals(1, partitions.size());
+
+        StepExecution partition = partitions.iterator().next();
+        DelaysRequestSupplier supplier = new DelaysRequestSupplier();
+
+        Assert.assertEquals("retrieveDataFromAfasStep:partition7", partition.getStepName());
+        Assert.assertEquals(failedTrainIds, partition.getExecutionContext().getString("trainIds"));
+
+        supplier.setWorkQueue(workQueue);
+        supplier.setStepExecution(partition);
+        supplier.setDate(LocalDate.of(2015, 4, 8));
+        supplier.afterPropertiesSet();
+
+        Assert.assertEquals(failedTrainIds, supplier.get().getTrainId());
+        Assert.assertNull(supplier.get());
+    }
+
+    private static DelaysRequestSupplier supplier(TrainIdWorkQueue workQueue, StepExecution stepExecution)
+            throws Exception {
+        DelaysRequestSupplier result = new DelaysRequestSupplier();
+
+        result.setWorkQueue(workQueue);
+        result.setStepExecution(stepExecution);
+        result.setDate(LocalDate.of(2015, 4, 8));
+        result.afterPropertiesSet();
+
+        return result;
+    }
+
+    /**
+     * We expect a train stolen by a partition to be processed only once when both the thief and the victim fail and
+     * are restarted: it belongs to the persisted bucket of the thief only.
+     */
+    @Test
+    public void testRestartAfterSteal() throws Exception {
+        MapJobRepositoryFactoryBean factory = new MapJobRepositoryFactoryBean();
+        JobParameters jobParameters = new JobParametersBuilder().addString("date", "2015-04-08").toJobParameters();
+        TrainIdWorkQueue workQueue = new TrainIdWorkQueue();
+        List<String> restartedTrainIds = new ArrayList<>();
+
+        factory.afterPropertiesSet();
+
+        JobRepository jobRepository = factory.getObject();
+        SimpleStepExecutionSplitter splitter =
+                new SimpleStepExecutionSplitter(jobRepository, false, "retrieveDataFromAfasStep", partitioner);
+        JobExecution jobExecution = jobRepository.createJobExecution("mainJob", jobParameters);
+        StepExecution stepExecution = jobExecution.createStepExecution("retrieveDataFromAfasStep");
+
+        jobRepository.add(stepExecution);
+        setTrainIds("1", "2", "3", "4");
+        partitioner.setWorkQueue(workQueue);
+        partitioner.setStepExecution(stepExecution);
+        partitioner.afterPropertiesSet();
+
+        Map<String, StepExecution> partitions = splitter.split(stepExecution, 2).stream()
+                .collect(Collectors.toMap(StepExecution::getStepName, partition -> partition));
+        StepExecution victim = partitions.get("retrieveDataFromAfasStep:partition0");
+        StepExecution thief = partitions.get("retrieveDataFromAfasStep:partition1");
+        DelaysRequestSupplier victimSupplier = supplier(workQueue, victim);
+        DelaysRequestSupplier thiefSupplier = supplier(workQueue, thief);
+
+        // The victim is stuck on its first train while the thief processes its own ones and steals the last one
+        Assert.assertNotNull(victimSupplier.get());
+        Assert.assertNotNull(thiefSupplier.get());
+        Assert.assertNotNull(thiefSupplier.get());
+
+        String stolenTrainId = thiefSupplier.get().getTrainId();
+
+        Assert.assertEquals(stolenTrainId, victim.getExecutionContext().getString("stolenTrainIds"));
+        Assert.assertTrue(trainIds(thief.getExecutionContext()).contains(stolenTrainId));
+
+        for (StepExecution partition : partitions.values()) {
+            partition.setStatus(BatchStatus.FAILED);
+            partition.setEndTime(new Date());
+            jobRepository.update(partition);
+            jobRepository.updateExecutionContext(partition);
+        }
+
+        stepExecution.setStatus(BatchStatus.FAILED);
+        stepExecution.setEndTime(new Date());
+        jobRepository.update(stepExecution);
+        jobExecution.setStatus(BatchStatus.FAILED);
+        jobExecution.setEndTime(new Date());
+        jobRepository.update(jobExecution);
+
+        JobExecution restartJobExecution = jobRepository.createJobExecution("mainJob", jobParameters);
+        StepExecution restartStepExecution = restartJobExecution.createStepExecution("retrieveDataFromAfasStep");
+
+        restartStepExecution.setExecutionContext(new ExecutionContext(jobRepository.getLastStepExecution(
+                jobExecution.getJobInstance(), "retrieveDataFromAfasStep").getExecutionContext()));
+        jobRepository.add(restartStepExecution);
+        partitioner.setStepExecution(restartStepExecution);
+
+        Set<StepExecution> restarted = splitter.split(restartStepExecution, 2);
+
+        Assert.assertEquals(2, restarted.size());
+
+        for (StepExecution partition : restarted) {
+            DelaysRequestSupplier supplier = supplier(workQueue, partition);
+
+            for (DelaysRequestV2 request = supplier.get(); request != null; request = supplier.get()) {
+                restartedTrainIds.add(request.getTrainId());
+            }
+        }
+
+        Collections.sort(restartedTrainIds);
+        Assert.assertEquals(Arrays.asList("1", "2", "3", "4"), restartedTrainIds);
+    }
+}
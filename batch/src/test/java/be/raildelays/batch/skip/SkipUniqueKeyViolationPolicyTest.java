@@ -4,8 +4,10 @@ import org.hibernate.exception.ConstraintViolationException;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.dao.DuplicateKeyException;
 
 import javax.persistence.PersistenceException;
+import java.sql.BatchUpdateException;
 import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
 
@@ -63,6 +65,33 @@ public class SkipUniqueKeyViolationPolicyTest {
         );
     }
 
+    @Test
+    public void testSkipDuplicateKeyExceptionWithBatchUpdateException() throws Exception {
+        Assert.assertTrue(skipPolicy.shouldSkip(new DuplicateKeyException("foo",
+                        new BatchUpdateException("integrity constraint violation: unique constraint or index " +
+                                "violation; " + SkipUniqueKeyViolationPolicy.CONSTRAINT_NAMES[0] + " table: LINE_STOP",
+                                new int[0])
+                        ),
+                        0
+                )
+        );
+    }
+
+    @Test
+    public void testSkipBatchUpdateExceptionWithNextException() throws Exception {
+        BatchUpdateException exception = new BatchUpdateException(new int[0]);
+
+        exception.setNextException(
+                new SQLIntegrityConstraintViolationException(SkipUniqueKeyViolationPolicy.CONSTRAINT_NAMES[1]));
+
+        Assert.assertTrue(skipPolicy.shouldSkip(exception, 0));
+    }
+
+    @Test
+    public void testNotSkipBatchUpdateException() throws Exception {
+        Assert.assertFalse(skipPolicy.shouldSkip(new BatchUpdateException("foo", new int[0]), 0));
+    }
+
     @Test
     public void testNotSkipException() throws Exception {
         Assert.assertFalse(skipPolicy.shouldSkip(new Exception(), 0));
@@ -0,0 +1,172 @@
+package be.raildelays.batch.support;
+
+import be.raildelays.domain.entities.Station;
+import be.raildelays.domain.entities.TrainLine;
+import be.raildelays.repository.StationDao;
+import be.raildelays.repository.TrainLineDao;
+import org.easymock.EasyMockRule;
+import org.easymock.EasyMockSupport;
+import org.easymock.Mock;
+import org.easymock.MockType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Almex
+ */
+public class ReferenceDataCacheTest extends EasyMockSupport {
+
+    private ReferenceDataCache cache;
+
+    @Mock(type = MockType.STRICT)
+    private StationDao stationDao;
+    @Mock(type = MockType.STRICT)
+    private TrainLineDao trainLineDao;
+
+    @Rule
+    public EasyMockRule easyMockRule = new EasyMockRule(this);
+
+    private static Station station(String englishName, String dutchName, String frenchName, Long id) {
+        Station result = new Station(englishName, dutchName, frenchName);
+
+        ReflectionTestUtils.setField(result, "id", id);
+
+        return result;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new ReferenceDataCache();
+        cache.setStationDao(stationDao);
+        cache.setTrainLineDao(trainLineDao);
+        cache.afterPropertiesSet();
+    }
+
+    /**
+     * We expect to warm the cache only once and then to never call the loader for a known entity.
+     */
+    @Test
+    public void testWarmedCache() throws Exception {
+        Station liege = station("Liege-Guillemins", "Luik-Guillemins", "Liège-Guillemins", 1L);
+        TrainLine trainLine = new TrainLine.Builder(466L).id(2L).build(false);
+
+        expect(stationDao.findAll(anyObject(Pageable.class)))
+                .andReturn(new PageImpl<>(Collections.singletonList(liege)));
+        expect(trainLineDao.findAll(anyObject(Pageable.class)))
+                .andReturn(new PageImpl<>(Collections.singletonList(trainLine)));
+
+        replayAll();
+
+        cache.beforeStep(null);
+        cache.beforeStep(null);
+
+        assertSame(liege, cache.getStation(new Station("", "", " liège-guillemins "),
+                ReferenceDataCacheTest::unexpected));
+        assertSame(liege, cache.getStation(new Station("", "LUIK-GUILLEMINS", ""),
+                ReferenceDataCacheTest::unexpected));
+        assertSame(liege, cache.getStation(new Station("LIEGE-GUILLEMINS", "", "Liège"),
+                ReferenceDataCacheTest::unexpected));
+        assertSame(trainLine, cache.getTrainLine(new TrainLine.Builder(466L).build(false),
+                ReferenceDataCacheTest::unexpected));
+        verifyAll();
+    }
+
+    /**
+     * We expect the cache to be cleared once the last running step ends and to be warmed again by the next one.
+     */
+    @Test
+    public void testClearedAfterLastStep() throws Exception {
+        Station namur = station("Namur", "Namen", "Namur", 3L);
+        Station reloaded = station("Namur", "Namen", "Namur", 3L);
+
+        expect(stationDao.findAll(anyObject(Pageable.class)))
+                .andReturn(new PageImpl<>(Collections.singletonList(namur)));
+        expect(trainLineDao.findAll(anyObject(Pageable.class))).andReturn(new PageImpl<>(Collections.emptyList()));
+        expect(stationDao.findAll(anyObject(Pageable.class)))
+                .andReturn(new PageImpl<>(Collections.singletonList(reloaded)));
+        expect(trainLineDao.findAll(anyObject(Pageable.class))).andReturn(new PageImpl<>(Collections.emptyList()));
+
+        replayAll();
+
+        cache.beforeStep(null);
+        cache.beforeStep(null);
+        cache.afterStep(null);
+
+        assertSame(namur, cache.getStation(new Station("Namur"), ReferenceDataCacheTest::unexpected));
+
+        cache.afterStep(null);
+
+        assertNull(cache.getStation(new Station("Namur"), () -> null));
+
+        cache.beforeStep(null);
+
+        assertSame(reloaded, cache.getStation(new Station("Namur"), ReferenceDataCacheTest::unexpected));
+        verifyAll();
+    }
+
+    /**
+     * We expect a miss to call the loader and to cache its result only if it's persisted.
+     */
+    @Test
+    public void testInsertThrough() throws Exception {
+        Station namur = station("Namur", "Namen", "Namur", 3L);
+        Station transientNamur = new Station("Namur", "Namen", "Namur");
+
+        expect(stationDao.findAll(anyObject(Pageable.class))).andReturn(new PageImpl<>(Collections.emptyList()));
+        expect(trainLineDao.findAll(anyObject(Pageable.class))).andReturn(new PageImpl<>(Collections.emptyList()));
+
+        replayAll();
+
+        cache.beforeStep(null);
+
+        assertSame(transientNamur, cache.getStation(transientNamur, () -> transientNamur));
+        assertSame(namur, cache.getStation(transientNamur, () -> namur));
+        assertSame(namur, cache.getStation(transientNamur, ReferenceDataCacheTest::unexpected));
+        verifyAll();
+    }
+
+    /**
+     * We expect to not cache more than 'maxSize' entries.
+     */
+    @Test
+    public void testMaxSize() throws Exception {
+        cache.setMaxSize(1);
+
+        expect(stationDao.findAll(anyObject(Pageable.class))).andReturn(new PageImpl<>(Collections.emptyList()));
+        expect(trainLineDao.findAll(anyObject(Pageable.class))).andReturn(new PageImpl<>(Arrays.asList(
+                new TrainLine.Builder(1L).id(1L).build(false),
+                new TrainLine.Builder(2L).id(2L).build(false)
+        )));
+
+        replayAll();
+
+        cache.beforeStep(null);
+
+        TrainLine expected = new TrainLine.Builder(2L).id(3L).build(false);
+
+        assertNotNull(cache.getTrainLine(new TrainLine.Builder(1L).build(false), ReferenceDataCacheTest::unexpected));
+        assertSame(expected, cache.getTrainLine(new TrainLine.Builder(2L).build(false), () -> expected));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAfterPropertiesSet() throws Exception {
+        new ReferenceDataCache().afterPropertiesSet();
+    }
+
+    private static <T> T unexpected() {
+        throw new AssertionError("The loader should not be called");
+    }
+}
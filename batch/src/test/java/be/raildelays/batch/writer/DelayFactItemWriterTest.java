@@ -0,0 +1,145 @@
+package be.raildelays.batch.writer;
+
+import be.raildelays.delays.TimeDelay;
+import be.raildelays.domain.entities.LineStop;
+import be.raildelays.domain.entities.Station;
+import be.raildelays.domain.entities.TrainLine;
+import be.raildelays.repository.fact.DelayFact;
+import be.raildelays.repository.fact.DelayFactStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.springframework.batch.support.transaction.ResourcelessTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Almex
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class DelayFactItemWriterTest {
+
+    private static final LocalDate DATE = LocalDate.of(2016, 7, 1);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DelayFactStore store;
+    private DelayFactItemWriter writer;
+    private TrainLine trainLine;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new DelayFactStore(folder.getRoot());
+        trainLine = new TrainLine.Builder(466L).id(1L).build(false);
+
+        writer = new DelayFactItemWriter();
+        writer.setStore(store);
+        writer.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        store.close();
+    }
+
+    private static Station station(String name, Long id) {
+        Station result = new Station(name);
+
+        ReflectionTestUtils.setField(result, "id", id);
+
+        return result;
+    }
+
+    private LineStop chain() {
+        return new LineStop.Builder()
+                .trainLine(trainLine)
+                .station(station("Liège-Guillemins", 10L))
+                .date(DATE)
+                .departureTime(TimeDelay.of(LocalTime.of(8, 0), 60000L))
+                .addNext(new LineStop.Builder()
+                        .trainLine(trainLine)
+                        .station(station("Bruxelles-Central", 11L))
+                        .date(DATE)
+                        .arrivalTime(TimeDelay.of(LocalTime.of(9, 0), 300000L))
+                        .departureTime(TimeDelay.of(LocalTime.of(9, 1))))
+                .addNext(new LineStop.Builder()
+                        .trainLine(trainLine)
+                        .station(station("Leuven", 12L))
+                        .date(DATE)
+                        .arrivalTime(TimeDelay.of(LocalTime.of(10, 0)))
+                        .canceledArrival(true))
+                .build(false);
+    }
+
+    /**
+     * We expect one fact per stop of the chain: the departure time for the first stop, the arrival time for the
+     * others and nothing for a canceled arrival.
+     */
+    @Test
+    public void testWrite() throws Exception {
+        writer.write(Collections.singletonList(chain().getNext()));
+
+        assertEquals(Arrays.asList(
+                new DelayFact(DATE, 466, 10, 8 * 3600, 60),
+                new DelayFact(DATE, 466, 11, 9 * 3600, 300)
+        ), store.query().list());
+    }
+
+    /**
+     * We expect the facts to be appended only once the transaction is committed and never if it's rolled back.
+     */
+    @Test
+    public void testWriteInTransaction() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new ResourcelessTransactionManager());
+
+        transactionTemplate.execute(status -> {
+            write(chain());
+            status.setRollbackOnly();
+
+            return null;
+        });
+
+        assertTrue(store.query().list().isEmpty());
+
+        transactionTemplate.execute(status -> {
+            write(chain());
+            assertTrue(facts().isEmpty());
+
+            return null;
+        });
+
+        assertEquals(2, store.query().list().size());
+    }
+
+    private List<DelayFact> facts() {
+        try {
+            return store.query().list();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(LineStop item) {
+        try {
+            writer.write(Collections.singletonList(item));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
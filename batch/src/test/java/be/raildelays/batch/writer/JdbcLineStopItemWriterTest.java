@@ -0,0 +1,223 @@
+package be.raildelays.batch.writer;
+
+import be.raildelays.batch.skip.SkipUniqueKeyViolationPolicy;
+import be.raildelays.delays.TimeDelay;
+import be.raildelays.domain.entities.LineStop;
+import be.raildelays.domain.entities.Station;
+import be.raildelays.domain.entities.TrainLine;
+import org.easymock.EasyMock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Almex
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class JdbcLineStopItemWriterTest {
+
+    private static final LocalDate DATE = LocalDate.of(2016, 7, 1);
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private JdbcLineStopItemWriter writer;
+    private TrainLine trainLine;
+    private Station liege;
+    private Station brussels;
+    private Station leuven;
+
+    @Before
+    public void setUp() throws Exception {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.HSQL)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE SEQUENCE hibernate_sequence START WITH 100 INCREMENT BY 1");
+        jdbcTemplate.execute("CREATE TABLE LINE_STOP (ID BIGINT NOT NULL PRIMARY KEY, " +
+                "ARRIVAL_TIME_DELAY BIGINT, ARRIVAL_TIME_EXPECTED TIME, CANCELED_ARRIVAL BOOLEAN, " +
+                "CANCELED_DEPARTURE BOOLEAN, DATE DATE NOT NULL, DEPARTURE_TIME_DELAY BIGINT, " +
+                "DEPARTURE_TIME_EXPECTED TIME, NEXT_ID BIGINT, PREVIOUS_ID BIGINT, STATION_ID BIGINT NOT NULL, " +
+                "TRAIN_ID BIGINT NOT NULL, " +
+                "CONSTRAINT LineStopUniqueBusinessKeyConstraint UNIQUE (TRAIN_ID, DATE, STATION_ID), " +
+                "FOREIGN KEY (NEXT_ID) REFERENCES LINE_STOP, FOREIGN KEY (PREVIOUS_ID) REFERENCES LINE_STOP)");
+
+        trainLine = new TrainLine.Builder(466L).id(1L).build(false);
+        liege = station("Liège-Guillemins", 10L);
+        brussels = station("Bruxelles-Central", 11L);
+        leuven = station("Leuven", 12L);
+
+        writer = new JdbcLineStopItemWriter();
+        writer.setDataSource(database);
+        writer.setIdQuery(JdbcLineStopItemWriter.HSQLDB_ID_QUERY);
+        writer.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        database.shutdown();
+    }
+
+    private static Station station(String name, Long id) {
+        Station result = new Station(name);
+
+        ReflectionTestUtils.setField(result, "id", id);
+
+        return result;
+    }
+
+    private LineStop.Builder lineStop(Station station, int hour) {
+        return new LineStop.Builder()
+                .trainLine(trainLine)
+                .station(station)
+                .date(DATE)
+                .arrivalTime(TimeDelay.of(LocalTime.of(hour, 0), 60000L))
+                .departureTime(TimeDelay.of(LocalTime.of(hour, 1)));
+    }
+
+    private Map<String, Object> row(long id) {
+        return jdbcTemplate.queryForMap("SELECT * FROM LINE_STOP WHERE ID = ?", id);
+    }
+
+    /**
+     * We expect all new rows of a chain to be inserted with pre-allocated ids and linked together.
+     */
+    @Test
+    public void testWriteNewChain() throws Exception {
+        LineStop item = lineStop(liege, 8)
+                .addNext(lineStop(brussels, 9))
+                .addNext(lineStop(leuven, 10))
+                .build(false);
+
+        writer.write(Collections.singletonList(item));
+
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM LINE_STOP", Integer.class).intValue());
+        assertNull(row(100).get("PREVIOUS_ID"));
+        assertEquals(101L, row(100).get("NEXT_ID"));
+        assertEquals(100L, row(101).get("PREVIOUS_ID"));
+        assertEquals(102L, row(101).get("NEXT_ID"));
+        assertEquals(101L, row(102).get("PREVIOUS_ID"));
+        assertNull(row(102).get("NEXT_ID"));
+        assertEquals(12L, row(102).get("STATION_ID"));
+        assertEquals(1L, row(102).get("TRAIN_ID"));
+        assertEquals(60000L, row(100).get("ARRIVAL_TIME_DELAY"));
+        assertEquals(java.sql.Time.valueOf(LocalTime.of(8, 1)), row(100).get("DEPARTURE_TIME_EXPECTED"));
+        assertEquals(java.sql.Date.valueOf(DATE), row(100).get("DATE"));
+    }
+
+    /**
+     * We expect rows having an id to be updated and linked to the new ones.
+     */
+    @Test
+    public void testWriteMergedChain() throws Exception {
+        writer.write(Collections.singletonList(lineStop(liege, 8).build(false)));
+
+        LineStop item = lineStop(liege, 8)
+                .id(100L)
+                .arrivalTime(TimeDelay.of(LocalTime.of(8, 0), 120000L))
+                .addNext(lineStop(brussels, 9))
+                .build(false);
+
+        writer.write(Collections.singletonList(item));
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM LINE_STOP", Integer.class).intValue());
+        assertEquals(120000L, row(100).get("ARRIVAL_TIME_DELAY"));
+        assertEquals(101L, row(100).get("NEXT_ID"));
+        assertEquals(100L, row(101).get("PREVIOUS_ID"));
+    }
+
+    /**
+     * We expect a chain already in the database to fail on the unique business key with an exception that our
+     * {@link SkipUniqueKeyViolationPolicy} skips.
+     */
+    @Test
+    public void testWriteDuplicateChain() throws Exception {
+        writer.write(Collections.singletonList(lineStop(liege, 8).addNext(lineStop(brussels, 9)).build(false)));
+
+        try {
+            writer.write(Collections.singletonList(lineStop(liege, 8).addNext(lineStop(brussels, 9)).build(false)));
+            fail("The second chain should violate the unique business key");
+        } catch (DataIntegrityViolationException e) {
+            assertTrue(new SkipUniqueKeyViolationPolicy().shouldSkip(e, 0));
+        }
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM LINE_STOP", Integer.class).intValue());
+    }
+
+    /**
+     * We expect a failure if a Station has not been persisted.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testWriteTransientStation() throws Exception {
+        writer.write(Collections.singletonList(lineStop(new Station("Namur"), 8).build(false)));
+    }
+
+    /**
+     * We expect ids to come from the IdentifierGenerator of Hibernate when no idQuery is given.
+     */
+    @Test
+    public void testWriteWithIdentifierGenerator() throws Exception {
+        EntityManagerFactory entityManagerFactory = EasyMock.createNiceMock(EntityManagerFactory.class);
+        EntityManager entityManager = EasyMock.createNiceMock(EntityManager.class);
+        SessionImplementor session = EasyMock.createNiceMock(SessionImplementor.class);
+        SessionFactoryImplementor sessionFactory = EasyMock.createNiceMock(SessionFactoryImplementor.class);
+        AtomicLong sequence = new AtomicLong(500L);
+        LineStop item = lineStop(liege, 8)
+                .addNext(lineStop(brussels, 9))
+                .build(false);
+
+        EasyMock.expect(entityManager.unwrap(SessionImplementor.class)).andReturn(session).anyTimes();
+        EasyMock.expect(session.getFactory()).andReturn(sessionFactory).anyTimes();
+        EasyMock.expect(sessionFactory.getIdentifierGenerator(LineStop.class.getName()))
+                .andReturn((IdentifierGenerator) (implementor, object) -> sequence.getAndIncrement())
+                .anyTimes();
+        EasyMock.replay(entityManagerFactory, entityManager, session, sessionFactory);
+
+        writer = new JdbcLineStopItemWriter();
+        writer.setDataSource(database);
+        writer.setEntityManagerFactory(entityManagerFactory);
+        writer.afterPropertiesSet();
+
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            writer.write(Collections.singletonList(item));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+        }
+
+        assertEquals(501L, row(500).get("NEXT_ID"));
+        assertEquals(500L, row(501).get("PREVIOUS_ID"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAfterPropertiesSet() throws Exception {
+        new JdbcLineStopItemWriter().afterPropertiesSet();
+    }
+}
@@ -0,0 +1,104 @@
+package org.springframework.batch.concurrent.scheduling;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.MDC;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author Almex
+ */
+public class MdcTaskDecoratorTest {
+
+    private SimpleAsyncTaskExecutor taskExecutor;
+
+    @Before
+    public void setUp() throws Exception {
+        LightweightThreadFactory threadFactory = new LightweightThreadFactory();
+
+        threadFactory.setThreadNamePrefix("test-");
+        taskExecutor = new SimpleAsyncTaskExecutor(threadFactory);
+        taskExecutor.setTaskDecorator(new MdcTaskDecorator());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        MDC.clear();
+    }
+
+    /**
+     * We expect that the MDC is copied from the main-thread to the sub-thread.
+     */
+    @Test(timeout = 1000)
+    public void testExecute() throws Exception {
+        AtomicReference<String> actual = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        MDC.put("foo", "bar");
+
+        taskExecutor.execute(() -> {
+            actual.set(MDC.get("foo"));
+            done.countDown();
+        });
+
+        done.await();
+
+        Assert.assertEquals("bar", actual.get());
+    }
+
+    /**
+     * We expect to run more tasks at the same time than a thread pool would, but not more than the concurrency limit.
+     */
+    @Test(timeout = 5000)
+    public void testConcurrencyLimit() throws Exception {
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(32);
+
+        taskExecutor.setConcurrencyLimit(16);
+
+        for (int i = 0; i < 32; i++) {
+            taskExecutor.execute(() -> {
+                maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+
+                try {
+                    TimeUnit.MILLISECONDS.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    concurrent.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+
+        Assert.assertTrue(maxConcurrent.get() > 4);
+        Assert.assertTrue(maxConcurrent.get() <= 16);
+    }
+
+    /**
+     * We expect platform threads to be daemon threads when virtual threads are disabled.
+     */
+    @Test
+    public void testPlatformThread() throws Exception {
+        LightweightThreadFactory threadFactory = new LightweightThreadFactory();
+
+        threadFactory.setVirtualThreads(false);
+        threadFactory.setThreadNamePrefix("test-");
+
+        Thread thread = threadFactory.newThread(() -> {
+        });
+
+        Assert.assertTrue(thread.isDaemon());
+        Assert.assertEquals("test-1", thread.getName());
+    }
+}
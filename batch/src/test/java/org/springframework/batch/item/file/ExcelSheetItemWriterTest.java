@@ -117,6 +117,30 @@ public class ExcelSheetItemWriterTest extends AbstractFileTest {
         Assert.assertEquals(117248, getExcelFiles()[0].length());
     }
 
+    /**
+     * We expect in write-behind mode to write the file only on update() and to not leave any temporary file.
+     */
+    @Test
+    public void testWriteBehind() throws Exception {
+        writer.setWriteBehind(true);
+        writer.open(executionContext);
+        writer.write(items.subList(0, 2));
+
+        Assert.assertEquals(1, getExcelFiles().length);
+        Assert.assertEquals(0, getExcelFiles()[0].length());
+
+        writer.update(executionContext);
+
+        Assert.assertEquals(117248, getExcelFiles()[0].length());
+
+        writer.write(items.subList(2, 40));
+        writer.close();
+
+        Assert.assertEquals(1, getExcelFiles().length);
+        Assert.assertEquals(124416, getExcelFiles()[0].length());
+        Assert.assertEquals(0, new File(CURRENT_PATH).listFiles((dir, name) -> name.endsWith(".tmp")).length);
+    }
+
     /**
      * We expect a normal execution with no template and in '.xls' format.
      */
@@ -9,14 +9,17 @@ import org.junit.runner.RunWith;
 import org.junit.runners.BlockJUnit4ClassRunner;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.IndexedItem;
+import org.springframework.batch.item.ItemStreamException;
 import org.springframework.batch.item.file.FlatFileItemReader;
 import org.springframework.batch.item.file.FlatFileItemWriter;
 import org.springframework.batch.item.file.Indexed;
+import org.springframework.batch.item.file.ResourceAwareItemWriterItemStream;
 import org.springframework.batch.item.file.mapping.PassThroughLineMapper;
 import org.springframework.batch.item.file.transform.PassThroughLineAggregator;
 import org.springframework.batch.test.MetaDataInstanceFactory;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 
 import java.io.File;
 import java.io.IOException;
@@ -26,8 +29,10 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 /**
@@ -179,4 +184,73 @@ public class SortedItemStreamWriterTest extends AbstractFileTest {
         assertFile();
         assertSequence("abcdefgh");
     }
-}
\ No newline at end of file
+
+    /**
+     * We expect in incremental mode to read the resource only once, to write only the items from the first changed
+     * index and to keep the writer opened until the next update.
+     */
+    @Test
+    public void testWriteIncremental() throws Exception {
+        ExecutionContext executionContext = MetaDataInstanceFactory.createStepExecution().getExecutionContext();
+        SortedItemStreamWriter<Indexed> sortedItemStreamWriter = new SortedItemStreamWriter<>();
+        List<String> written = new ArrayList<>();
+        AtomicInteger readerOpened = new AtomicInteger();
+        AtomicInteger writerClosed = new AtomicInteger();
+        FlatFileItemReader<Indexed> reader = new FlatFileItemReader<Indexed>() {
+            @Override
+            public void open(ExecutionContext executionContext) throws ItemStreamException {
+                readerOpened.incrementAndGet();
+                super.open(executionContext);
+            }
+        };
+        class RecordingItemWriter extends AbstractItemStreamItemWriter<Indexed>
+                implements ResourceAwareItemWriterItemStream<Indexed> {
+            @Override
+            public void write(List<? extends Indexed> items) throws Exception {
+                items.forEach(item -> written.add(item.toString()));
+            }
+
+            @Override
+            public void close() {
+                writerClosed.incrementAndGet();
+            }
+
+            @Override
+            public void setResource(Resource resource) {
+            }
+        }
+
+        reader.setName("test");
+        reader.setLineMapper((line, lineNumber) -> new Indexed(line));
+        reader.afterPropertiesSet();
+
+        sortedItemStreamWriter.setResource(new FileSystemResource(FILE_DESTINATION_PATH));
+        sortedItemStreamWriter.setReader(reader);
+        sortedItemStreamWriter.setWriter(new RecordingItemWriter());
+        sortedItemStreamWriter.setIncremental(true);
+        sortedItemStreamWriter.afterPropertiesSet();
+        sortedItemStreamWriter.open(executionContext);
+
+        sortedItemStreamWriter.write(items);
+        sortedItemStreamWriter.update(executionContext);
+
+        Assert.assertEquals(Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h"), written);
+        Assert.assertEquals(1, writerClosed.get());
+
+        written.clear();
+        sortedItemStreamWriter.write(Collections.singletonList(new Indexed("ee")));
+
+        Assert.assertEquals(Arrays.asList("ee", "f", "g", "h"), written);
+
+        written.clear();
+        sortedItemStreamWriter.write(Collections.singletonList(new Indexed("bb", 1L))); // 'bb' replace 'b'
+
+        Assert.assertEquals(Arrays.asList("bb", "c", "d", "e", "ee", "f", "g", "h"), written);
+        Assert.assertEquals(1, writerClosed.get());
+
+        sortedItemStreamWriter.close();
+
+        Assert.assertEquals(2, writerClosed.get());
+        Assert.assertEquals(1, readerOpened.get());
+    }
+}
@@ -16,6 +16,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.BlockJUnit4ClassRunner;
 import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.file.ExcelSheetItemReader;
 import org.springframework.batch.item.file.ExcelSheetItemWriter;
 import org.springframework.batch.item.resource.ResourceLocatorItemStreamWriter;
@@ -24,9 +25,11 @@ import org.springframework.batch.test.MetaDataInstanceFactory;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.FileSystemResource;
 
+import java.io.File;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 @RunWith(BlockJUnit4ClassRunner.class)
@@ -38,12 +41,17 @@ public class SortedItemStreamWriterTest2 extends AbstractFileTest {
 
     private ResourceLocatorItemStreamWriter<SortedItemStreamWriter<BatchExcelRow>, BatchExcelRow> writer;
 
+    private SortedItemStreamWriter<BatchExcelRow> delegate;
+
+    private ExcelSheetItemWriter<ExcelRow> excelWriter;
+
     @Before
     public void setUp() throws Exception {
-        SortedItemStreamWriter<BatchExcelRow> delegate = new SortedItemStreamWriter<>();
+        delegate = new SortedItemStreamWriter<>();
         ExcelSheetItemReader<BatchExcelRow> reader = new ExcelSheetItemReader<>();
         FileSystemResource resource = new FileSystemResource(CURRENT_PATH + "retard_sncb.xls");
         ExcelSheetItemWriter<ExcelRow> writer = new ExcelSheetItemWriter<>();
+        excelWriter = writer;
         MultiExcelFileToWriteLocator resourceLocator = new MultiExcelFileToWriteLocator();
         SimpleResourceItemSearch<BatchExcelRow> itemSearch = new SimpleResourceItemSearch<>();
 
@@ -143,4 +151,65 @@ public class SortedItemStreamWriterTest2 extends AbstractFileTest {
 
         assertFile();
     }
-}
\ No newline at end of file
+
+    /**
+     * We expect the incremental mode to produce the same rows as a complete rewrite on each chunk.
+     */
+    @Test
+    public void testWriteIncremental() throws Exception {
+        writeChunks();
+
+        List<String> expected = readRows();
+
+        cleanUp();
+        copyFile();
+        items.forEach(item -> item.setIndex(null));
+        items.get(2).setIndex(1L);
+        delegate.setIncremental(true);
+        excelWriter.setWriteBehind(true);
+
+        writeChunks();
+
+        Assert.assertEquals(expected, readRows());
+    }
+
+    private void writeChunks() throws Exception {
+        ExecutionContext executionContext = MetaDataInstanceFactory.createStepExecution().getExecutionContext();
+
+        writer.open(executionContext);
+        writer.write(items.subList(0, 1));
+        writer.update(executionContext);
+        writer.write(items.subList(1, 3));
+        writer.update(executionContext);
+        writer.close();
+    }
+
+    private List<String> readRows() throws Exception {
+        List<String> result = new ArrayList<>();
+        File[] files = getExcelFiles();
+
+        Arrays.sort(files);
+
+        for (File file : files) {
+            ExcelSheetItemReader<BatchExcelRow> reader = new ExcelSheetItemReader<>();
+
+            reader.setName("check");
+            reader.setRowsToSkip(21);
+            reader.setMaxItemCount(40);
+            reader.setRowMapper(new BatchExcelRowMapper());
+            reader.setResource(new FileSystemResource(file));
+            reader.afterPropertiesSet();
+            reader.open(new ExecutionContext());
+
+            try {
+                for (BatchExcelRow row = reader.read(); row != null; row = reader.read()) {
+                    result.add(file.getName() + ":" + row.getIndex() + ":" + row.getDate() + ":" + row.getDelay());
+                }
+            } finally {
+                reader.close();
+            }
+        }
+
+        return result;
+    }
+}
@@ -38,6 +38,10 @@ import java.time.format.DateTimeFormatter;
  * Line stop determine a stop for trainLine line.
  * To help building this entity and as the only way to do it
  * we embedded a {@link Builder}.
+ * <p>
+ * Searches of delays filter on the date and the station and then on the delay or on the canceled flag, each of
+ * these paths is covered by an index.
+ * </p>
  *
  * @author Almex
  * @see AbstractEntity
@@ -49,7 +53,15 @@ import java.time.format.DateTimeFormatter;
         name = "LINE_STOP",
         uniqueConstraints = @UniqueConstraint(
                 columnNames = {"TRAIN_ID", "DATE", "STATION_ID"}, name = "LineStopUniqueBusinessKeyConstraint"
-        )
+        ),
+        indexes = {
+                @Index(name = "LineStopArrivalDelayIndex",
+                        columnList = "DATE, STATION_ID, CANCELED_ARRIVAL, ARRIVAL_TIME_DELAY"),
+                @Index(name = "LineStopDepartureDelayIndex",
+                        columnList = "DATE, STATION_ID, CANCELED_DEPARTURE, DEPARTURE_TIME_DELAY"),
+                @Index(name = "LineStopArrivalTimeIndex",
+                        columnList = "DATE, STATION_ID, ARRIVAL_TIME_EXPECTED")
+        }
 )
 public class LineStop extends AbstractEntity implements Comparable<LineStop> {
 
@@ -324,23 +336,27 @@ public class LineStop extends AbstractEntity implements Comparable<LineStop> {
         }
 
         private static void head(Builder node, Builder head) {
-            if (node.next == null) {
-                node.next = head;
-                head.previous = node;
-                head.next = null;
-            } else {
-                head(node.next, head);
+            Builder last = node;
+
+            while (last.next != null) {
+                last = last.next;
             }
+
+            last.next = head;
+            head.previous = last;
+            head.next = null;
         }
 
         private static void tail(Builder node, Builder tail) {
-            if (node.previous == null) {
-                node.previous = tail;
-                tail.next = node;
-                tail.previous = null;
-            } else {
-                tail(node.previous, tail);
+            Builder first = node;
+
+            while (first.previous != null) {
+                first = first.previous;
             }
+
+            first.previous = tail;
+            tail.next = first;
+            tail.previous = null;
         }
 
         public Builder id(Long id) {
@@ -26,26 +26,49 @@ package be.raildelays.domain.entities;
 
 import be.raildelays.domain.Language;
 
-import javax.persistence.Entity;
-import javax.persistence.Inheritance;
-import javax.persistence.InheritanceType;
-import javax.persistence.Table;
+import javax.persistence.*;
 
 /**
  * Immutable entity defining a trainLine station.
  * <p>
  * Uniqueness of a Station is done on the English name.
+ * <p>
+ * Each name is also stored in upper case within a column generated by the database (e.g.: {@code ENGLISH_NAME_UPPER})
+ * and indexed. A case-insensitive search can then compare this column with an upper case value instead of wrapping
+ * the name column into {@code UPPER()} which would prevent the use of any index.
+ * <p>
+ * Stations are reference data rarely modified, so they are {@link Cacheable} in the second-level cache.
  *
  * @author Almex
  * @see AbstractEntity
  */
 @Entity
-@Table(name = "STATION")
+@Cacheable
+@Table(
+        name = "STATION",
+        indexes = {
+                @Index(name = "StationEnglishNameUpperIndex", columnList = "ENGLISH_NAME_UPPER"),
+                @Index(name = "StationFrenchNameUpperIndex", columnList = "FRENCH_NAME_UPPER"),
+                @Index(name = "StationDutchNameUpperIndex", columnList = "DUTCH_NAME_UPPER")
+        }
+)
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 public class Station extends I18nEntity {
 
     private static final long serialVersionUID = -3436298381031779337L;
 
+    @Column(name = "ENGLISH_NAME_UPPER", insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(255) GENERATED ALWAYS AS (UPPER(ENGLISH_NAME))")
+    private String englishNameUpper;
+
+    @Column(name = "FRENCH_NAME_UPPER", insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(255) GENERATED ALWAYS AS (UPPER(FRENCH_NAME))")
+    private String frenchNameUpper;
+
+    @Column(name = "DUTCH_NAME_UPPER", insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(255) GENERATED ALWAYS AS (UPPER(DUTCH_NAME))")
+    private String dutchNameUpper;
+
     protected Station() {
         super();
     }
@@ -35,12 +35,15 @@ import static java.util.Comparator.*;
  * To help building this entity and as the only way to do it
  * we embedded a {@link Builder}.
  * The unity of this entity is based on its {@link #routeId}
+ * <p>
+ * Train lines are reference data rarely modified, so they are {@link Cacheable} in the second-level cache.
  *
  * @author Almex
  * @implNote this class apply the Value Object pattern and is therefor immutable
  * @see AbstractEntity
  */
 @Entity
+@Cacheable
 @Table(
         name = "TRAIN_LINE",
         uniqueConstraints = @UniqueConstraint(columnNames = {"ROUTE_ID"}, name = "TrainLineUniqueBusinessKeyConstraint")
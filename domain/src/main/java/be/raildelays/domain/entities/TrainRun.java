@@ -0,0 +1,284 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.domain.entities;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import javax.persistence.*;
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Train run determine all the stops of a train line for one day.
+ * To help building this entity and as the only way to do it
+ * we embedded a {@link Builder}.
+ * <p>
+ * Contrary to the chain of {@link LineStop} where each stop eagerly loads its {@code previous} and {@code next}
+ * stops, the stops of a train run are stored in one ordered list lazily fetched and sorted by their
+ * {@link TrainRunStop#getSequence() sequence} column. This class has the shape of the {@code Line} interface of our
+ * API: {@link #getStops()} returns the {@link TrainRunStop} which have the shape of a {@code Stop}.
+ * </p>
+ *
+ * @author Almex
+ * @see AbstractEntity
+ * @see TrainRunStop
+ * @since 2.0
+ * @implNote this class apply the Value Object pattern and is therefor immutable
+ */
+@Entity
+@Table(
+        name = "TRAIN_RUN",
+        uniqueConstraints = @UniqueConstraint(
+                columnNames = {"TRAIN_ID", "DATE"}, name = "TrainRunUniqueBusinessKeyConstraint"
+        )
+)
+public class TrainRun extends AbstractEntity {
+
+    private static final long serialVersionUID = -2786405262632530176L;
+
+    @ManyToOne(cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.EAGER)
+    @JoinColumn(name = "TRAIN_ID")
+    @NotNull
+    protected TrainLine trainLine;
+
+    @Column(name = "DATE")
+    @NotNull
+    protected LocalDate date;
+
+    @OneToMany(mappedBy = "trainRun", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
+    @OrderBy("sequence ASC")
+    @Valid
+    protected List<TrainRunStop> stops = new ArrayList<>();
+
+    /**
+     * Default constructor used by Hibernate.
+     */
+    protected TrainRun() {
+        // Noop
+    }
+
+    private TrainRun(Builder builder) {
+        this.id = builder.id;
+        this.trainLine = builder.trainLine;
+        this.date = builder.date;
+        this.stops = new ArrayList<>(builder.stops.size());
+
+        for (TrainRunStop.Builder stop : builder.stops) {
+            this.stops.add(stop.build(this, this.stops.size()));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("TrainRun: ") //
+                .append("{ ") //
+                .append("id: ").append(id).append(", ")  //
+                .append("date: ")
+                .append(date != null ? date.format(DateTimeFormatter.ISO_DATE) : "null")
+                .append(", ") //
+                .append("trainLine: {").append(trainLine) //
+                .append("} ") //
+                .append("} ").toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        boolean result = false;
+
+        if (obj == this) {
+            result = true;
+        } else {
+            if (obj instanceof TrainRun) {
+                TrainRun trainRun = (TrainRun) obj;
+
+                result = new EqualsBuilder() //
+                        .append(trainLine, trainRun.trainLine) //
+                        .append(date, trainRun.date) //
+                        .isEquals();
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(13, 7) //
+                .append(trainLine) //
+                .append(date) //
+                .toHashCode();
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    public TrainLine getTrainLine() {
+        return trainLine;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * @return an unmodifiable view of the stops of this train run ordered by their sequence, it's loaded on first
+     * access
+     */
+    public List<TrainRunStop> getStops() {
+        return Collections.unmodifiableList(stops);
+    }
+
+    /**
+     * @return the first stop of this train run or {@code null} if it has no stop
+     */
+    public TrainRunStop getFirstStop() {
+        return stops.isEmpty() ? null : stops.get(0);
+    }
+
+    /**
+     * @return the last stop of this train run or {@code null} if it has no stop
+     */
+    public TrainRunStop getLastStop() {
+        return stops.isEmpty() ? null : stops.get(stops.size() - 1);
+    }
+
+    /**
+     * This builder is the only way to get a new instance of a {@link TrainRun}.
+     * <p>
+     * Stops are appended in constant time: building a train run of {@code n} stops is done in {@code O(n)}.
+     * </p>
+     *
+     * @author Almex
+     * @since 2.0
+     */
+    public static class Builder {
+
+        private Long id;
+        private TrainLine trainLine;
+        private LocalDate date;
+        private List<TrainRunStop.Builder> stops = new ArrayList<>();
+
+        /**
+         * Default constructor.
+         */
+        public Builder() {
+            // Noop
+        }
+
+        /**
+         * Copy constructor.
+         *
+         * @param trainRun to copy
+         */
+        public Builder(TrainRun trainRun) {
+            if (trainRun != null) {
+                this.id = trainRun.id;
+                this.trainLine = trainRun.trainLine;
+                this.date = trainRun.date;
+
+                for (TrainRunStop stop : trainRun.stops) {
+                    this.stops.add(new TrainRunStop.Builder(stop));
+                }
+            }
+        }
+
+        /**
+         * Conversion constructor: copy a whole chain of {@link LineStop} from its first stop to its last one
+         * whatever the given stop is within this chain.
+         *
+         * @param lineStop one stop of the chain to copy
+         */
+        public Builder(LineStop lineStop) {
+            if (lineStop != null) {
+                LineStop first = lineStop;
+
+                while (first.getPrevious() != null) {
+                    first = first.getPrevious();
+                }
+
+                this.trainLine = first.getTrainLine();
+                this.date = first.getDate();
+
+                for (LineStop stop = first; stop != null; stop = stop.getNext()) {
+                    this.stops.add(new TrainRunStop.Builder(stop));
+                }
+            }
+        }
+
+        public Builder id(Long id) {
+            this.id = id;
+
+            return this;
+        }
+
+        public Builder trainLine(TrainLine trainLine) {
+            this.trainLine = trainLine;
+
+            return this;
+        }
+
+        public Builder date(LocalDate date) {
+            this.date = date;
+
+            return this;
+        }
+
+        /**
+         * Append a stop at the end of this train run.
+         *
+         * @param stop builder of the stop to append
+         * @return this builder
+         */
+        public Builder addStop(TrainRunStop.Builder stop) {
+            if (stop != null) {
+                stops.add(stop);
+            }
+
+            return this;
+        }
+
+        public TrainRun build() {
+            return build(true);
+        }
+
+        public TrainRun build(final boolean validate) {
+            TrainRun result = new TrainRun(this);
+
+            if (validate) {
+                validate(result);
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.domain.entities;
+
+import be.raildelays.delays.TimeDelay;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * Train run stop determine one stop of a {@link TrainRun}.
+ * The only way to create it is to add its {@link Builder} to a {@link TrainRun.Builder}.
+ * <p>
+ * Its position within the train run is persisted in its {@code STOP_SEQUENCE} column. Then navigating to the previous
+ * or to the next stop is done in constant time from the list of stops of its train run without any extra link.
+ * </p>
+ *
+ * @author Almex
+ * @see AbstractEntity
+ * @see TrainRun
+ * @since 2.0
+ * @implNote this class apply the Value Object pattern and is therefor immutable
+ */
+@Entity
+@Table(
+        name = "TRAIN_RUN_STOP",
+        uniqueConstraints = @UniqueConstraint(
+                columnNames = {"TRAIN_RUN_ID", "STOP_SEQUENCE"}, name = "TrainRunStopUniqueBusinessKeyConstraint"
+        )
+)
+public class TrainRunStop extends AbstractEntity {
+
+    private static final long serialVersionUID = 4563425612863107045L;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "TRAIN_RUN_ID")
+    @NotNull
+    protected TrainRun trainRun;
+
+    @Column(name = "STOP_SEQUENCE")
+    protected int sequence;
+
+    @ManyToOne(cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.EAGER)
+    @JoinColumn(name = "STATION_ID")
+    @NotNull
+    protected Station station;
+
+    @Column(name = "CANCELED_DEPARTURE")
+    protected boolean canceledDeparture;
+
+    @Column(name = "CANCELED_ARRIVAL")
+    protected boolean canceledArrival;
+
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(column = @Column(name = "ARRIVAL_TIME_EXPECTED"), name = "expectedTime"),
+            @AttributeOverride(column = @Column(name = "ARRIVAL_TIME_DELAY"), name = "delay")})
+    protected TimeDelay arrivalTime;
+
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(column = @Column(name = "DEPARTURE_TIME_EXPECTED"), name = "expectedTime"),
+            @AttributeOverride(column = @Column(name = "DEPARTURE_TIME_DELAY"), name = "delay")})
+    protected TimeDelay departureTime;
+
+    /**
+     * Default constructor used by Hibernate.
+     */
+    protected TrainRunStop() {
+        // Noop
+    }
+
+    private TrainRunStop(Builder builder, TrainRun trainRun, int sequence) {
+        this.id = builder.id;
+        this.trainRun = trainRun;
+        this.sequence = sequence;
+        this.station = builder.station;
+        this.arrivalTime = builder.arrivalTime;
+        this.departureTime = builder.departureTime;
+        this.canceledDeparture = builder.canceledDeparture;
+        this.canceledArrival = builder.canceledArrival;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("TrainRunStop: ") //
+                .append("{ ") //
+                .append("id: ").append(id).append(", ")  //
+                .append("sequence: ").append(sequence).append(", ")  //
+                .append("station: {").append(station) //
+                .append("}, ") //
+                .append("arrivalTime: {").append(arrivalTime).append("}, ") //
+                .append("departureTime: {").append(departureTime).append("}, ") //
+                .append("canceled: ").append(isCanceled()).append(" ") //
+                .append("} ").toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        boolean result = false;
+
+        if (obj == this) {
+            result = true;
+        } else {
+            if (obj instanceof TrainRunStop) {
+                TrainRunStop stop = (TrainRunStop) obj;
+
+                result = new EqualsBuilder() //
+                        .append(trainRun, stop.trainRun) //
+                        .append(sequence, stop.sequence) //
+                        .append(station, stop.station) //
+                        .isEquals();
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 5) //
+                .append(sequence) //
+                .append(station) //
+                .toHashCode();
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    public TrainRun getTrainRun() {
+        return trainRun;
+    }
+
+    /**
+     * @return the position of this stop within its train run starting at 0
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    public Station getStation() {
+        return station;
+    }
+
+    public TimeDelay getArrivalTime() {
+        return arrivalTime;
+    }
+
+    public TimeDelay getDepartureTime() {
+        return departureTime;
+    }
+
+    public boolean isCanceled() {
+        return canceledDeparture || canceledArrival;
+    }
+
+    public boolean isCanceledDeparture() {
+        return canceledDeparture;
+    }
+
+    public boolean isCanceledArrival() {
+        return canceledArrival;
+    }
+
+    /**
+     * @return the previous stop of the same train run or {@code null} if this one is the first
+     */
+    public TrainRunStop getPrevious() {
+        return sequence > 0 ? trainRun.getStops().get(sequence - 1) : null;
+    }
+
+    /**
+     * @return the next stop of the same train run or {@code null} if this one is the last
+     */
+    public TrainRunStop getNext() {
+        List<TrainRunStop> stops = trainRun.getStops();
+
+        return sequence + 1 < stops.size() ? stops.get(sequence + 1) : null;
+    }
+
+    /**
+     * This builder is used to append a stop to a {@link TrainRun.Builder} which set its train run and its sequence.
+     *
+     * @author Almex
+     * @since 2.0
+     */
+    public static class Builder {
+
+        private Long id;
+        private Station station;
+        private boolean canceledDeparture;
+        private boolean canceledArrival;
+        private TimeDelay arrivalTime;
+        private TimeDelay departureTime;
+
+        /**
+         * Default constructor.
+         */
+        public Builder() {
+            // Noop
+        }
+
+        /**
+         * Copy constructor.
+         *
+         * @param stop to copy
+         */
+        public Builder(TrainRunStop stop) {
+            if (stop != null) {
+                this.id = stop.id;
+                this.station = stop.station;
+                this.arrivalTime = stop.arrivalTime;
+                this.departureTime = stop.departureTime;
+                this.canceledDeparture = stop.canceledDeparture;
+                this.canceledArrival = stop.canceledArrival;
+            }
+        }
+
+        /**
+         * Conversion constructor, the links of the {@link LineStop} are not copied.
+         *
+         * @param lineStop to convert
+         */
+        public Builder(LineStop lineStop) {
+            if (lineStop != null) {
+                this.station = lineStop.getStation();
+                this.arrivalTime = lineStop.getArrivalTime();
+                this.departureTime = lineStop.getDepartureTime();
+                this.canceledDeparture = lineStop.isCanceledDeparture();
+                this.canceledArrival = lineStop.isCanceledArrival();
+            }
+        }
+
+        public Builder id(Long id) {
+            this.id = id;
+
+            return this;
+        }
+
+        public Builder station(Station station) {
+            this.station = station;
+
+            return this;
+        }
+
+        public Builder canceledDeparture(boolean canceled) {
+            this.canceledDeparture = canceled;
+
+            return this;
+        }
+
+        public Builder canceledArrival(boolean canceled) {
+            this.canceledArrival = canceled;
+
+            return this;
+        }
+
+        public Builder arrivalTime(TimeDelay arrivalTime) {
+            this.arrivalTime = arrivalTime;
+
+            return this;
+        }
+
+        public Builder departureTime(TimeDelay departureTime) {
+            this.departureTime = departureTime;
+
+            return this;
+        }
+
+        TrainRunStop build(TrainRun trainRun, int sequence) {
+            return new TrainRunStop(this, trainRun, sequence);
+        }
+    }
+}
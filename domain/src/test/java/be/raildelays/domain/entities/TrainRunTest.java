@@ -0,0 +1,142 @@
+package be.raildelays.domain.entities;
+
+import be.raildelays.delays.TimeDelay;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@RunWith(BlockJUnit4ClassRunner.class)
+public class TrainRunTest {
+
+    private static final LocalDate DATE = LocalDate.of(2016, 7, 1);
+
+    private static TrainRunStop.Builder stop(String name) {
+        return new TrainRunStop.Builder()
+                .station(new Station(name))
+                .arrivalTime(TimeDelay.of(LocalTime.NOON))
+                .departureTime(TimeDelay.of(LocalTime.NOON));
+    }
+
+    /**
+     * We expect a validation error without train line nor date.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildValidation() {
+        new TrainRun.Builder().build();
+    }
+
+    /**
+     * We expect a validation error when a stop has no station.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildStopValidation() {
+        new TrainRun.Builder()
+                .trainLine(new TrainLine.Builder(466L).build())
+                .date(DATE)
+                .addStop(new TrainRunStop.Builder())
+                .build();
+    }
+
+    /**
+     * We expect stops to be ordered as they were added, with their sequence and their links to each other.
+     */
+    @Test
+    public void testAddStop() {
+        TrainRun trainRun = new TrainRun.Builder()
+                .trainLine(new TrainLine.Builder(466L).build())
+                .date(DATE)
+                .addStop(stop("A"))
+                .addStop(stop("B"))
+                .addStop(stop("C"))
+                .build();
+        List<TrainRunStop> stops = trainRun.getStops();
+
+        Assert.assertEquals(3, stops.size());
+        Assert.assertEquals(new Station("A"), trainRun.getFirstStop().getStation());
+        Assert.assertEquals(new Station("C"), trainRun.getLastStop().getStation());
+
+        for (int i = 0; i < stops.size(); i++) {
+            Assert.assertEquals(i, stops.get(i).getSequence());
+            Assert.assertSame(trainRun, stops.get(i).getTrainRun());
+        }
+
+        Assert.assertNull(stops.get(0).getPrevious());
+        Assert.assertSame(stops.get(1), stops.get(0).getNext());
+        Assert.assertSame(stops.get(1), stops.get(2).getPrevious());
+        Assert.assertNull(stops.get(2).getNext());
+    }
+
+    /**
+     * We expect to build a long train run in linear time (more than 10000 stops would never end with a quadratic
+     * algorithm).
+     */
+    @Test(timeout = 5000)
+    public void testAddManyStops() {
+        TrainRun.Builder builder = new TrainRun.Builder()
+                .trainLine(new TrainLine.Builder(466L).build())
+                .date(DATE);
+
+        for (int i = 0; i < 100000; i++) {
+            builder.addStop(stop("S" + i));
+        }
+
+        TrainRun trainRun = builder.build(false);
+
+        Assert.assertEquals(100000, trainRun.getStops().size());
+        Assert.assertEquals(99999, trainRun.getLastStop().getSequence());
+    }
+
+    /**
+     * We expect to convert a whole chain of line stops even from a stop in the middle of the chain.
+     */
+    @Test
+    public void testBuildFromLineStop() {
+        TrainLine trainLine = new TrainLine.Builder(466L).build();
+        LineStop lineStop = new LineStop.Builder()
+                .trainLine(trainLine)
+                .station(new Station("A"))
+                .date(DATE)
+                .addNext(new LineStop.Builder()
+                        .trainLine(trainLine)
+                        .station(new Station("B"))
+                        .date(DATE)
+                        .canceledArrival(true))
+                .addNext(new LineStop.Builder()
+                        .trainLine(trainLine)
+                        .station(new Station("C"))
+                        .date(DATE))
+                .build();
+
+        TrainRun trainRun = new TrainRun.Builder(lineStop.getNext()).build();
+
+        Assert.assertEquals(trainLine, trainRun.getTrainLine());
+        Assert.assertEquals(DATE, trainRun.getDate());
+        Assert.assertEquals(3, trainRun.getStops().size());
+        Assert.assertEquals(new Station("A"), trainRun.getFirstStop().getStation());
+        Assert.assertTrue(trainRun.getStops().get(1).isCanceledArrival());
+        Assert.assertEquals(new Station("C"), trainRun.getLastStop().getStation());
+    }
+
+    /**
+     * We expect a copy to be equal to the original.
+     */
+    @Test
+    public void testCopy() {
+        TrainRun expected = new TrainRun.Builder()
+                .trainLine(new TrainLine.Builder(466L).build())
+                .date(DATE)
+                .addStop(stop("A"))
+                .addStop(stop("B"))
+                .build();
+        TrainRun actual = new TrainRun.Builder(expected).build();
+
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(expected.hashCode(), actual.hashCode());
+        Assert.assertEquals(expected.getStops().size(), actual.getStops().size());
+    }
+}
@@ -0,0 +1,162 @@
+package be.raildelays.repository.fact;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.IntSummaryStatistics;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Almex
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class DelayFactStoreTest {
+
+    private static final LocalDate JUNE = LocalDate.of(2016, 6, 30);
+
+    private static final LocalDate JULY = LocalDate.of(2016, 7, 1);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DelayFactStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new DelayFactStore(folder.getRoot());
+        store.append(Arrays.asList(
+                new DelayFact(JUNE, 466, 1, 8 * 3600, 60),
+                new DelayFact(JUNE, 466, 2, 9 * 3600, 300),
+                new DelayFact(JULY, 466, 1, 8 * 3600, 0),
+                new DelayFact(JULY, 477, 2, 10 * 3600, 900)
+        ));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        store.close();
+    }
+
+    /**
+     * We expect one partition per month and a range scan to only return the facts of its days.
+     */
+    @Test
+    public void testQuery() throws Exception {
+        assertEquals(Arrays.asList(YearMonth.of(2016, 6), YearMonth.of(2016, 7)), Arrays.asList(
+                store.getMonths().toArray()));
+        assertTrue(Files.isRegularFile(folder.getRoot().toPath().resolve("2016-07").resolve("delay.int")));
+        assertEquals(Arrays.asList(
+                new DelayFact(JULY, 466, 1, 8 * 3600, 0),
+                new DelayFact(JULY, 477, 2, 10 * 3600, 900)
+        ), store.query().from(JULY).to(JULY).list());
+        assertEquals(Arrays.asList(
+                new DelayFact(JUNE, 466, 2, 9 * 3600, 300),
+                new DelayFact(JULY, 477, 2, 10 * 3600, 900)
+        ), store.query().station(2).list());
+        assertEquals(2, store.query().to(JUNE).train(466).list().size());
+    }
+
+    /**
+     * We expect aggregations on delays grouped by station, train and day.
+     */
+    @Test
+    public void testSummarize() throws Exception {
+        IntSummaryStatistics statistics = store.query().summarize();
+        Map<Integer, IntSummaryStatistics> byStation = store.query().summarizeByStation();
+
+        assertEquals(4, statistics.getCount());
+        assertEquals(900, statistics.getMax());
+        assertEquals(30.0, byStation.get(1).getAverage(), 0.0);
+        assertEquals(600.0, byStation.get(2).getAverage(), 0.0);
+        assertEquals(3, store.query().summarizeByTrain().get(466).getCount());
+        assertEquals(300, store.query().summarizeByDate().get(JUNE).getMax());
+    }
+
+    /**
+     * We expect a fact appended twice for the same day, train and station to overwrite the previous one, even after
+     * re-opening the store.
+     */
+    @Test
+    public void testAppendSameStop() throws Exception {
+        store.close();
+        store = new DelayFactStore(folder.getRoot());
+        store.append(Arrays.asList(
+                new DelayFact(JULY, 466, 1, 8 * 3600, 120),
+                new DelayFact(JULY, 515, 3, 11 * 3600, 0),
+                new DelayFact(JULY, 515, 3, 11 * 3600, 240)
+        ));
+
+        assertEquals(3, store.count(YearMonth.from(JULY)));
+        assertEquals(Arrays.asList(
+                new DelayFact(JULY, 466, 1, 8 * 3600, 120),
+                new DelayFact(JULY, 477, 2, 10 * 3600, 900),
+                new DelayFact(JULY, 515, 3, 11 * 3600, 240)
+        ), store.query().from(JULY).list());
+    }
+
+    /**
+     * We expect an append failing on a column file to not index its rows: appending the same facts again must write
+     * them as new rows.
+     */
+    @Test
+    public void testAppendFailure() throws Exception {
+        FileChannel[] channels = (FileChannel[]) ReflectionTestUtils.getField(
+                store.getPartition(YearMonth.from(JULY)), "channels");
+        FileChannel date = channels[0];
+        FileChannel closed = FileChannel.open(folder.getRoot().toPath().resolve("2016-07").resolve("date.int"));
+        DelayFact fact = new DelayFact(JULY, 515, 3, 11 * 3600, 240);
+
+        closed.close();
+        channels[0] = closed;
+
+        try {
+            store.append(Arrays.asList(fact, new DelayFact(JULY, 466, 1, 8 * 3600, 60)));
+            fail("The date column should not be writable");
+        } catch (IOException e) {
+            assertEquals(2, store.count(YearMonth.from(JULY)));
+        } finally {
+            channels[0] = date;
+        }
+
+        store.append(Arrays.asList(fact));
+
+        assertEquals(3, store.count(YearMonth.from(JULY)));
+        assertEquals(Arrays.asList(
+                new DelayFact(JULY, 466, 1, 8 * 3600, 60),
+                new DelayFact(JULY, 477, 2, 10 * 3600, 900),
+                fact
+        ), store.query().from(JULY).list());
+    }
+
+    /**
+     * We expect a row partially written to be truncated when the partition is re-opened.
+     */
+    @Test
+    public void testPartialRow() throws Exception {
+        store.close();
+        Files.write(folder.getRoot().toPath().resolve("2016-07").resolve("delay.int"), ByteBuffer.allocate(4).array(),
+                StandardOpenOption.APPEND);
+        store = new DelayFactStore(folder.getRoot());
+
+        assertEquals(2, store.count(YearMonth.from(JULY)));
+        assertEquals(8, Files.size(folder.getRoot().toPath().resolve("2016-07").resolve("delay.int")));
+    }
+}
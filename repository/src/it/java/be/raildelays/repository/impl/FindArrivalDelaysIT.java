@@ -96,6 +96,58 @@ public class FindArrivalDelaysIT extends AbstractIT {
         );
     }
 
+    /**
+     * We expect the keyset pagination to return, page after page and ordered by expected arrival time, the same line
+     * stops as the whole search with their previous stop.
+     */
+    @Test
+    public void testFindArrivalDelaysAfter() throws ParseException {
+        Station station = new Station("Bruxelles-Central");
+        LocalDate date = LocalDate.parse("2000-01-01");
+        List<LineStop> firstPage = lineStopDao.findArrivalDelaysAfter(date, station, Delays.toMillis(15L), null, 2);
+        List<LineStop> lastPage = lineStopDao.findArrivalDelaysAfter(date, station, Delays.toMillis(15L),
+                firstPage.get(firstPage.size() - 1), 2);
+        List<LineStop> lineStops = new ArrayList<>(firstPage);
+
+        lineStops.addAll(lastPage);
+
+        Assert.assertEquals(2, firstPage.size());
+        Assert.assertEquals(1, lastPage.size());
+        Assert.assertEquals(Arrays.asList(466L, 515L, 477L), lineStops.stream()
+                .map(lineStop -> lineStop.getTrainLine().getRouteId())
+                .collect(Collectors.toList()));
+        Assert.assertEquals(Long.valueOf(4661L), firstPage.get(0).getPrevious().getId());
+        Assert.assertEquals(extractIds(lineStopDao.findArrivalDelays(date, station, Delays.toMillis(15L))),
+                extractIds(lineStops));
+    }
+
+    /**
+     * We expect the keyset pagination to return, page after page, the same line stops as the whole search.
+     */
+    @Test
+    public void testFindDepartureDelaysAfter() throws ParseException {
+        Station station = new Station("Bruxelles-Central");
+        LocalDate date = LocalDate.parse("2000-01-01");
+        List<LineStop> firstPage = lineStopDao.findDepartureDelaysAfter(date, station, Delays.toMillis(15L), null, 2);
+        List<LineStop> lastPage = lineStopDao.findDepartureDelaysAfter(date, station, Delays.toMillis(15L),
+                firstPage.get(firstPage.size() - 1), 2);
+        List<LineStop> lineStops = new ArrayList<>(firstPage);
+
+        lineStops.addAll(lastPage);
+
+        Assert.assertEquals(2, firstPage.size());
+        Assert.assertEquals(1, lastPage.size());
+        Assert.assertEquals(extractIds(lineStopDao.findDepartureDelays(date, station, Delays.toMillis(15L))),
+                extractIds(lineStops));
+    }
+
+    private static List<Long> extractIds(List<LineStop> lineStops) {
+        return lineStops.stream()
+                .map(LineStop::getId)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
     private static List<Long> extractTrainIds(List<LineStop> lineStops) {
         return lineStops.stream()
                 .map(LineStop::getTrainLine)
@@ -10,10 +10,17 @@ import org.junit.Test;
 
 import javax.annotation.Resource;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class LineStopJpaDaoIT extends AbstractIT {
 
@@ -92,4 +99,83 @@ public class LineStopJpaDaoIT extends AbstractIT {
 
         assertEquals("You should have the same result as expectedTime.", expectedLineStop, lineStop);
     }
+
+    @Test
+    public void testFindByTrainLinesAndDates() {
+        LocalDate date = LocalDate.now();
+        TrainLine trainLine = trainLineDao.saveAndFlush(new TrainLine.Builder(466L).build());
+        LineStop expectedLineStop = lineStopDao.save(new LineStop.Builder().date(date)
+                .trainLine(trainLine)
+                .station(new Station("Liège-Guillemins"))
+                .arrivalTime(TimeDelay.now())
+                .departureTime(TimeDelay.now())
+                .canceledArrival(false)
+                .canceledDeparture(false)
+                .addNext(new LineStop.Builder().date(date)
+                        .trainLine(trainLine)
+                        .station(new Station("Bruxelles-Central"))
+                        .arrivalTime(TimeDelay.now())
+                        .departureTime(TimeDelay.now()))
+                .build());
+        List<LineStop> lineStops = lineStopDao.findByTrainLinesAndDates(
+                Arrays.asList(new TrainLine.Builder(466L).build(), new TrainLine.Builder(467L).build()),
+                Collections.singleton(date)
+        );
+
+        assertEquals("You should have a certain number of results.", 2, lineStops.size());
+        assertTrue("You should have the same result as expectedTime.", lineStops.contains(expectedLineStop));
+        assertTrue("You should have no result for another day.", lineStopDao.findByTrainLinesAndDates(
+                Collections.singleton(trainLine), Collections.singleton(date.minusDays(1))).isEmpty());
+    }
+
+    /**
+     * Save a chain of two stops whose terminus has the given times.
+     */
+    private void saveChain(long routeId, LocalDate date, TimeDelay arrivalTime, TimeDelay departureTime) {
+        TrainLine trainLine = trainLineDao.saveAndFlush(new TrainLine.Builder(routeId).build());
+
+        lineStopDao.save(new LineStop.Builder().date(date)
+                .trainLine(trainLine)
+                .station(new Station("Liège-Guillemins"))
+                .departureTime(TimeDelay.of(LocalTime.of(9, 0)))
+                .addNext(new LineStop.Builder().date(date)
+                        .trainLine(trainLine)
+                        .station(new Station("Bruxelles-Central"))
+                        .arrivalTime(arrivalTime)
+                        .departureTime(departureTime))
+                .build());
+    }
+
+    @Test
+    public void testFindCompletedRouteIds() {
+        LocalDate date = LocalDate.of(2015, 4, 8);
+        LocalDateTime now = date.atTime(12, 0);
+        TrainLine incomplete = trainLineDao.saveAndFlush(new TrainLine.Builder(467L).build());
+
+        // Retrieved from the website, arrived at 10:05
+        saveChain(466L, date, TimeDelay.of(LocalTime.of(10, 0), 5L, ChronoUnit.MINUTES), null);
+        lineStopDao.save(new LineStop.Builder().date(date)
+                .trainLine(incomplete)
+                .station(new Station("Liège-Guillemins"))
+                .departureTime(TimeDelay.of(LocalTime.of(9, 0)))
+                .build());
+        // Only loaded from the GTFS schedule: the terminus has a departure time
+        saveChain(468L, date, TimeDelay.of(LocalTime.of(10, 0)), TimeDelay.of(LocalTime.of(10, 0)));
+        // Retrieved from the website before the train has arrived
+        saveChain(469L, date, TimeDelay.of(LocalTime.of(17, 0)), null);
+        // Retrieved from the website, expected before now but arriving after now with its delay
+        saveChain(470L, date, TimeDelay.of(LocalTime.of(11, 50), 30L, ChronoUnit.MINUTES), null);
+
+        List<Long> routeIds = Arrays.asList(466L, 467L, 468L, 469L, 470L, 471L);
+
+        assertEquals("Only the train line having arrived at its terminus should be complete.",
+                Collections.singletonList(466L), lineStopDao.findCompletedRouteIds(routeIds, date, now));
+        assertEquals("Once the day is over, only the GTFS schedule should remain incomplete.",
+                new HashSet<>(Arrays.asList(466L, 469L, 470L)),
+                new HashSet<>(lineStopDao.findCompletedRouteIds(routeIds, date, now.plusDays(1))));
+        assertTrue("You should have no result for another day.",
+                lineStopDao.findCompletedRouteIds(routeIds, date.minusDays(1), now).isEmpty());
+        assertTrue("You should have no result for a day in the future.",
+                lineStopDao.findCompletedRouteIds(routeIds, date, now.minusDays(1)).isEmpty());
+    }
 }
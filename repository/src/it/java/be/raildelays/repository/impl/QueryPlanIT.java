@@ -0,0 +1,118 @@
+package be.raildelays.repository.impl;
+
+import be.raildelays.domain.Language;
+import be.raildelays.domain.entities.Station;
+import be.raildelays.repository.LineStopDaoCustom;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.annotation.Resource;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Check with HSQLDB {@code EXPLAIN PLAN} that the hot queries of {@link LineStopDaoCustomJpa} use our indexes. The
+ * SQL statement is the one generated by Hibernate, captured with a
+ * {@link org.hibernate.resource.jdbc.spi.StatementInspector}: a change of the specifications is then checked too.
+ *
+ * @author Almex
+ */
+public class QueryPlanIT extends AbstractIT {
+
+    private static final LocalDate DATE = LocalDate.of(2000, 1, 1);
+
+    @Resource
+    private DataSource dataSource;
+
+    @Resource(name = "raildelaysEntityManagerFactory")
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Run a search with its own session recording the SQL sent by Hibernate.
+     *
+     * @return the first SQL statement of the search, i.e.: the one searching line stops
+     */
+    private String capture(Consumer<LineStopDaoCustom> search) {
+        List<String> statements = new ArrayList<>();
+        LineStopDaoCustomJpa lineStopDao = new LineStopDaoCustomJpa();
+        Session session = entityManagerFactory.unwrap(SessionFactory.class)
+                .withOptions()
+                .statementInspector(sql -> {
+                    statements.add(sql);
+
+                    return sql;
+                })
+                .openSession();
+
+        try {
+            ReflectionTestUtils.setField(lineStopDao, "entityManager", session);
+            search.accept(lineStopDao);
+        } finally {
+            session.close();
+        }
+
+        assertFalse("Hibernate should have sent at least one statement.", statements.isEmpty());
+
+        return statements.get(0);
+    }
+
+    private String explain(String sql) {
+        String result = String.join("\n",
+                new JdbcTemplate(dataSource).queryForList("EXPLAIN PLAN FOR " + sql, String.class));
+
+        return result.toUpperCase(Locale.ENGLISH);
+    }
+
+    /**
+     * We expect the search of arrival delays to use the index on the upper case name of a station and then the
+     * one on the date and the station of a line stop without any full scan.
+     */
+    @Test
+    public void testFindArrivalDelays() {
+        String plan = explain(capture(lineStopDao ->
+                lineStopDao.findArrivalDelays(DATE, new Station("Bruxelles-Central"), 900000)));
+
+        assertTrue(plan.contains("INDEX=STATIONENGLISHNAMEUPPERINDEX"));
+        assertTrue(plan.contains("INDEX=LINESTOP"));
+        assertFalse(plan.contains("ACCESS=FULL SCAN"));
+    }
+
+    /**
+     * We expect the search of departure delays to use the index on the upper case name of a station and then the
+     * one on the date and the station of a line stop without any full scan.
+     */
+    @Test
+    public void testFindDepartureDelays() {
+        String plan = explain(capture(lineStopDao ->
+                lineStopDao.findDepartureDelays(DATE, new Station("Bruxelles-Central", Language.FR), 900000)));
+
+        assertTrue(plan.contains("INDEX=STATIONFRENCHNAMEUPPERINDEX"));
+        assertTrue(plan.contains("INDEX=LINESTOP"));
+        assertFalse(plan.contains("ACCESS=FULL SCAN"));
+    }
+
+    /**
+     * We expect the search of the next expected arrival time to use the index on the upper case name of a station and
+     * then the one on the date and the station of a line stop without any full scan.
+     */
+    @Test
+    public void testFindNextExpectedArrivalTime() {
+        String plan = explain(capture(lineStopDao ->
+                lineStopDao.findNextExpectedArrivalTime(new Station("Bruxelles-Central"), DATE.atTime(12, 0))));
+
+        assertTrue(plan.contains("INDEX=STATIONENGLISHNAMEUPPERINDEX"));
+        assertTrue(plan.contains("INDEX=LINESTOP"));
+        assertFalse(plan.contains("ACCESS=FULL SCAN"));
+    }
+}
@@ -0,0 +1,142 @@
+package be.raildelays.repository.impl;
+
+import be.raildelays.domain.entities.Station;
+import be.raildelays.domain.entities.TrainLine;
+import be.raildelays.jpa.cache.LruCacheRegion;
+import be.raildelays.jpa.cache.LruCacheRegionFactory;
+import be.raildelays.repository.StationDao;
+import be.raildelays.repository.TrainLineDao;
+import com.excilys.ebi.spring.dbunit.config.DBOperation;
+import com.excilys.ebi.spring.dbunit.test.DataSet;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Resource;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Almex
+ */
+@DataSet(value = "classpath:FindArrivalDelaysIT.xml",
+        tearDownOperation = DBOperation.DELETE_ALL, dataSourceSpringName = "dataSource")
+public class SecondLevelCacheIT extends AbstractIT {
+
+    @Resource
+    private StationDao stationDao;
+
+    @Resource
+    private TrainLineDao trainLineDao;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    private SessionFactoryImplementor sessionFactory;
+
+    private Statistics statistics;
+
+    @Before
+    public void setUp() throws Exception {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    private LruCacheRegion getRegion(Class<?> entityClass) {
+        LruCacheRegionFactory regionFactory = (LruCacheRegionFactory) sessionFactory.getCache().getRegionFactory();
+
+        return regionFactory.getRegion(sessionFactory.getCache().qualifyRegionName(entityClass.getName()));
+    }
+
+    /**
+     * We expect a Station loaded by another persistence context to be served by the second-level cache.
+     */
+    @Test
+    public void testFindStation() {
+        LruCacheRegion region = getRegion(Station.class);
+        long hitCount = region.getHitCount();
+
+        Station expected = entityManager.find(Station.class, 1L);
+        entityManager.clear();
+        Station actual = entityManager.find(Station.class, 1L);
+
+        assertEquals(expected, actual);
+        assertEquals(hitCount + 1, region.getHitCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    /**
+     * We expect a second search of a Station by its name to be served by the query cache.
+     */
+    @Test
+    public void testFindByEnglishName() {
+        Station expected = stationDao.findByEnglishName("Bruxelles-Central");
+        entityManager.clear();
+        Station actual = stationDao.findByEnglishName("Bruxelles-Central");
+
+        assertEquals(expected, actual);
+        assertEquals(1, statistics.getQueryCacheMissCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    /**
+     * We expect a second search of a TrainLine by its route id to be served by the query cache.
+     */
+    @Test
+    public void testFindByRouteId() {
+        LruCacheRegion region = getRegion(TrainLine.class);
+        long hitCount = region.getHitCount();
+
+        TrainLine expected = trainLineDao.findByRouteId(466L);
+        entityManager.clear();
+        TrainLine actual = trainLineDao.findByRouteId(466L);
+
+        assertEquals(expected, actual);
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(hitCount + 1, region.getHitCount());
+    }
+
+    /**
+     * We expect the query cache to not return a result invalidated by the creation of a new TrainLine.
+     */
+    @Test
+    public void testFindByRouteIdAfterSave() {
+        assertNull(trainLineDao.findByRouteId(999L));
+
+        TrainLine expected = trainLineDao.saveAndFlush(new TrainLine.Builder(999L).build());
+
+        assertEquals(expected, trainLineDao.findByRouteId(999L));
+    }
+
+    /**
+     * We expect the least recently used entry to be evicted when the region is full.
+     */
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        LruCacheRegion region = new LruCacheRegion("test", 2);
+
+        region.put(null, 1, "one");
+        region.put(null, 2, "two");
+        region.get(null, 1);
+        region.put(null, 3, "three");
+
+        assertEquals("one", region.get(null, 1));
+        assertNull(region.get(null, 2));
+        assertEquals("three", region.get(null, 3));
+        assertEquals(2, region.getElementCountInMemory());
+        assertEquals(1, region.getEvictionCount());
+        assertEquals(3, region.getHitCount());
+        assertEquals(1, region.getMissCount());
+    }
+}
@@ -0,0 +1,94 @@
+package be.raildelays.repository.impl;
+
+import be.raildelays.delays.TimeDelay;
+import be.raildelays.domain.entities.Station;
+import be.raildelays.domain.entities.TrainLine;
+import be.raildelays.domain.entities.TrainRun;
+import be.raildelays.domain.entities.TrainRunStop;
+import be.raildelays.repository.TrainLineDao;
+import be.raildelays.repository.TrainRunDao;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Resource;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Almex
+ */
+public class TrainRunJpaDaoIT extends AbstractIT {
+
+    private static final LocalDate DATE = LocalDate.of(2016, 7, 1);
+
+    @Resource
+    private TrainRunDao trainRunDao;
+
+    @Resource
+    private TrainLineDao trainLineDao;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TrainLine trainLine;
+
+    @Before
+    public void setUp() throws Exception {
+        trainLine = trainLineDao.saveAndFlush(new TrainLine.Builder(466L).build());
+
+        trainRunDao.saveAndFlush(new TrainRun.Builder()
+                .trainLine(trainLine)
+                .date(DATE)
+                .addStop(stop("Liège-Guillemins", 8))
+                .addStop(stop("Bruxelles-Central", 9))
+                .addStop(stop("Oostende", 10))
+                .build());
+
+        entityManager.clear();
+    }
+
+    private static TrainRunStop.Builder stop(String name, int hour) {
+        return new TrainRunStop.Builder()
+                .station(new Station(name))
+                .arrivalTime(TimeDelay.of(LocalTime.of(hour, 0)))
+                .departureTime(TimeDelay.of(LocalTime.of(hour, 1)));
+    }
+
+    /**
+     * We expect the stops to be loaded only on first access and then to be ordered by their sequence.
+     */
+    @Test
+    public void testFindByTrainLineAndDate() {
+        TrainRun trainRun = trainRunDao.findByTrainLineAndDate(trainLine, DATE);
+
+        assertNotNull(trainRun);
+        assertFalse(entityManager.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(trainRun, "stops"));
+
+        List<TrainRunStop> stops = trainRun.getStops();
+
+        assertEquals(3, stops.size());
+        assertEquals(new Station("Liège-Guillemins"), stops.get(0).getStation());
+        assertEquals(new Station("Bruxelles-Central"), stops.get(1).getStation());
+        assertEquals(new Station("Oostende"), stops.get(2).getStation());
+        assertSame(stops.get(1), stops.get(2).getPrevious());
+    }
+
+    /**
+     * We expect the stops to be fetched in the same query and to be ordered by their sequence.
+     */
+    @Test
+    public void testFindWithStopsByRouteIdAndDate() {
+        TrainRun trainRun = trainRunDao.findWithStopsByRouteIdAndDate(466L, DATE);
+
+        assertNotNull(trainRun);
+        assertTrue(entityManager.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(trainRun, "stops"));
+        assertEquals(3, trainRun.getStops().size());
+        assertEquals(new Station("Liège-Guillemins"), trainRun.getFirstStop().getStation());
+        assertEquals(new Station("Oostende"), trainRun.getLastStop().getStation());
+    }
+}
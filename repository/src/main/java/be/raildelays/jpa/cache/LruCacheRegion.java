@@ -0,0 +1,218 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.jpa.cache;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.QueryResultsRegion;
+import org.hibernate.cache.spi.TimestampsRegion;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory Hibernate cache region evicting its least recently used entry when it holds more than
+ * {@code maxEntries} entries.
+ * <p>
+ * The region counts its hits, misses, puts and evictions. Those statistics do not depend on
+ * {@code hibernate.generate_statistics} and can be retrieved from the {@link LruCacheRegionFactory}.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @see LruCacheRegionFactory
+ * @since 2.0
+ */
+public class LruCacheRegion implements QueryResultsRegion, TimestampsRegion {
+
+    /**
+     * Time during which a soft-lock is held, in the same unit than {@link #nextTimestamp()}.
+     */
+    private static final int TIMEOUT = 60000;
+
+    private final String name;
+    private final int maxEntries;
+    private final LinkedHashMap<Object, Object> entries;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong putCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param name       name of this region
+     * @param maxEntries maximum number of entries held by this region, a value lower or equal to 0 means no limit
+     */
+    public LruCacheRegion(String name, int maxEntries) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<Object, Object>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                boolean result = LruCacheRegion.this.maxEntries > 0 && size() > LruCacheRegion.this.maxEntries;
+
+                if (result) {
+                    evictionCount.incrementAndGet();
+                }
+
+                return result;
+            }
+        };
+    }
+
+    @Override
+    public Object get(SharedSessionContractImplementor session, Object key) throws CacheException {
+        Object result;
+
+        synchronized (entries) {
+            result = entries.get(key);
+        }
+
+        if (result != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+
+        return result;
+    }
+
+    @Override
+    public void put(SharedSessionContractImplementor session, Object key, Object value) throws CacheException {
+        synchronized (entries) {
+            entries.put(key, value);
+        }
+
+        putCount.incrementAndGet();
+    }
+
+    @Override
+    public void evict(Object key) throws CacheException {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    @Override
+    public void evictAll() throws CacheException {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void destroy() throws CacheException {
+        evictAll();
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        synchronized (entries) {
+            return entries.containsKey(key);
+        }
+    }
+
+    /**
+     * @return -1 because the size of the cached values is not computed
+     */
+    @Override
+    public long getSizeInMemory() {
+        return -1;
+    }
+
+    @Override
+    public long getElementCountInMemory() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public long getElementCountOnDisk() {
+        return 0;
+    }
+
+    @Override
+    public Map toMap() {
+        synchronized (entries) {
+            return new HashMap<>(entries);
+        }
+    }
+
+    @Override
+    public long nextTimestamp() {
+        return LruCacheRegionFactory.timestamp();
+    }
+
+    @Override
+    public int getTimeout() {
+        return TIMEOUT;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return number of look-ups which found an entry
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return number of look-ups which did not find any entry
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getPutCount() {
+        return putCount.get();
+    }
+
+    /**
+     * @return number of entries removed because this region was full
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[size=%d, maxEntries=%d, hits=%d, misses=%d, puts=%d, evictions=%d]", name,
+                getElementCountInMemory(), maxEntries, getHitCount(), getMissCount(), getPutCount(),
+                getEvictionCount());
+    }
+}
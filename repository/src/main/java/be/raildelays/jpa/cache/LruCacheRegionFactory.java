@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.jpa.cache;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.CollectionRegion;
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.NaturalIdRegion;
+import org.hibernate.cache.spi.QueryResultsRegion;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cache.spi.TimestampsRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process Hibernate second-level cache made of {@link LruCacheRegion}s.
+ * <p>
+ * To use it set {@code hibernate.cache.region.factory_class} to the name of this class. The size of each region is
+ * limited by {@code hibernate.cache.lru.max_entries} (default: {@value #DEFAULT_MAX_ENTRIES}) which can be overridden
+ * for one region by suffixing this property with the name of the region (e.g.:
+ * {@code hibernate.cache.lru.max_entries.be.raildelays.domain.entities.Station}). The timestamps region is never
+ * limited because evicting one of its entries would allow the query cache to return stale results.
+ * </p>
+ * <p>
+ * The statistics of each region can be retrieved with {@link #getRegions()} and are logged when the
+ * {@code SessionFactory} is closed.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @since 2.0
+ */
+public class LruCacheRegionFactory implements RegionFactory {
+
+    public static final String MAX_ENTRIES = "hibernate.cache.lru.max_entries";
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LruCacheRegionFactory.class);
+
+    private final Map<String, LruCacheRegion> regions = new ConcurrentHashMap<>();
+    private Properties properties = new Properties();
+
+    static long timestamp() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void start(SessionFactoryOptions settings, Properties properties) throws CacheException {
+        this.properties = properties;
+    }
+
+    @Override
+    public void stop() {
+        regions.values().forEach(region -> LOGGER.info("Second-level cache region {}", region));
+        regions.values().forEach(LruCacheRegion::destroy);
+        regions.clear();
+    }
+
+    /**
+     * @return {@code false} because a put in memory is cheaper than the look-up to avoid it
+     */
+    @Override
+    public boolean isMinimalPutsEnabledByDefault() {
+        return false;
+    }
+
+    @Override
+    public AccessType getDefaultAccessType() {
+        return AccessType.NONSTRICT_READ_WRITE;
+    }
+
+    @Override
+    public long nextTimestamp() {
+        return timestamp();
+    }
+
+    @Override
+    public EntityRegion buildEntityRegion(String regionName, Properties properties, CacheDataDescription metadata)
+            throws CacheException {
+        return register(new LruTransactionalRegion(regionName, getMaxEntries(regionName), metadata));
+    }
+
+    @Override
+    public NaturalIdRegion buildNaturalIdRegion(String regionName, Properties properties,
+                                                CacheDataDescription metadata) throws CacheException {
+        return register(new LruTransactionalRegion(regionName, getMaxEntries(regionName), metadata));
+    }
+
+    @Override
+    public CollectionRegion buildCollectionRegion(String regionName, Properties properties,
+                                                  CacheDataDescription metadata) throws CacheException {
+        return register(new LruTransactionalRegion(regionName, getMaxEntries(regionName), metadata));
+    }
+
+    @Override
+    public QueryResultsRegion buildQueryResultsRegion(String regionName, Properties properties)
+            throws CacheException {
+        return register(new LruCacheRegion(regionName, getMaxEntries(regionName)));
+    }
+
+    @Override
+    public TimestampsRegion buildTimestampsRegion(String regionName, Properties properties) throws CacheException {
+        return register(new LruCacheRegion(regionName, 0));
+    }
+
+    /**
+     * @return all regions built by this factory since it has been started
+     */
+    public Collection<LruCacheRegion> getRegions() {
+        return Collections.unmodifiableCollection(regions.values());
+    }
+
+    /**
+     * @return the region with this name or {@code null} if this factory did not build it
+     */
+    public LruCacheRegion getRegion(String regionName) {
+        return regions.get(regionName);
+    }
+
+    private int getMaxEntries(String regionName) {
+        String value = properties.getProperty(MAX_ENTRIES + "." + regionName, properties.getProperty(MAX_ENTRIES));
+
+        return value != null ? Integer.parseInt(value.trim()) : DEFAULT_MAX_ENTRIES;
+    }
+
+    private <T extends LruCacheRegion> T register(T region) {
+        regions.put(region.getName(), region);
+
+        LOGGER.debug("Second-level cache region {} built with maxEntries={}", region.getName(),
+                region.getMaxEntries());
+
+        return region;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.jpa.cache;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.internal.DefaultCacheKeysFactory;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.CollectionRegionAccessStrategy;
+import org.hibernate.cache.spi.access.EntityRegionAccessStrategy;
+import org.hibernate.cache.spi.access.NaturalIdRegionAccessStrategy;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Access strategy of a {@link LruTransactionalRegion} for entities, natural-ids and collections.
+ * <p>
+ * Entries are only cached when they are loaded from the database: an insertion is never cached and an update or a
+ * removal evicts the entry. It's the behaviour of Hibernate's {@code nonstrict-read-write} strategy which fits
+ * reference data rarely modified (e.g.: {@code Station} or {@code TrainLine}). With a {@link AccessType#READ_ONLY}
+ * access type any update is rejected.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @since 2.0
+ */
+public class LruRegionAccessStrategy implements EntityRegionAccessStrategy, NaturalIdRegionAccessStrategy,
+        CollectionRegionAccessStrategy {
+
+    private final LruTransactionalRegion region;
+    private final AccessType accessType;
+
+    public LruRegionAccessStrategy(LruTransactionalRegion region, AccessType accessType) {
+        this.region = region;
+        this.accessType = accessType;
+    }
+
+    @Override
+    public LruTransactionalRegion getRegion() {
+        return region;
+    }
+
+    @Override
+    public Object get(SharedSessionContractImplementor session, Object key, long txTimestamp) throws CacheException {
+        return region.get(session, key);
+    }
+
+    @Override
+    public boolean putFromLoad(SharedSessionContractImplementor session, Object key, Object value, long txTimestamp,
+                               Object version) throws CacheException {
+        return putFromLoad(session, key, value, txTimestamp, version, false);
+    }
+
+    @Override
+    public boolean putFromLoad(SharedSessionContractImplementor session, Object key, Object value, long txTimestamp,
+                               Object version, boolean minimalPutOverride) throws CacheException {
+        boolean result = false;
+
+        if (!minimalPutOverride || !region.contains(key)) {
+            region.put(session, key, value);
+            result = true;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return {@code null} because entries are never locked
+     */
+    @Override
+    public SoftLock lockItem(SharedSessionContractImplementor session, Object key, Object version)
+            throws CacheException {
+        return null;
+    }
+
+    /**
+     * @return {@code null} because the region is never locked
+     */
+    @Override
+    public SoftLock lockRegion() throws CacheException {
+        return null;
+    }
+
+    @Override
+    public void unlockItem(SharedSessionContractImplementor session, Object key, SoftLock lock)
+            throws CacheException {
+        region.evict(key);
+    }
+
+    @Override
+    public void unlockRegion(SoftLock lock) throws CacheException {
+        region.evictAll();
+    }
+
+    @Override
+    public void remove(SharedSessionContractImplementor session, Object key) throws CacheException {
+        region.evict(key);
+    }
+
+    @Override
+    public void removeAll() throws CacheException {
+        region.evictAll();
+    }
+
+    @Override
+    public void evict(Object key) throws CacheException {
+        region.evict(key);
+    }
+
+    @Override
+    public void evictAll() throws CacheException {
+        region.evictAll();
+    }
+
+    @Override
+    public Object generateCacheKey(Object id, EntityPersister persister, SessionFactoryImplementor factory,
+                                   String tenantIdentifier) {
+        return DefaultCacheKeysFactory.createEntityKey(id, persister, factory, tenantIdentifier);
+    }
+
+    @Override
+    public Object generateCacheKey(Object id, CollectionPersister persister, SessionFactoryImplementor factory,
+                                   String tenantIdentifier) {
+        return DefaultCacheKeysFactory.createCollectionKey(id, persister, factory, tenantIdentifier);
+    }
+
+    @Override
+    public Object generateCacheKey(Object[] naturalIdValues, EntityPersister persister,
+                                   SharedSessionContractImplementor session) {
+        return DefaultCacheKeysFactory.createNaturalIdKey(naturalIdValues, persister, session);
+    }
+
+    /**
+     * Entity keys and collection keys share the same implementation, so this method serves both.
+     */
+    @Override
+    public Object getCacheKeyId(Object cacheKey) {
+        return DefaultCacheKeysFactory.getEntityId(cacheKey);
+    }
+
+    @Override
+    public Object[] getNaturalIdValues(Object cacheKey) {
+        return DefaultCacheKeysFactory.getNaturalIdValues(cacheKey);
+    }
+
+    @Override
+    public boolean insert(SharedSessionContractImplementor session, Object key, Object value, Object version)
+            throws CacheException {
+        return false;
+    }
+
+    @Override
+    public boolean insert(SharedSessionContractImplementor session, Object key, Object value) throws CacheException {
+        return false;
+    }
+
+    @Override
+    public boolean afterInsert(SharedSessionContractImplementor session, Object key, Object value, Object version)
+            throws CacheException {
+        return false;
+    }
+
+    @Override
+    public boolean afterInsert(SharedSessionContractImplementor session, Object key, Object value)
+            throws CacheException {
+        return false;
+    }
+
+    @Override
+    public boolean update(SharedSessionContractImplementor session, Object key, Object value, Object currentVersion,
+                          Object previousVersion) throws CacheException {
+        return update(session, key, value);
+    }
+
+    @Override
+    public boolean update(SharedSessionContractImplementor session, Object key, Object value) throws CacheException {
+        if (accessType == AccessType.READ_ONLY) {
+            throw new UnsupportedOperationException("Cannot update an entry of the read-only region "
+                    + region.getName());
+        }
+
+        region.evict(key);
+
+        return false;
+    }
+
+    @Override
+    public boolean afterUpdate(SharedSessionContractImplementor session, Object key, Object value,
+                               Object currentVersion, Object previousVersion, SoftLock lock) throws CacheException {
+        return afterUpdate(session, key, value, lock);
+    }
+
+    @Override
+    public boolean afterUpdate(SharedSessionContractImplementor session, Object key, Object value, SoftLock lock)
+            throws CacheException {
+        unlockItem(session, key, lock);
+
+        return false;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.jpa.cache;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.CollectionRegion;
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.NaturalIdRegion;
+import org.hibernate.cache.spi.access.AccessType;
+
+/**
+ * {@link LruCacheRegion} holding entities, natural-ids or collections.
+ * <p>
+ * Only the {@link AccessType#READ_ONLY} and {@link AccessType#NONSTRICT_READ_WRITE} access types are supported:
+ * this region does not lock its entries, an entry is simply evicted when it is updated or removed.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @see LruRegionAccessStrategy
+ * @since 2.0
+ */
+public class LruTransactionalRegion extends LruCacheRegion implements EntityRegion, NaturalIdRegion, CollectionRegion {
+
+    private final CacheDataDescription cacheDataDescription;
+
+    public LruTransactionalRegion(String name, int maxEntries, CacheDataDescription cacheDataDescription) {
+        super(name, maxEntries);
+        this.cacheDataDescription = cacheDataDescription;
+    }
+
+    @Override
+    public LruRegionAccessStrategy buildAccessStrategy(AccessType accessType) throws CacheException {
+        if (accessType != AccessType.READ_ONLY && accessType != AccessType.NONSTRICT_READ_WRITE) {
+            throw new CacheException("The access type '" + accessType.getExternalName()
+                    + "' is not supported by the region " + getName());
+        }
+
+        return new LruRegionAccessStrategy(this, accessType);
+    }
+
+    @Override
+    public boolean isTransactionAware() {
+        return false;
+    }
+
+    @Override
+    public CacheDataDescription getCacheDataDescription() {
+        return cacheDataDescription;
+    }
+}
@@ -32,6 +32,7 @@ import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface LineStopDaoCustom {
@@ -82,6 +83,40 @@ public interface LineStopDaoCustom {
      */
     List<LineStop> findArrivalDelays(LocalDate date, Station station, long delayThreshold);
 
+    /**
+     * Search in one statement the next page of delayed or canceled departures at a station for a certain day.
+     * <p>
+     * This is a keyset pagination: results are ordered by expected departure time (a missing one comes first) and
+     * then by id, the search starts right after the {@code last} {@link LineStop}. Then no count query is needed and
+     * reading the next page does not depend on the number of pages already read. The train line, the station and
+     * the previous and next stops of each {@link LineStop} are fetched by the same statement.
+     * </p>
+     *
+     * @param date           date for which you do the search
+     * @param station        departure station
+     * @param delayThreshold minimum delay (in milliseconds)
+     * @param last           last line stop of the previous page or {@code null} for the first page
+     * @param maxResults     maximum size of the page
+     * @return a list of line stops, its size is lower than {@code maxResults} for the last page
+     */
+    List<LineStop> findDepartureDelaysAfter(LocalDate date, Station station, long delayThreshold, LineStop last,
+                                            int maxResults);
+
+    /**
+     * Search in one statement the next page of delayed or canceled arrivals at a station for a certain day.
+     *
+     * @param date           date for which you do the search
+     * @param station        arrival station
+     * @param delayThreshold minimum delay (in milliseconds)
+     * @param last           last line stop of the previous page or {@code null} for the first page
+     * @param maxResults     maximum size of the page
+     * @return a list of line stops ordered by expected arrival time and then by id, its size is lower than
+     * {@code maxResults} for the last page
+     * @see #findDepartureDelaysAfter(LocalDate, Station, long, LineStop, int)
+     */
+    List<LineStop> findArrivalDelaysAfter(LocalDate date, Station station, long delayThreshold, LineStop last,
+                                          int maxResults);
+
     /**
      * Search a the next trains which is expectedTime to arrive after a certain
      * time.
@@ -115,5 +150,33 @@ public interface LineStopDaoCustom {
      */
     LineStop findByTrainLineAndDateAndStation(TrainLine trainLine, LocalDate date, Station station);
 
+    /**
+     * Search in one query every line stop belonging to any of the train lines for any of the days.
+     * It's the bulk version of {@link #findByTrainLineAndDateAndStation(TrainLine, LocalDate, Station)}: the
+     * caller can then match each station of a whole chain without any other round trip.
+     *
+     * @param trainLines train lines coming from our internal repository (we match only the routId).
+     * @param dates      days of the year for which you do the search
+     * @return a list of line stop, empty if one of the parameters is empty
+     */
+    List<LineStop> findByTrainLinesAndDates(Collection<TrainLine> trainLines, Collection<LocalDate> dates);
+
+    /**
+     * Search in one query which train lines already have a complete chain of line stops with their final delays for
+     * a certain day.
+     * <p>
+     * A chain is complete when its terminus (i.e.: the last stop of a chain of at least two stops) has been retrieved
+     * from the website, meaning that it has no departure time while the one coming from the GTFS schedule always has
+     * one, and when this train has arrived: the terminus is canceled, the day is over or its expected arrival time
+     * plus its delay is before {@code now}.
+     * </p>
+     *
+     * @param routeIds route ids of the train lines to check
+     * @param date     day of the year for which you do the search
+     * @param now      date and time at which the delays are considered as final
+     * @return the route ids among the given ones having a complete chain
+     */
+    List<Long> findCompletedRouteIds(Collection<Long> routeIds, LocalDate date, LocalDateTime now);
+
 
 }
\ No newline at end of file
@@ -26,9 +26,16 @@ package be.raildelays.repository;
 
 import be.raildelays.domain.entities.Station;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
 
 /**
  * Repository that manage storing a {@link Station}.
+ * <p>
+ * The searches by business key are cached in the query cache: stations are looked up for each scraped stop.
  *
  * @author Almex
  */
@@ -41,6 +48,7 @@ public interface StationDao extends JpaRepository<Station, Long> {
      * @param language in which you want to do the search.
      * @return a {@link Station}
      */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Station findByEnglishName(String englishName);
 
 
@@ -51,6 +59,7 @@ public interface StationDao extends JpaRepository<Station, Long> {
      * @param language in which you want to do the search.
      * @return a {@link Station}
      */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Station findByFrenchName(String frenchName);
 
 
@@ -61,5 +70,6 @@ public interface StationDao extends JpaRepository<Station, Long> {
      * @param language in which you want to do the search.
      * @return a {@link Station}
      */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Station findByDutchName(String dutchName);
 }
@@ -26,9 +26,16 @@ package be.raildelays.repository;
 
 import be.raildelays.domain.entities.TrainLine;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
 
 /**
  * Repository that manage storing a {@link TrainLine}.
+ * <p>
+ * The searches by business key are cached in the query cache: train lines are looked up for each scraped stop.
  *
  * @author Almex
  */
@@ -40,6 +47,7 @@ public interface TrainLineDao extends JpaRepository<TrainLine, Long> {
      * @param routeId     strict name that should match to find a TrainLine.
      * @return a {@link TrainLine}
      */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     TrainLine findByRouteId(Long routeId);
 
 }
@@ -0,0 +1,65 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.repository;
+
+import be.raildelays.domain.entities.TrainLine;
+import be.raildelays.domain.entities.TrainRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+
+/**
+ * Repository that manage storing a {@link TrainRun}.
+ *
+ * @author Almex
+ * @since 2.0
+ */
+public interface TrainRunDao extends JpaRepository<TrainRun, Long> {
+
+    /**
+     * Search the train run of a train line for a certain day. Its stops are loaded on first access.
+     *
+     * @param trainLine train line for which you do the search
+     * @param date      day of the year for which you do the search
+     * @return a train run or {@code null} if not found
+     */
+    TrainRun findByTrainLineAndDate(TrainLine trainLine, LocalDate date);
+
+    /**
+     * Search the train run of a train line for a certain day and fetch all its stops in the same query.
+     *
+     * @param routeId route id of the train line (coming from GTFS data)
+     * @param date    day of the year for which you do the search
+     * @return a train run or {@code null} if not found
+     */
+    @Query("SELECT DISTINCT o "
+            + "FROM TrainRun o "
+            + "LEFT JOIN FETCH o.stops "
+            + "WHERE o.date = :date "
+            + "AND o.trainLine.routeId = :routeId ")
+    TrainRun findWithStopsByRouteIdAndDate(@Param("routeId") Long routeId, @Param("date") LocalDate date);
+}
@@ -0,0 +1,129 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.repository.fact;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Objects;
+
+/**
+ * Row of the {@link DelayFactStore}: the delay of one train at one station for one day.
+ * <p>
+ * Unlike a {@link be.raildelays.domain.entities.LineStop} this row only holds primitives: the train is identified by
+ * its route id, the station by its database id and both times are expressed in seconds.
+ * </p>
+ *
+ * @author Almex
+ * @implNote this class apply the Value Object pattern and is therefor immutable
+ * @since 2.0
+ */
+public final class DelayFact implements Serializable {
+
+    private static final long serialVersionUID = 2475316185016532519L;
+
+    private final LocalDate date;
+    private final int trainId;
+    private final int stationId;
+    private final int expectedTime;
+    private final int delay;
+
+    /**
+     * @param date         day of the stop
+     * @param trainId      route id of the train
+     * @param stationId    id of the station
+     * @param expectedTime expected time of the stop in seconds of the day
+     * @param delay        delay in seconds
+     */
+    public DelayFact(LocalDate date, int trainId, int stationId, int expectedTime, int delay) {
+        this.date = Objects.requireNonNull(date, "The date is mandatory");
+        this.trainId = trainId;
+        this.stationId = stationId;
+        this.expectedTime = expectedTime;
+        this.delay = delay;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getTrainId() {
+        return trainId;
+    }
+
+    public int getStationId() {
+        return stationId;
+    }
+
+    /**
+     * @return expected time of the stop in seconds of the day
+     */
+    public int getExpectedTime() {
+        return expectedTime;
+    }
+
+    /**
+     * @return delay in seconds
+     */
+    public int getDelay() {
+        return delay;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("DelayFact: ") //
+                .append("{ ") //
+                .append("date: ").append(date).append(", ") //
+                .append("trainId: ").append(trainId).append(", ") //
+                .append("stationId: ").append(stationId).append(", ") //
+                .append("expectedTime: ").append(LocalTime.ofSecondOfDay(expectedTime)).append(", ") //
+                .append("delay: ").append(delay) //
+                .append(" }").toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        boolean result = false;
+
+        if (obj == this) {
+            result = true;
+        } else if (obj instanceof DelayFact) {
+            DelayFact fact = (DelayFact) obj;
+
+            result = date.equals(fact.date)
+                    && trainId == fact.trainId
+                    && stationId == fact.stationId
+                    && expectedTime == fact.expectedTime
+                    && delay == fact.delay;
+        }
+
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, trainId, stationId, expectedTime, delay);
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.repository.fact;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Facts of one month of a {@link DelayFactStore} stored in one file per column.
+ * <p>
+ * Each column file is a sequence of little-endian {@code int}s: the n-th row is made of the n-th value of each file.
+ * The number of rows is given by the size of the smallest file, so a row partially written by a crash is truncated
+ * at the next opening. Rows are appended with positional writes and scanned through read-only memory-mapped
+ * buffers.
+ * </p>
+ * <p>
+ * There is at most one row per day, train and station: appending a fact already stored overwrites its expected time
+ * and its delay in place. To find those rows, an index of the rows of a day is built at the first append of this
+ * day by scanning the key columns. Appended rows are only added to this index once they are written.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @since 2.0
+ */
+final class DelayFactPartition implements Closeable {
+
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private static final String EXTENSION = ".int";
+
+    private static final int DATE = 0;
+    private static final int TRAIN = 1;
+    private static final int STATION = 2;
+    private static final int EXPECTED_TIME = 3;
+    private static final int DELAY = 4;
+
+    private static final String[] COLUMNS = {"date", "train", "station", "expected", "delay"};
+
+    private final YearMonth month;
+    private final FileChannel[] channels = new FileChannel[COLUMNS.length];
+    private final Map<Integer, Map<Long, Integer>> indexes = new HashMap<>();
+    private int rowCount;
+    private IntBuffer[] mapped;
+
+    private DelayFactPartition(YearMonth month) {
+        this.month = month;
+    }
+
+    /**
+     * Open the column files of a month, creating them if needed.
+     *
+     * @param directory directory of this partition
+     * @param month     month of all the facts of this partition
+     * @throws IOException if a column file cannot be opened or repaired
+     */
+    static DelayFactPartition open(Path directory, YearMonth month) throws IOException {
+        DelayFactPartition result = new DelayFactPartition(month);
+        long size = Long.MAX_VALUE;
+
+        Files.createDirectories(directory);
+
+        try {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                result.channels[i] = FileChannel.open(directory.resolve(COLUMNS[i] + EXTENSION),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                size = Math.min(size, result.channels[i].size());
+            }
+
+            result.rowCount = Math.toIntExact(size / Integer.BYTES);
+
+            for (FileChannel channel : result.channels) {
+                channel.truncate((long) result.rowCount * Integer.BYTES);
+            }
+        } catch (IOException | RuntimeException e) {
+            result.close();
+            throw e;
+        }
+
+        return result;
+    }
+
+    /**
+     * Append these facts or overwrite the rows having the same day, train and station.
+     *
+     * @param facts facts of the month of this partition
+     * @throws IOException if a column file cannot be written
+     */
+    synchronized void upsert(List<DelayFact> facts) throws IOException {
+        ByteBuffer[] appended = new ByteBuffer[COLUMNS.length];
+        Map<Integer, Map<Long, Integer>> appendedRows = new HashMap<>();
+        int appendedCount = 0;
+
+        for (int i = 0; i < appended.length; i++) {
+            appended[i] = ByteBuffer.allocate(facts.size() * Integer.BYTES).order(BYTE_ORDER);
+        }
+
+        for (DelayFact fact : facts) {
+            if (!YearMonth.from(fact.getDate()).equals(month)) {
+                throw new IllegalArgumentException("The fact " + fact + " is not part of the partition " + month);
+            }
+
+            Map<Long, Integer> index = getIndex(fact.getDate());
+            Map<Long, Integer> newRows = appendedRows.computeIfAbsent(fact.getDate().getDayOfMonth(),
+                    day -> new HashMap<>());
+            long key = key(fact.getTrainId(), fact.getStationId());
+            Integer row = index.get(key);
+
+            if (row != null) {
+                writeInt(EXPECTED_TIME, row, fact.getExpectedTime());
+                writeInt(DELAY, row, fact.getDelay());
+            } else if (newRows.containsKey(key)) {
+                // Appended by this call
+                appended[EXPECTED_TIME].putInt(newRows.get(key) * Integer.BYTES, fact.getExpectedTime());
+                appended[DELAY].putInt(newRows.get(key) * Integer.BYTES, fact.getDelay());
+            } else {
+                newRows.put(key, appendedCount);
+                appended[DATE].putInt((int) fact.getDate().toEpochDay());
+                appended[TRAIN].putInt(fact.getTrainId());
+                appended[STATION].putInt(fact.getStationId());
+                appended[EXPECTED_TIME].putInt(fact.getExpectedTime());
+                appended[DELAY].putInt(fact.getDelay());
+                appendedCount++;
+            }
+        }
+
+        if (appendedCount > 0) {
+            long position = (long) rowCount * Integer.BYTES;
+
+            // The key columns are written last: an interrupted append is truncated at the next opening
+            for (int i = COLUMNS.length - 1; i >= 0; i--) {
+                appended[i].flip();
+
+                for (long offset = position; appended[i].hasRemaining(); ) {
+                    offset += channels[i].write(appended[i], offset);
+                }
+            }
+
+            // Written: the next upserts of these keys can overwrite their rows
+            for (Map.Entry<Integer, Map<Long, Integer>> entry : appendedRows.entrySet()) {
+                Map<Long, Integer> index = indexes.get(entry.getKey());
+
+                entry.getValue().forEach((key, row) -> index.put(key, rowCount + row));
+            }
+
+            rowCount += appendedCount;
+        }
+    }
+
+    /**
+     * Visit each row of this partition whose day is between {@code fromEpochDay} and {@code toEpochDay} included and
+     * matching the train and the station if they are given.
+     *
+     * @param trainId   route id of the train or {@code null} for all trains
+     * @param stationId id of the station or {@code null} for all stations
+     * @throws IOException if a column file cannot be mapped
+     */
+    void scan(int fromEpochDay, int toEpochDay, Integer trainId, Integer stationId, DelayFactVisitor visitor)
+            throws IOException {
+        IntBuffer[] columns = map();
+        int count = columns[DATE].limit();
+
+        for (int row = 0; row < count; row++) {
+            int epochDay = columns[DATE].get(row);
+
+            if (epochDay >= fromEpochDay && epochDay <= toEpochDay
+                    && (trainId == null || columns[TRAIN].get(row) == trainId)
+                    && (stationId == null || columns[STATION].get(row) == stationId)) {
+                visitor.visit(epochDay, columns[TRAIN].get(row), columns[STATION].get(row),
+                        columns[EXPECTED_TIME].get(row), columns[DELAY].get(row));
+            }
+        }
+    }
+
+    synchronized int getRowCount() {
+        return rowCount;
+    }
+
+    YearMonth getMonth() {
+        return month;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        IOException exception = null;
+
+        for (FileChannel channel : channels) {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+
+        indexes.clear();
+        mapped = null;
+
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * @return a read-only view of each column limited to the rows written so far, re-mapped only after an append
+     */
+    private synchronized IntBuffer[] map() throws IOException {
+        if (mapped == null || mapped[DATE].limit() != rowCount) {
+            long size = (long) rowCount * Integer.BYTES;
+
+            mapped = new IntBuffer[COLUMNS.length];
+
+            for (int i = 0; i < COLUMNS.length; i++) {
+                mapped[i] = channels[i].map(FileChannel.MapMode.READ_ONLY, 0, size).order(BYTE_ORDER).asIntBuffer();
+            }
+        }
+
+        return mapped;
+    }
+
+    /**
+     * @return the row of each train and station of this day, built from the column files at the first call
+     */
+    private Map<Long, Integer> getIndex(LocalDate date) throws IOException {
+        Map<Long, Integer> result = indexes.get(date.getDayOfMonth());
+
+        if (result == null) {
+            IntBuffer[] columns = map();
+            int epochDay = (int) date.toEpochDay();
+
+            result = new HashMap<>();
+
+            for (int row = 0; row < columns[DATE].limit(); row++) {
+                if (columns[DATE].get(row) == epochDay) {
+                    result.putIfAbsent(key(columns[TRAIN].get(row), columns[STATION].get(row)), row);
+                }
+            }
+
+            indexes.put(date.getDayOfMonth(), result);
+        }
+
+        return result;
+    }
+
+    private void writeInt(int column, int row, int value) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES).order(BYTE_ORDER).putInt(0, value);
+
+        for (long offset = (long) row * Integer.BYTES; buffer.hasRemaining(); ) {
+            offset += channels[column].write(buffer, offset);
+        }
+    }
+
+    private static long key(int trainId, int stationId) {
+        return ((long) trainId << Integer.SIZE) | (stationId & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.repository.fact;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Range scan of a {@link DelayFactStore} with its aggregations.
+ * <p>
+ * All criteria are optional: by default all facts are scanned. Days are bounded by {@link #from(LocalDate)} and
+ * {@link #to(LocalDate)} (both included) and only the partitions of the months in between are read. Aggregations are
+ * computed on delays expressed in seconds. For instance, the average arrival delay per station over six months:
+ * </p>
+ * <pre>
+ * store.query().from(LocalDate.of(2016, 1, 1)).to(LocalDate.of(2016, 6, 30)).summarizeByStation()
+ * </pre>
+ *
+ * @author Almex
+ * @implSpec This implementation is not thread-safe: use one instance per query
+ * @since 2.0
+ */
+public class DelayFactQuery {
+
+    private final DelayFactStore store;
+    private LocalDate from;
+    private LocalDate to;
+    private Integer trainId;
+    private Integer stationId;
+
+    DelayFactQuery(DelayFactStore store) {
+        this.store = store;
+    }
+
+    public DelayFactQuery from(LocalDate from) {
+        this.from = from;
+        return this;
+    }
+
+    public DelayFactQuery to(LocalDate to) {
+        this.to = to;
+        return this;
+    }
+
+    public DelayFactQuery train(int trainId) {
+        this.trainId = trainId;
+        return this;
+    }
+
+    public DelayFactQuery station(int stationId) {
+        this.stationId = stationId;
+        return this;
+    }
+
+    /**
+     * Visit each fact matching this query, partition by partition.
+     *
+     * @throws IOException if a partition cannot be read
+     */
+    public void forEach(DelayFactVisitor visitor) throws IOException {
+        int fromEpochDay = from != null ? (int) from.toEpochDay() : Integer.MIN_VALUE;
+        int toEpochDay = to != null ? (int) to.toEpochDay() : Integer.MAX_VALUE;
+
+        for (YearMonth month : store.getMonths()) {
+            if ((from == null || !month.isBefore(YearMonth.from(from)))
+                    && (to == null || !month.isAfter(YearMonth.from(to)))) {
+                store.getPartition(month).scan(fromEpochDay, toEpochDay, trainId, stationId, visitor);
+            }
+        }
+    }
+
+    /**
+     * @return all facts matching this query
+     * @throws IOException if a partition cannot be read
+     */
+    public List<DelayFact> list() throws IOException {
+        List<DelayFact> result = new ArrayList<>();
+
+        forEach((epochDay, train, station, expectedTime, delay) ->
+                result.add(new DelayFact(LocalDate.ofEpochDay(epochDay), train, station, expectedTime, delay)));
+
+        return result;
+    }
+
+    /**
+     * @return count, sum, min, average and max of the delays matching this query
+     * @throws IOException if a partition cannot be read
+     */
+    public IntSummaryStatistics summarize() throws IOException {
+        IntSummaryStatistics result = new IntSummaryStatistics();
+
+        forEach((epochDay, train, station, expectedTime, delay) -> result.accept(delay));
+
+        return result;
+    }
+
+    /**
+     * @return statistics of the delays matching this query per station id
+     * @throws IOException if a partition cannot be read
+     */
+    public Map<Integer, IntSummaryStatistics> summarizeByStation() throws IOException {
+        Map<Integer, IntSummaryStatistics> result = new TreeMap<>();
+
+        forEach((epochDay, train, station, expectedTime, delay) ->
+                result.computeIfAbsent(station, key -> new IntSummaryStatistics()).accept(delay));
+
+        return result;
+    }
+
+    /**
+     * @return statistics of the delays matching this query per train id
+     * @throws IOException if a partition cannot be read
+     */
+    public Map<Integer, IntSummaryStatistics> summarizeByTrain() throws IOException {
+        Map<Integer, IntSummaryStatistics> result = new TreeMap<>();
+
+        forEach((epochDay, train, station, expectedTime, delay) ->
+                result.computeIfAbsent(train, key -> new IntSummaryStatistics()).accept(delay));
+
+        return result;
+    }
+
+    /**
+     * @return statistics of the delays matching this query per day
+     * @throws IOException if a partition cannot be read
+     */
+    public Map<LocalDate, IntSummaryStatistics> summarizeByDate() throws IOException {
+        Map<Integer, IntSummaryStatistics> byEpochDay = new TreeMap<>();
+        Map<LocalDate, IntSummaryStatistics> result = new LinkedHashMap<>();
+
+        forEach((epochDay, train, station, expectedTime, delay) ->
+                byEpochDay.computeIfAbsent(epochDay, key -> new IntSummaryStatistics()).accept(delay));
+        byEpochDay.forEach((epochDay, statistics) -> result.put(LocalDate.ofEpochDay(epochDay), statistics));
+
+        return result;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.repository.fact;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Compact store of the delays of each train at each station and each day, dedicated to analytics on long periods.
+ * <p>
+ * Facts are partitioned by month in a sub-directory named after it (e.g.: {@code 2016-07}) which contains one
+ * memory-mapped file per column (see {@link DelayFactPartition}). A scan only reads the partitions of the months it
+ * covers and never creates any object per row: aggregations over several months are then computed without
+ * hydrating any {@link be.raildelays.domain.entities.LineStop}.
+ * </p>
+ * <p>
+ * The store is append-only: a fact appended twice for the same day, train and station overwrites its previous
+ * values, nothing is ever removed. This store is fed alongside the database and is not transactional: a fact
+ * appended within a transaction which is rolled back is kept, until the next append of the same stop.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe within one JVM, only one process should append to a directory
+ * @see DelayFactQuery
+ * @since 2.0
+ */
+public class DelayFactStore implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DelayFactStore.class);
+
+    private final Path directory;
+    private final Map<YearMonth, DelayFactPartition> partitions = new ConcurrentHashMap<>();
+
+    public DelayFactStore(File directory) {
+        this.directory = directory.toPath();
+    }
+
+    /**
+     * Append these facts, overwriting the ones already stored for the same day, train and station.
+     *
+     * @param facts facts to append, from any month
+     * @throws IOException if a column file cannot be written
+     */
+    public void append(Collection<DelayFact> facts) throws IOException {
+        Map<YearMonth, List<DelayFact>> byMonth = facts.stream()
+                .collect(Collectors.groupingBy(fact -> YearMonth.from(fact.getDate()), TreeMap::new,
+                        Collectors.toList()));
+
+        for (Map.Entry<YearMonth, List<DelayFact>> entry : byMonth.entrySet()) {
+            getPartition(entry.getKey()).upsert(entry.getValue());
+        }
+
+        LOGGER.debug("Appended {} facts into {} partitions", facts.size(), byMonth.size());
+    }
+
+    /**
+     * @return a new query on all the facts of this store
+     */
+    public DelayFactQuery query() {
+        return new DelayFactQuery(this);
+    }
+
+    /**
+     * @return the months having a partition, in chronological order
+     * @throws UncheckedIOException if the directory cannot be listed
+     */
+    public SortedSet<YearMonth> getMonths() {
+        SortedSet<YearMonth> result = new TreeSet<>(partitions.keySet());
+
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, Files::isDirectory)) {
+                for (Path path : stream) {
+                    try {
+                        result.add(YearMonth.parse(path.getFileName().toString()));
+                    } catch (DateTimeParseException e) {
+                        LOGGER.trace("{} is not a partition", path);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot list the partitions of " + directory, e);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the number of facts stored for this month
+     * @throws IOException if the partition cannot be opened
+     */
+    public int count(YearMonth month) throws IOException {
+        return getMonths().contains(month) ? getPartition(month).getRowCount() : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+
+        for (Iterator<DelayFactPartition> iterator = partitions.values().iterator(); iterator.hasNext(); ) {
+            try {
+                iterator.next().close();
+            } catch (IOException e) {
+                exception = e;
+            } finally {
+                iterator.remove();
+            }
+        }
+
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * @return the partition of this month, opened or created at the first call
+     */
+    DelayFactPartition getPartition(YearMonth month) throws IOException {
+        try {
+            return partitions.computeIfAbsent(month, key -> {
+                try {
+                    return DelayFactPartition.open(directory.resolve(key.toString()), key);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+}
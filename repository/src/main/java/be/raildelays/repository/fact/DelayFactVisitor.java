@@ -0,0 +1,45 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.repository.fact;
+
+/**
+ * Callback receiving the columns of each row scanned in a {@link DelayFactStore} without creating any object.
+ *
+ * @author Almex
+ * @see DelayFactQuery#forEach(DelayFactVisitor)
+ * @since 2.0
+ */
+@FunctionalInterface
+public interface DelayFactVisitor {
+
+    /**
+     * @param epochDay     day of the stop as returned by {@link java.time.LocalDate#toEpochDay()}
+     * @param trainId      route id of the train
+     * @param stationId    id of the station
+     * @param expectedTime expected time of the stop in seconds of the day
+     * @param delay        delay in seconds
+     */
+    void visit(int epochDay, int trainId, int stationId, int expectedTime, int delay);
+}
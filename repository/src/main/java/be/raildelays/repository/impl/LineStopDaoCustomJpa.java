@@ -24,10 +24,13 @@
 
 package be.raildelays.repository.impl;
 
+import be.raildelays.delays.TimeDelay;
+import be.raildelays.delays.TimeDelay_;
 import be.raildelays.domain.entities.LineStop;
 import be.raildelays.domain.entities.LineStop_;
 import be.raildelays.domain.entities.Station;
 import be.raildelays.domain.entities.TrainLine;
+import be.raildelays.domain.entities.TrainLine_;
 import be.raildelays.repository.LineStopDaoCustom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,12 +46,20 @@ import org.springframework.util.Assert;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
+import javax.persistence.metamodel.SingularAttribute;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import static be.raildelays.repository.specification.LineStopSpecifications.*;
 import static org.springframework.data.jpa.domain.Specifications.where;
@@ -63,30 +74,12 @@ public class LineStopDaoCustomJpa implements LineStopDaoCustom {
 
     @Override
     public Page<LineStop> findDepartureDelays(LocalDate date, Station station, long delayThreshold, Pageable pageable) {
-        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<LineStop> query = builder.createQuery(LineStop.class);
-        Subquery<Long> canceled = query.subquery(Long.class);
-        Subquery<Long> notCanceled = query.subquery(Long.class);
-        Root<LineStop> canceledRoot = canceled.from(LineStop.class);
-        Root<LineStop> notCanceledRoot = notCanceled.from(LineStop.class);
-
         LOGGER.debug("Searching delays for : date={} station={} threshold={}",
                 date, station, delayThreshold);
 
-        canceled.select(canceledRoot.get(LineStop_.id))
-                .where(where(dateEquals(date))
-                        .and(stationEquals(station))
-                        .and(isCanceledDeparture())
-                        .toPredicate(canceledRoot, query, builder));
-
-        notCanceled.select(notCanceledRoot.get(LineStop_.id))
-                .where(where(dateEquals(date))
-                        .and(stationEquals(station))
-                        .and(departureDelayIsNotNull())
-                        .and(departureDelayGreaterThanOrEqualTo(delayThreshold))
-                        .toPredicate(notCanceledRoot, query, builder));
-
-        Page<LineStop> all = findAll(where(idsIn(canceled)).or(idsIn(notCanceled)), pageable);
+        Page<LineStop> all = findAll(where(dateEquals(date))
+                .and(stationEquals(station))
+                .and(where(isCanceledDeparture()).or(departureDelayGreaterThanOrEqualTo(delayThreshold))), pageable);
 
         LOGGER.debug("Retrieved delays : size={}/{} elements={}/{} pages={}/{}",
                 all.getContent().size(), all.getSize(),
@@ -103,30 +96,12 @@ public class LineStopDaoCustomJpa implements LineStopDaoCustom {
 
     @Override
     public Page<LineStop> findArrivalDelays(LocalDate date, Station station, long delayThreshold, Pageable pageable) {
-        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<LineStop> query = builder.createQuery(LineStop.class);
-        Subquery<Long> canceled = query.subquery(Long.class);
-        Subquery<Long> notCanceled = query.subquery(Long.class);
-        Root<LineStop> canceledRoot = canceled.from(LineStop.class);
-        Root<LineStop> notCanceledRoot = notCanceled.from(LineStop.class);
-
         LOGGER.debug("Searching delays for : date={} station={} threshold={}",
                 date, station, delayThreshold);
 
-        canceled.select(canceledRoot.get(LineStop_.id))
-                .where(where(dateEquals(date))
-                        .and(stationEquals(station))
-                        .and(isCanceledArrival())
-                        .toPredicate(canceledRoot, query, builder));
-
-        notCanceled.select(notCanceledRoot.get(LineStop_.id))
-                .where(where(dateEquals(date))
-                        .and(stationEquals(station))
-                        .and(arrivalDelayIsNotNull())
-                        .and(arrivalDelayGreaterThanOrEqualTo(delayThreshold))
-                        .toPredicate(notCanceledRoot, query, builder));
-
-        Page<LineStop> all = findAll(where(idsIn(canceled)).or(idsIn(notCanceled)), pageable);
+        Page<LineStop> all = findAll(where(dateEquals(date))
+                .and(stationEquals(station))
+                .and(where(isCanceledArrival()).or(arrivalDelayGreaterThanOrEqualTo(delayThreshold))), pageable);
 
         LOGGER.debug("Retrieved delays : size={}/{} elements={}/{} pages={}/{}",
                 all.getContent().size(), all.getSize(),
@@ -141,6 +116,24 @@ public class LineStopDaoCustomJpa implements LineStopDaoCustom {
         return findArrivalDelays(date, station, delayThreshold, null).getContent();
     }
 
+    @Override
+    public List<LineStop> findDepartureDelaysAfter(LocalDate date, Station station, long delayThreshold,
+                                                   LineStop last, int maxResults) {
+        return findDelaysAfter(where(dateEquals(date))
+                        .and(stationEquals(station))
+                        .and(where(isCanceledDeparture()).or(departureDelayGreaterThanOrEqualTo(delayThreshold))),
+                LineStop_.departureTime, last, last != null ? last.getDepartureTime() : null, maxResults);
+    }
+
+    @Override
+    public List<LineStop> findArrivalDelaysAfter(LocalDate date, Station station, long delayThreshold,
+                                                 LineStop last, int maxResults) {
+        return findDelaysAfter(where(dateEquals(date))
+                        .and(stationEquals(station))
+                        .and(where(isCanceledArrival()).or(arrivalDelayGreaterThanOrEqualTo(delayThreshold))),
+                LineStop_.arrivalTime, last, last != null ? last.getArrivalTime() : null, maxResults);
+    }
+
     @Override
     public List<LineStop> findNextExpectedArrivalTime(Station station, LocalDateTime dateTime) {
         return findAll(where(dateEquals(dateTime.toLocalDate()))
@@ -167,6 +160,102 @@ public class LineStopDaoCustomJpa implements LineStopDaoCustom {
                 .and(trainEquals(trainLine)));
     }
 
+    @Override
+    public List<LineStop> findByTrainLinesAndDates(Collection<TrainLine> trainLines, Collection<LocalDate> dates) {
+        List<LineStop> result = Collections.emptyList();
+
+        if (trainLines.stream().anyMatch(trainLine -> trainLine.getRouteId() != null) && !dates.isEmpty()) {
+            result = findAll(where(trainsIn(trainLines)).and(datesIn(dates)), (Pageable) null).getContent();
+        }
+
+        LOGGER.debug("Retrieved {} line stops for trainLines={} dates={}", result.size(), trainLines, dates);
+
+        return result;
+    }
+
+    @Override
+    public List<Long> findCompletedRouteIds(Collection<Long> routeIds, LocalDate date, LocalDateTime now) {
+        Set<Long> result = new LinkedHashSet<>();
+
+        if (!routeIds.isEmpty() && !date.isAfter(now.toLocalDate())) {
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Tuple> query = builder.createTupleQuery();
+            Root<LineStop> root = query.from(LineStop.class);
+            Path<TimeDelay> arrivalTime = root.get(LineStop_.arrivalTime);
+
+            query.multiselect(
+                    root.get(LineStop_.trainLine).get(TrainLine_.routeId),
+                    arrivalTime.get(TimeDelay_.expectedTime),
+                    arrivalTime.get(TimeDelay_.delay),
+                    root.get(LineStop_.canceledArrival))
+                    .where(builder.equal(root.get(LineStop_.date), date),
+                            root.get(LineStop_.trainLine).get(TrainLine_.routeId).in(routeIds),
+                            builder.isNull(root.get(LineStop_.next)),
+                            builder.isNotNull(root.get(LineStop_.previous)),
+                            // Only the terminus of the GTFS schedule has a departure time
+                            builder.isNull(root.get(LineStop_.departureTime).get(TimeDelay_.expectedTime)),
+                            builder.or(builder.isNotNull(arrivalTime.get(TimeDelay_.expectedTime)),
+                                    builder.isTrue(root.get(LineStop_.canceledArrival))));
+
+            for (Tuple tuple : entityManager.createQuery(query).getResultList()) {
+                LocalTime expectedTime = tuple.get(1, LocalTime.class);
+                Long delay = tuple.get(2, Long.class);
+
+                if (date.isBefore(now.toLocalDate()) || Boolean.TRUE.equals(tuple.get(3, Boolean.class)) ||
+                        date.atTime(expectedTime).plus(delay != null ? delay : 0L, ChronoUnit.MILLIS).isBefore(now)) {
+                    result.add(tuple.get(0, Long.class));
+                }
+            }
+        }
+
+        LOGGER.debug("Found {} completed route ids for date={} at {}", result.size(), date, now);
+
+        return new ArrayList<>(result);
+    }
+
+    private List<LineStop> findDelaysAfter(Specifications<LineStop> specifications,
+                                           SingularAttribute<LineStop, TimeDelay> time,
+                                           LineStop last, TimeDelay lastTime,
+                                           int maxResults) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<LineStop> query = builder.createQuery(LineStop.class);
+        Root<LineStop> root = query.from(LineStop.class);
+        // A missing expected time is sorted first on any database
+        Expression<LocalTime> expectedTime = builder.coalesce(
+                root.get(time).get(TimeDelay_.expectedTime), LocalTime.MIDNIGHT);
+        Predicate predicate = specifications.toPredicate(root, query, builder);
+
+        if (last != null) {
+            LocalTime lastExpectedTime = lastTime != null && lastTime.getExpectedTime() != null ?
+                    lastTime.getExpectedTime() : LocalTime.MIDNIGHT;
+
+            predicate = builder.and(predicate, builder.or(
+                    builder.greaterThan(expectedTime, lastExpectedTime),
+                    builder.and(
+                            builder.equal(expectedTime, lastExpectedTime),
+                            builder.greaterThan(root.get(LineStop_.id), last.getId()))));
+        }
+
+        // The processors need the neighbours of each line stop: we fetch them with the page
+        root.fetch(LineStop_.trainLine);
+        root.fetch(LineStop_.station);
+        root.fetch(LineStop_.previous, JoinType.LEFT);
+        root.fetch(LineStop_.next, JoinType.LEFT);
+
+        query.select(root)
+                .where(predicate)
+                .orderBy(builder.asc(expectedTime), builder.asc(root.get(LineStop_.id)));
+
+        List<LineStop> result = entityManager.createQuery(query)
+                .setMaxResults(maxResults)
+                .getResultList();
+
+        LOGGER.debug("Retrieved {} delays up to id={}",
+                result.size(), result.isEmpty() ? null : result.get(result.size() - 1).getId());
+
+        return result;
+    }
+
     private Page<LineStop> findAll(Specifications<LineStop> specifications, Pageable pageable) {
         CriteriaBuilder builder = entityManager.getCriteriaBuilder();
         CriteriaQuery<LineStop> query = builder.createQuery(LineStop.class);
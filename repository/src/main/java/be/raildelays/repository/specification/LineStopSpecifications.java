@@ -31,10 +31,14 @@ import org.springframework.data.jpa.domain.Specification;
 
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Subquery;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * A class which is used to create {@link Specification} objects which are used
@@ -50,6 +54,11 @@ public class LineStopSpecifications {
 
     /**
      * Creates a specification used to find LineStop whose Station equals the expectedTime one.
+     * <p>
+     * The comparison is case-insensitive and is done within a sub-query on the upper case columns of the station to
+     * use their index. The sub-query returns station ids, then the index on the date and the station of a line stop
+     * can also be used.
+     * </p>
      *
      * @param station for which we should match the name
      * @return a predicate or null if all of name in each language are null
@@ -58,17 +67,24 @@ public class LineStopSpecifications {
 
         return (root, query, builder) -> {
             Predicate predicate = null;
-            Path<Station> path = root.get(LineStop_.station);
+            Subquery<Long> subQuery = query.subquery(Long.class);
+            Root<Station> stationRoot = subQuery.from(Station.class);
+            Predicate namePredicate = null;
 
             if (StringUtils.isNotBlank(station.getEnglishName())) {
-                predicate = builder.and(builder.equal(builder.upper(path.get(Station_.englishName)),
-                        station.getEnglishName().toUpperCase(Locale.ENGLISH)));
+                namePredicate = builder.equal(stationRoot.get(Station_.englishNameUpper),
+                        station.getEnglishName().toUpperCase(Locale.ENGLISH));
             } else if (StringUtils.isNotBlank(station.getFrenchName())) {
-                predicate = builder.and(builder.equal(builder.upper(path.get(Station_.frenchName)),
-                        station.getFrenchName().toUpperCase(Locale.ENGLISH)));
+                namePredicate = builder.equal(stationRoot.get(Station_.frenchNameUpper),
+                        station.getFrenchName().toUpperCase(Locale.ENGLISH));
             } else if (StringUtils.isNotBlank(station.getDutchName())) {
-                predicate = builder.and(builder.equal(builder.upper(path.get(Station_.dutchName)),
-                        station.getDutchName().toUpperCase(Locale.ENGLISH)));
+                namePredicate = builder.equal(stationRoot.get(Station_.dutchNameUpper),
+                        station.getDutchName().toUpperCase(Locale.ENGLISH));
+            }
+
+            if (namePredicate != null) {
+                subQuery.select(stationRoot.get(Station_.id)).where(namePredicate);
+                predicate = root.get(LineStop_.station).get(Station_.id).in(subQuery);
             }
 
             return predicate;
@@ -95,6 +111,31 @@ public class LineStopSpecifications {
         };
     }
 
+    /**
+     * Creates a specification used to find LineStop whose TrainLine is one of the expectedTime ones.
+     *
+     * @param trainLines for which we should match the routeId
+     * @return a predicate
+     */
+    public static Specification<LineStop> trainsIn(final Collection<TrainLine> trainLines) {
+        return (root, query, builder) -> root.get(LineStop_.trainLine).get(TrainLine_.routeId).in(
+                trainLines.stream()
+                        .map(TrainLine::getRouteId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet())
+        );
+    }
+
+    /**
+     * Creates a specification used to find LineStop whose date is one of the expectedTime ones.
+     *
+     * @param dates for which we should have a match
+     * @return a predicate
+     */
+    public static Specification<LineStop> datesIn(final Collection<LocalDate> dates) {
+        return (root, query, builder) -> root.get(LineStop_.date).in(dates);
+    }
+
     /**
      * Creates a specification used to find LineStop whose date equals the expectedTime one.
      *
@@ -0,0 +1,355 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.httpclient;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.conn.params.ConnRoutePNames;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.params.HttpProtocolParams;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link RequestStreamer} sharing one pooled HTTP client between all its requests.
+ * <p>
+ * The client is built at the first request with its proxy and its credentials. Connections are kept alive and
+ * re-used, with at most {@code maxConnectionsPerRoute} connections per host. The response is not buffered: the
+ * {@link Reader} of a {@link Stream} reads the connection and must be read until its end or closed to give back
+ * the connection to the pool.
+ * </p>
+ * <p>
+ * An optional {@link RateLimiter} is acquired before each request and told about the status of the response. The
+ * request is in progress until its {@link Reader} is read until its end or closed: only then its permit is released.
+ * </p>
+ * <p>
+ * {@link #streamAsync(Request)} runs {@link #stream(Request)} with an {@link Executor}. By default, it's a pool of
+ * {@code maxConnectionsPerRoute} daemon threads.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @since 2.0
+ */
+public abstract class AbstractHttpRequestStreamer<T extends Request> implements RequestStreamer<T>, Closeable {
+
+    public static final String USER_AGENT = "Mozilla/4.0 (compatible; MSIE 7.0; Windows NT 5.1; custom; .NET CLR 1.1.4322; InfoPath.1; .NET CLR 2.0.50727; InfoPath.2; custom; custom)";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractHttpRequestStreamer.class);
+
+    private String proxyHost;
+    private Integer proxyPort;
+    private String username;
+    private String password;
+    private String userAgent = USER_AGENT;
+    private int maxConnections = 20;
+    private int maxConnectionsPerRoute = 4;
+    private int connectTimeout = 10000;
+    private int socketTimeout = 30000;
+    private RateLimiter rateLimiter;
+    private Executor executor;
+    private ExecutorService defaultExecutor;
+    private DefaultHttpClient httpClient;
+
+    @Override
+    public CompletableFuture<Stream<T>> streamAsync(T request) {
+        return CompletableFuture.supplyAsync(() -> stream(request), getExecutor());
+    }
+
+    /**
+     * Do an HTTP GET to request a page.
+     * Return the result as a stream to be parsed.
+     *
+     * @param root       scheme, host and port of your request
+     * @param path       to your request
+     * @param parameters of your request
+     * @return a {@link Reader} on the response or {@code null} if the server has returned an error
+     */
+    protected Reader httpGet(String root, String path, Map<String, Object> parameters) {
+        Reader result = null;
+        int statusCode = -1;
+
+        try {
+            URIBuilder uriBuilder = new URIBuilder(root).setPath(path);
+
+            parameters.forEach((key, value) -> uriBuilder.addParameter(key, String.valueOf(value)));
+
+            HttpGet httpGet = new HttpGet(uriBuilder.build());
+
+            LOGGER.debug("URI={}", httpGet.getURI());
+
+            acquire();
+
+            try {
+                HttpResponse response = getHttpClient().execute(httpGet);
+                StatusLine statusLine = response.getStatusLine();
+                HttpEntity entity = response.getEntity();
+
+                statusCode = statusLine.getStatusCode();
+
+                if (statusCode < 400 && entity != null) {
+                    Charset charset = ContentType.getOrDefault(entity).getCharset();
+                    Reader reader = new InputStreamReader(entity.getContent(),
+                            charset != null ? charset : StandardCharsets.ISO_8859_1);
+
+                    result = rateLimiter != null ? new RateLimitedReader(reader, rateLimiter, statusCode) : reader;
+                } else {
+                    LOGGER.error("Unexpected error: {} : {}", statusCode, statusLine.getReasonPhrase());
+
+                    EntityUtils.consume(entity);
+                }
+            } finally {
+                // On success the permit is given back by the RateLimitedReader once the body has been consumed
+                if (rateLimiter != null && result == null) {
+                    rateLimiter.release(statusCode);
+                }
+            }
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid URI: root=" + root + " path=" + path, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("I/O error when requesting: root=" + root + " path=" + path, e);
+        }
+
+        return result;
+    }
+
+    private void acquire() throws InterruptedIOException {
+        if (rateLimiter != null) {
+            try {
+                rateLimiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new InterruptedIOException("Interrupted while waiting for the rate limiter");
+            }
+        }
+    }
+
+    /**
+     * {@link Reader} giving back the permit of the {@link RateLimiter} when the body of the response has been read
+     * until its end or when it's closed, whichever comes first. Then the request is considered in progress as long as
+     * its connection is used.
+     */
+    private static class RateLimitedReader extends FilterReader {
+
+        private final RateLimiter rateLimiter;
+        private final int statusCode;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private RateLimitedReader(Reader reader, RateLimiter rateLimiter, int statusCode) {
+            super(reader);
+            this.rateLimiter = rateLimiter;
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return releaseAtEnd(super.read());
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            return releaseAtEnd(super.read(buffer, offset, length));
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                release();
+            }
+        }
+
+        private int releaseAtEnd(int result) {
+            if (result < 0) {
+                release();
+            }
+
+            return result;
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                rateLimiter.release(statusCode);
+            }
+        }
+    }
+
+    /**
+     * @return the client shared by all requests, built at the first call
+     */
+    protected synchronized HttpClient getHttpClient() {
+        if (httpClient == null) {
+            PoolingClientConnectionManager connectionManager =
+                    new PoolingClientConnectionManager(SchemeRegistryFactory.createDefault());
+
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+            httpClient = new DefaultHttpClient(connectionManager);
+
+            HttpParams params = httpClient.getParams();
+
+            HttpProtocolParams.setUserAgent(params, userAgent != null && !userAgent.isEmpty() ? userAgent : USER_AGENT);
+            HttpConnectionParams.setConnectionTimeout(params, connectTimeout);
+            HttpConnectionParams.setSoTimeout(params, socketTimeout);
+            params.setLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, socketTimeout);
+
+            if (proxyHost != null && !proxyHost.isEmpty() && proxyPort != null) {
+                params.setParameter(ConnRoutePNames.DEFAULT_PROXY, new HttpHost(proxyHost, proxyPort, "http"));
+
+                if (username != null && !username.isEmpty() && password != null && !password.isEmpty()) {
+                    httpClient.getCredentialsProvider().setCredentials(
+                            new AuthScope(proxyHost, proxyPort),
+                            new UsernamePasswordCredentials(username, password)
+                    );
+                }
+            }
+        }
+
+        return httpClient;
+    }
+
+    private synchronized Executor getExecutor() {
+        Executor result = executor;
+
+        if (result == null) {
+            if (defaultExecutor == null) {
+                AtomicInteger count = new AtomicInteger();
+
+                defaultExecutor = Executors.newFixedThreadPool(maxConnectionsPerRoute, runnable -> {
+                    Thread thread = new Thread(runnable, "request-streamer-" + count.incrementAndGet());
+
+                    thread.setDaemon(true);
+
+                    return thread;
+                });
+            }
+
+            result = defaultExecutor;
+        }
+
+        return result;
+    }
+
+    /**
+     * Shutdown the pool of connections and the default {@link Executor}.
+     */
+    @Override
+    public synchronized void close() {
+        if (httpClient != null) {
+            httpClient.getConnectionManager().shutdown();
+            httpClient = null;
+        }
+
+        if (defaultExecutor != null) {
+            defaultExecutor.shutdown();
+            defaultExecutor = null;
+        }
+    }
+
+    public void setProxyHost(String proxyHost) {
+        this.proxyHost = proxyHost;
+    }
+
+    public void setProxyPort(Integer proxyPort) {
+        this.proxyPort = proxyPort;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public void setUserAgent(String userAgent) {
+        this.userAgent = userAgent;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public void setSocketTimeout(int socketTimeout) {
+        this.socketTimeout = socketTimeout;
+    }
+
+    /**
+     * @param rateLimiter shared by all streamers requesting the same host, by default there is no limit
+     */
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * @param executor used by {@link #streamAsync(Request)}, by default it's a pool of
+     *                 {@code maxConnectionsPerRoute} daemon threads
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+}
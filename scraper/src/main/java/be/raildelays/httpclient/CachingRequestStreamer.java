@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.httpclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Reader;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * {@link RecordingRequestStreamer} serving the responses already recorded instead of calling its delegate.
+ * <p>
+ * Only the requests accepted by the {@code cacheable} predicate are cached (e.g.: requests on past dates for which
+ * data never change). The size of the cache is limited by the {@code maxSize} of its {@link ResponseArchive}.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @since 2.0
+ */
+public class CachingRequestStreamer<T extends Request> extends RecordingRequestStreamer<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingRequestStreamer.class);
+
+    private Predicate<T> cacheable = request -> true;
+
+    public CachingRequestStreamer() {
+    }
+
+    public CachingRequestStreamer(RequestStreamer<T> delegate, ResponseArchive archive) {
+        super(delegate, archive);
+    }
+
+    @Override
+    public Stream<T> stream(T request) {
+        Stream<T> result = get(request);
+
+        return result != null ? result : super.stream(request);
+    }
+
+    @Override
+    public CompletableFuture<Stream<T>> streamAsync(T request) {
+        Stream<T> result = get(request);
+
+        return result != null ? CompletableFuture.completedFuture(result) : super.streamAsync(request);
+    }
+
+    @Override
+    protected boolean isRecorded(T request) {
+        return cacheable.test(request);
+    }
+
+    /**
+     * @return the cached response of this request or {@code null} if it's not cached
+     */
+    private Stream<T> get(T request) {
+        Stream<T> result = null;
+
+        if (cacheable.test(request)) {
+            Reader reader = archive.get(request);
+
+            if (reader != null) {
+                LOGGER.debug("Cache hit for {}", request);
+
+                result = new DefaultStream<>(reader, request);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @param cacheable only the requests accepted by this predicate are cached, by default all requests are
+     */
+    public void setCacheable(Predicate<T> cacheable) {
+        this.cacheable = cacheable;
+    }
+}
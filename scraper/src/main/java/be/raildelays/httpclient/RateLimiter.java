@@ -0,0 +1,186 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.httpclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket limiting the rate and the concurrency of the requests sent to one host.
+ * <p>
+ * The bucket is refilled with {@code permitsPerSecond} tokens per second up to {@code burst} tokens. A thread only
+ * waits when the bucket is empty and, in that case, a random delay between 0 and {@code jitter} milliseconds is
+ * added to avoid that all waiting threads hit the server at the same time. At most {@code maxConcurrentRequests}
+ * requests can be in progress.
+ * </p>
+ * <p>
+ * When the server answers with an HTTP 429 or 5xx, all requests are delayed by a back-off starting at
+ * {@code initialBackOff} milliseconds and doubled at each new failure up to {@code maxBackOff} milliseconds. The
+ * first successful response resets the back-off.
+ * </p>
+ * <p>
+ * Each call to {@link #acquire()} must be followed by a call to {@link #release(int)}.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @since 2.0
+ */
+public class RateLimiter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RateLimiter.class);
+
+    private double permitsPerSecond = 1.0;
+    private int burst = 1;
+    private long jitter = 500;
+    private int maxConcurrentRequests = 4;
+    private long initialBackOff = 5000;
+    private long maxBackOff = 300000;
+    private LongSupplier clock = () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    private Semaphore concurrentRequests;
+    private double tokens = Double.NaN;
+    private long lastRefill;
+    private long backOff;
+    private long backOffUntil;
+
+    /**
+     * Block until a token is available and the number of requests in progress is below the limit.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        long waitTime = reserve();
+
+        if (waitTime > 0) {
+            waitTime += ThreadLocalRandom.current().nextLong(jitter + 1);
+
+            LOGGER.debug("Waiting {} milliseconds...", waitTime);
+
+            sleep(waitTime);
+        }
+
+        getConcurrentRequests().acquire();
+    }
+
+    /**
+     * Give back the permit of a request and adapt the back-off to the response of the server.
+     *
+     * @param statusCode HTTP status of the response or a negative value if there is no response
+     */
+    public void release(int statusCode) {
+        getConcurrentRequests().release();
+
+        synchronized (this) {
+            if (statusCode == 429 || statusCode >= 500) {
+                backOff = backOff == 0 ? initialBackOff : Math.min(backOff * 2, maxBackOff);
+                backOffUntil = now() + backOff;
+
+                LOGGER.warn("The server answered {}, backing off for {} milliseconds", statusCode, backOff);
+            } else if (statusCode >= 0) {
+                backOff = 0;
+            }
+        }
+    }
+
+    /**
+     * Take a token from the bucket, even if it's empty.
+     *
+     * @return the number of milliseconds to wait before the token can be used
+     */
+    private synchronized long reserve() {
+        long now = now();
+
+        if (Double.isNaN(tokens)) {
+            tokens = burst;
+        } else {
+            tokens = Math.min(burst, tokens + (now - lastRefill) * permitsPerSecond / 1000.0);
+        }
+
+        lastRefill = now;
+        tokens -= 1;
+
+        long result = tokens < 0 ? (long) Math.ceil(-tokens * 1000.0 / permitsPerSecond) : 0;
+
+        return Math.max(result, backOffUntil - now);
+    }
+
+    private synchronized Semaphore getConcurrentRequests() {
+        if (concurrentRequests == null) {
+            concurrentRequests = new Semaphore(maxConcurrentRequests, true);
+        }
+
+        return concurrentRequests;
+    }
+
+    /**
+     * Wait for a given amount of time. Exposed to be able to test this class without waiting.
+     *
+     * @param milliseconds to wait
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    protected void sleep(long milliseconds) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(milliseconds);
+    }
+
+    private long now() {
+        return clock.getAsLong();
+    }
+
+    public void setPermitsPerSecond(double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    public void setJitter(long jitter) {
+        this.jitter = jitter;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public void setInitialBackOff(long initialBackOff) {
+        this.initialBackOff = initialBackOff;
+    }
+
+    public void setMaxBackOff(long maxBackOff) {
+        this.maxBackOff = maxBackOff;
+    }
+
+    /**
+     * @param clock returning a monotonic time in milliseconds, by default it's based on {@link System#nanoTime()}
+     */
+    public void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+}
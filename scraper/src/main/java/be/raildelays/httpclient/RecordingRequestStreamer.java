@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.httpclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link RequestStreamer} writing each raw response of a delegate into a {@link ResponseArchive}.
+ * <p>
+ * An error response (i.e.: a {@code null} reader) is never recorded. The archive can then be replayed by a
+ * {@link ReplayingRequestStreamer}.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @since 2.0
+ */
+public class RecordingRequestStreamer<T extends Request> implements RequestStreamer<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecordingRequestStreamer.class);
+
+    protected RequestStreamer<T> delegate;
+    protected ResponseArchive archive;
+
+    public RecordingRequestStreamer() {
+    }
+
+    public RecordingRequestStreamer(RequestStreamer<T> delegate, ResponseArchive archive) {
+        this.delegate = delegate;
+        this.archive = archive;
+    }
+
+    @Override
+    public Stream<T> stream(T request) {
+        return record(delegate.stream(request));
+    }
+
+    @Override
+    public CompletableFuture<Stream<T>> streamAsync(T request) {
+        return delegate.streamAsync(request).thenApply(this::record);
+    }
+
+    /**
+     * @return {@code true} if the response of this request must be recorded, by default all responses are
+     */
+    protected boolean isRecorded(T request) {
+        return true;
+    }
+
+    /**
+     * Record a response if possible.
+     *
+     * @return a stream on the same response as the one given
+     */
+    protected Stream<T> record(Stream<T> stream) {
+        Stream<T> result = stream;
+
+        if (stream != null && stream.getReader() != null && isRecorded(stream.getRequest())) {
+            String content;
+
+            try (Reader reader = stream.getReader()) {
+                content = ResponseArchive.read(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read the response of " + stream.getRequest(), e);
+            }
+
+            try {
+                archive.put(stream.getRequest(), content);
+            } catch (IOException e) {
+                LOGGER.warn("Cannot record the response of {}: {}", stream.getRequest(), e.toString());
+            }
+
+            result = new DefaultStream<>(new StringReader(content), stream.getRequest());
+        }
+
+        return result;
+    }
+
+    public void setDelegate(RequestStreamer<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    public void setArchive(ResponseArchive archive) {
+        this.archive = archive;
+    }
+}
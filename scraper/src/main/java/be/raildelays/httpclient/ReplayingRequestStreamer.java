@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.httpclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Reader;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link RequestStreamer} serving the responses of a {@link ResponseArchive} without any network access.
+ * <p>
+ * A request which has not been recorded gets an empty stream (i.e.: a {@code null} reader) like if the server
+ * answered with an error.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @since 2.0
+ */
+public class ReplayingRequestStreamer<T extends Request> implements RequestStreamer<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplayingRequestStreamer.class);
+
+    private ResponseArchive archive;
+
+    public ReplayingRequestStreamer() {
+    }
+
+    public ReplayingRequestStreamer(ResponseArchive archive) {
+        this.archive = archive;
+    }
+
+    @Override
+    public Stream<T> stream(T request) {
+        Reader reader = archive.get(request);
+
+        if (reader == null) {
+            LOGGER.warn("No recorded response for {}", request);
+        }
+
+        return new DefaultStream<>(reader, request);
+    }
+
+    @Override
+    public CompletableFuture<Stream<T>> streamAsync(T request) {
+        return CompletableFuture.completedFuture(stream(request));
+    }
+
+    public void setArchive(ResponseArchive archive) {
+        this.archive = archive;
+    }
+}
@@ -24,6 +24,8 @@
 
 package be.raildelays.httpclient;
 
+import java.util.concurrent.CompletableFuture;
+
 @FunctionalInterface
 public interface RequestStreamer<T extends Request> {
 
@@ -33,4 +35,14 @@ public interface RequestStreamer<T extends Request> {
      * @return an HTML content as a stream to parse
      */
     public Stream<T> stream(T request);
+
+    /**
+     * Asynchronous request. By default, {@link #stream(Request)} is run by the common
+     * {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @return a future HTML content as a stream to parse
+     */
+    default CompletableFuture<Stream<T>> streamAsync(T request) {
+        return CompletableFuture.supplyAsync(() -> stream(request));
+    }
 }
@@ -0,0 +1,235 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.httpclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Directory of raw responses indexed by their {@link Request}.
+ * <p>
+ * Each response is stored in a GZIP file named after the SHA-256 of the request type and of its parameters, then two
+ * equal requests share the same file. An index of the files is built from the directory at first use, from the least
+ * to the most recently used. When the total size of the files exceeds {@code maxSize} bytes, the least recently used
+ * files are deleted. The last modification time of a file is updated at each read to keep this order across
+ * executions.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @since 2.0
+ */
+public class ResponseArchive {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResponseArchive.class);
+
+    private static final String EXTENSION = ".json.gz";
+
+    private final Path directory;
+    private long maxSize = Long.MAX_VALUE;
+    private Map<String, Long> index;
+    private long size;
+
+    public ResponseArchive(File directory) {
+        this.directory = directory.toPath();
+    }
+
+    /**
+     * @return the archived response of this request or {@code null} if there is none
+     */
+    public Reader get(Request request) {
+        Reader result = null;
+        String key = key(request);
+        Path file = directory.resolve(key + EXTENSION);
+
+        if (touch(key)) {
+            try {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                result = new StringReader(read(file));
+            } catch (NoSuchFileException e) {
+                remove(key);
+            } catch (IOException e) {
+                LOGGER.warn("Cannot read archived response {}: {}", file, e.toString());
+                remove(key);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Archive the response of a request, replacing any previous one.
+     *
+     * @throws IOException if the response cannot be written
+     */
+    public void put(Request request, String content) throws IOException {
+        String key = key(request);
+        Path file = directory.resolve(key + EXTENSION);
+
+        getIndex(); // Make sure the directory exists
+
+        Path temporary = Files.createTempFile(directory, key, ".tmp");
+
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(temporary)),
+                StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        add(key, Files.size(file));
+    }
+
+    private static String read(Path file) throws IOException {
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)),
+                StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    static String read(Reader reader) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[4096];
+
+        for (int length = reader.read(buffer); length >= 0; length = reader.read(buffer)) {
+            builder.append(buffer, 0, length);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * @return {@code true} if this key is in the index and then mark it as the most recently used
+     */
+    private synchronized boolean touch(String key) {
+        return getIndex().get(key) != null;
+    }
+
+    private synchronized void add(String key, long length) {
+        Long previous = getIndex().put(key, length);
+
+        size += length - (previous != null ? previous : 0);
+
+        Iterator<Map.Entry<String, Long>> iterator = index.entrySet().iterator();
+
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+
+            if (!eldest.getKey().equals(key)) {
+                try {
+                    Files.deleteIfExists(directory.resolve(eldest.getKey() + EXTENSION));
+                } catch (IOException e) {
+                    LOGGER.warn("Cannot evict {}: {}", eldest.getKey(), e.toString());
+                }
+
+                size -= eldest.getValue();
+                iterator.remove();
+            }
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long length = getIndex().remove(key);
+
+        if (length != null) {
+            size -= length;
+        }
+    }
+
+    private synchronized Map<String, Long> getIndex() {
+        if (index == null) {
+            index = new LinkedHashMap<>(16, 0.75f, true);
+
+            try {
+                Files.createDirectories(directory);
+
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+                    List<Path> sorted = new ArrayList<>();
+
+                    files.forEach(sorted::add);
+                    sorted.sort(Comparator.comparing(file -> file.toFile().lastModified()));
+
+                    for (Path file : sorted) {
+                        String name = file.getFileName().toString();
+                        long length = Files.size(file);
+
+                        index.put(name.substring(0, name.length() - EXTENSION.length()), length);
+                        size += length;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot build the index of " + directory, e);
+            }
+
+            LOGGER.info("Archive {} contains {} responses for {} bytes", directory, index.size(), size);
+        }
+
+        return index;
+    }
+
+    /**
+     * @return a SHA-256 in hexadecimal of the type and of the parameters of the request
+     */
+    static String key(Request request) {
+        String parameters = new TreeMap<>(request.getParameters()).entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining("&", request.getClass().getName() + "?", ""));
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(parameters.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder(digest.length * 2);
+
+            for (byte b : digest) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * @param maxSize maximum number of bytes of this archive, by default it's unlimited
+     */
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+}
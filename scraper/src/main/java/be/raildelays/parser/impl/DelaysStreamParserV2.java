@@ -0,0 +1,174 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.parser.impl;
+
+import be.raildelays.delays.Delays;
+import be.raildelays.delays.TimeDelay;
+import be.raildelays.domain.Language;
+import be.raildelays.domain.entities.LineStop;
+import be.raildelays.domain.entities.Station;
+import be.raildelays.domain.entities.TrainLine;
+import be.raildelays.httpclient.Stream;
+import be.raildelays.httpclient.impl.DelaysRequestV2;
+import be.raildelays.parser.StreamParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Stream parser for data coming from HAFAS interface of SNCB/NMBS.
+ * <p>
+ * The response of {@code trainsearch.exe} is read with a {@link JsonPullReader}: each stop object of the first
+ * array is turned into a {@link LineStop.Builder} as soon as it's read and the rest of the document is ignored. The
+ * {@link Reader} of the {@link Stream} is always closed by {@link #parse(Stream)}.
+ * Stops where the train does not stop (empty arrival or departure time) are skipped.
+ * </p>
+ *
+ * @author Almex
+ * @implSpec This implementation is thread-safe
+ * @since 1.2
+ */
+public class DelaysStreamParserV2 implements StreamParser<LineStop, DelaysRequestV2> {
+
+    @Override
+    public LineStop parse(Stream<DelaysRequestV2> stream) {
+        LineStop.Builder result = null;
+
+        if (stream.getReader() != null) {
+            // We stop after the first array, closing the reader gives back the connection of the response to its pool
+            try (Reader reader = stream.getReader()) {
+                result = map(new JsonPullReader(reader), stream.getRequest());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot parse the response of " + stream.getRequest(), e);
+            }
+        }
+
+        return result != null ? result.build() : null;
+    }
+
+    private static LineStop.Builder map(JsonPullReader json, DelaysRequestV2 request) throws IOException {
+        LineStop.Builder result = null;
+        LineStop.Builder tail = null;
+
+        json.beginArray();
+
+        if (json.hasNext()) {
+            json.beginArray();
+
+            while (json.hasNext()) {
+                LineStop.Builder builder = readStop(json, request.getDay(), request.getLanguage());
+
+                if (builder != null) {
+                    if (result == null) {
+                        result = builder;
+                    } else {
+                        tail.addNext(builder); // The tail has no next, then it's appended in constant time
+                    }
+
+                    tail = builder;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return a {@link LineStop.Builder} or {@code null} if the train does not stop at this station
+     */
+    private static LineStop.Builder readStop(JsonPullReader json, LocalDate date, Language language)
+            throws IOException {
+        LineStop.Builder result = null;
+        String station = null;
+        String arrivalTime = null;
+        String departureTime = null;
+        String trainId = null;
+        Long arrivalDelay = null;
+        Long departureDelay = null;
+        Long canceledArrival = null;
+        Long canceledDeparture = null;
+
+        json.beginObject();
+
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "cs":
+                    station = json.nextString();
+                    break;
+                case "csAt":
+                    arrivalTime = json.nextString();
+                    break;
+                case "csDt":
+                    departureTime = json.nextString();
+                    break;
+                case "tNr":
+                    trainId = json.nextString();
+                    break;
+                case "dA":
+                    arrivalDelay = json.nextLong();
+                    break;
+                case "dD":
+                    departureDelay = json.nextLong();
+                    break;
+                case "sA":
+                    canceledArrival = json.nextLong();
+                    break;
+                case "sD":
+                    canceledDeparture = json.nextLong();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+
+        json.endObject();
+
+        if (!"".equals(arrivalTime) && !"".equals(departureTime)) {
+            result = new LineStop.Builder()
+                    .date(date)
+                    .trainLine(trainId != null ? new TrainLine.Builder(Long.parseLong(trainId)).build() : null)
+                    .station(station != null ? new Station(station, language) : null)
+                    .departureTime(getTime(departureTime, departureDelay))
+                    .arrivalTime(getTime(arrivalTime, arrivalDelay))
+                    .canceledDeparture(canceledDeparture != null && canceledDeparture == 1)
+                    .canceledArrival(canceledArrival != null && canceledArrival == 1);
+        }
+
+        return result;
+    }
+
+    private static TimeDelay getTime(String time, Long delay) {
+        TimeDelay result = null;
+
+        if (time != null) {
+            result = TimeDelay.of(LocalTime.parse(time), delay != null ? Delays.toMillis(delay) : 0L);
+        }
+
+        return result;
+    }
+}
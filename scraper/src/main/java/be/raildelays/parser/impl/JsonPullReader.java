@@ -0,0 +1,271 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Almex
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+package be.raildelays.parser.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal pull parser of a JSON document: values are read one by one from a buffered {@link Reader} without building
+ * any tree.
+ * <p>
+ * The caller drives the parsing with {@link #beginArray()}, {@link #beginObject()}, {@link #hasNext()},
+ * {@link #nextName()}, ... like in Gson's {@code JsonReader}. Commas and colons are checked lazily: this reader is
+ * lenient and does not validate the whole document.
+ * </p>
+ *
+ * @author Almex
+ * @implNote This implementation is not thread-safe: use one instance per document
+ * @since 2.0
+ */
+final class JsonPullReader {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder text = new StringBuilder();
+    private int position;
+    private int limit;
+
+    JsonPullReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    void beginArray() throws IOException {
+        expect('[');
+    }
+
+    void endArray() throws IOException {
+        expect(']');
+    }
+
+    void beginObject() throws IOException {
+        expect('{');
+    }
+
+    void endObject() throws IOException {
+        expect('}');
+    }
+
+    /**
+     * @return {@code true} if the current array or object has another element
+     */
+    boolean hasNext() throws IOException {
+        int c = peek();
+
+        if (c == ',') {
+            position++;
+            c = peek();
+        }
+
+        return c != ']' && c != '}' && c != -1;
+    }
+
+    /**
+     * @return the name of the next property of the current object
+     */
+    String nextName() throws IOException {
+        String result = nextString();
+
+        expect(':');
+
+        return result;
+    }
+
+    /**
+     * @return the next value as a {@link String}, a number or a boolean is returned as its text
+     */
+    String nextString() throws IOException {
+        String result;
+        int c = peek();
+
+        if (c == '"') {
+            position++;
+            result = readQuoted();
+        } else {
+            result = readLiteral();
+
+            if ("null".equals(result)) {
+                result = null;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the next value as a {@link Long} or {@code null} if it's {@code null} or an empty {@link String}
+     * @throws NumberFormatException if the value is not an integer
+     */
+    Long nextLong() throws IOException {
+        String value = nextString();
+
+        return value != null && !value.isEmpty() ? Long.valueOf(value) : null;
+    }
+
+    /**
+     * Skip the next value including all its nested arrays and objects.
+     */
+    void skipValue() throws IOException {
+        int depth = 0;
+
+        do {
+            int c = peek();
+
+            if (c == '[' || c == '{') {
+                position++;
+                depth++;
+            } else if (c == ']' || c == '}') {
+                position++;
+                depth--;
+            } else if (c == ',' || c == ':') {
+                position++;
+            } else if (c == -1) {
+                throw syntaxError("Unexpected end of document");
+            } else {
+                nextString();
+            }
+        } while (depth > 0);
+    }
+
+    private String readQuoted() throws IOException {
+        text.setLength(0);
+
+        while (true) {
+            if (position == limit && !fill()) {
+                throw syntaxError("Unterminated string");
+            }
+
+            char c = buffer[position++];
+
+            if (c == '"') {
+                return text.toString();
+            } else if (c == '\\') {
+                text.append(readEscaped());
+            } else {
+                text.append(c);
+            }
+        }
+    }
+
+    private char readEscaped() throws IOException {
+        if (position == limit && !fill()) {
+            throw syntaxError("Unterminated escape sequence");
+        }
+
+        char c = buffer[position++];
+
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int result = 0;
+
+                for (int i = 0; i < 4; i++) {
+                    if (position == limit && !fill()) {
+                        throw syntaxError("Unterminated escape sequence");
+                    }
+
+                    result = (result << 4) + Character.digit(buffer[position++], 16);
+                }
+
+                return (char) result;
+            default:
+                return c;
+        }
+    }
+
+    private String readLiteral() throws IOException {
+        text.setLength(0);
+
+        while (position < limit || fill()) {
+            char c = buffer[position];
+
+            if (c == ',' || c == ':' || c == ']' || c == '}' || Character.isWhitespace(c)) {
+                break;
+            }
+
+            text.append(c);
+            position++;
+        }
+
+        if (text.length() == 0) {
+            throw syntaxError("Expected a value");
+        }
+
+        return text.toString();
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = peek();
+
+        if (c != expected) {
+            throw syntaxError("Expected '" + expected + "' but was " + (c == -1 ? "end of document" : "'" + (char) c + "'"));
+        }
+
+        position++;
+    }
+
+    /**
+     * @return the next character which is not a white space without consuming it or -1 at the end of the document
+     */
+    private int peek() throws IOException {
+        while (position < limit || fill()) {
+            char c = buffer[position];
+
+            if (!Character.isWhitespace(c)) {
+                return c;
+            }
+
+            position++;
+        }
+
+        return -1;
+    }
+
+    private boolean fill() throws IOException {
+        limit = reader.read(buffer, 0, buffer.length);
+        position = 0;
+
+        if (limit < 0) {
+            limit = 0;
+        }
+
+        return limit > 0;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed JSON: " + message);
+    }
+}
@@ -0,0 +1,201 @@
+package be.raildelays.httpclient;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+
+import java.io.BufferedReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Almex
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class AbstractHttpRequestStreamerTest {
+
+    private static final String KEY = "trainId";
+
+    private HttpServer server;
+    private AbstractHttpRequestStreamer<Request> streamer;
+    private Set<Integer> remotePorts = Collections.synchronizedSet(new HashSet<>());
+    private AtomicInteger concurrentRequests = new AtomicInteger();
+    private AtomicInteger maxConcurrentRequests = new AtomicInteger();
+    private volatile String userAgent;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/train", exchange -> {
+            int concurrent = concurrentRequests.incrementAndGet();
+
+            maxConcurrentRequests.accumulateAndGet(concurrent, Math::max);
+            remotePorts.add(exchange.getRemoteAddress().getPort());
+            userAgent = exchange.getRequestHeaders().getFirst("User-Agent");
+
+            try {
+                Thread.sleep(50);
+
+                byte[] body = ("query=" + exchange.getRequestURI().getQuery()).getBytes(StandardCharsets.UTF_8);
+
+                exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrentRequests.decrementAndGet();
+            }
+        });
+        server.createContext("/error", exchange -> {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        String root = "http://localhost:" + server.getAddress().getPort();
+
+        streamer = new AbstractHttpRequestStreamer<Request>() {
+            @Override
+            public Stream<Request> stream(Request request) {
+                return new DefaultStream<>(httpGet(root, request.getValue("path"), request.getParameters()), request);
+            }
+        };
+        streamer.setUserAgent("raildelays-test");
+        streamer.setMaxConnectionsPerRoute(2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        streamer.close();
+        server.stop(0);
+    }
+
+    private static Request request(String path, Object trainId) {
+        Request result = new AbstractRequest() {
+        };
+
+        result.setValue(path, "path", String.class);
+        result.setValue(trainId, KEY, Object.class);
+
+        return result;
+    }
+
+    private static String read(Stream<Request> stream) throws Exception {
+        try (Reader reader = stream.getReader()) {
+            return new BufferedReader(reader).lines().collect(Collectors.joining("\n"));
+        }
+    }
+
+    /**
+     * We expect the synchronous stream to contain the response of the server.
+     */
+    @Test
+    public void testStream() throws Exception {
+        String actual = read(streamer.stream(request("/train", 466)));
+
+        assertTrue(actual.contains("trainId=466"));
+        assertEquals("raildelays-test", userAgent);
+    }
+
+    /**
+     * We expect asynchronous requests to be limited by 'maxConnectionsPerRoute' and to re-use connections.
+     */
+    @Test
+    public void testStreamAsync() throws Exception {
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            futures.add(streamer.streamAsync(request("/train", i)).thenApply(stream -> {
+                try {
+                    return read(stream);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertTrue(futures.get(i).get(10, TimeUnit.SECONDS).contains("trainId=" + i));
+        }
+
+        assertTrue(maxConcurrentRequests.get() <= 2);
+        assertTrue(remotePorts.size() <= 2);
+    }
+
+    /**
+     * We expect no reader when the server returns an error.
+     */
+    @Test
+    public void testStreamError() throws Exception {
+        assertNull(streamer.stream(request("/error", 1)).getReader());
+    }
+
+    /**
+     * We expect a request to hold its permit of the rate limiter until its reader is closed.
+     */
+    @Test
+    public void testStreamRateLimiter() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter();
+
+        rateLimiter.setPermitsPerSecond(1000);
+        rateLimiter.setBurst(10);
+        rateLimiter.setJitter(0);
+        rateLimiter.setMaxConcurrentRequests(1);
+        streamer.setRateLimiter(rateLimiter);
+
+        Stream<Request> first = streamer.stream(request("/train", 1));
+        CompletableFuture<String> second = streamer.streamAsync(request("/train", 2)).thenApply(stream -> {
+            try {
+                return read(stream);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        try {
+            second.get(500, TimeUnit.MILLISECONDS);
+            fail("The second request should wait for the first reader to be closed");
+        } catch (TimeoutException e) {
+            assertFalse(second.isDone());
+        }
+        assertTrue(read(first).contains("trainId=1"));
+        assertTrue(second.get(10, TimeUnit.SECONDS).contains("trainId=2"));
+    }
+
+    /**
+     * We expect an error to give back its permit of the rate limiter immediately.
+     */
+    @Test
+    public void testStreamErrorRateLimiter() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter();
+
+        rateLimiter.setPermitsPerSecond(1000);
+        rateLimiter.setBurst(10);
+        rateLimiter.setJitter(0);
+        rateLimiter.setInitialBackOff(0);
+        rateLimiter.setMaxConcurrentRequests(1);
+        streamer.setRateLimiter(rateLimiter);
+
+        assertNull(streamer.stream(request("/error", 1)).getReader());
+        assertTrue(read(streamer.streamAsync(request("/train", 2)).get(10, TimeUnit.SECONDS)).contains("trainId=2"));
+    }
+}
@@ -0,0 +1,139 @@
+package be.raildelays.httpclient;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Almex
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class CachingRequestStreamerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AtomicInteger calls = new AtomicInteger();
+    private RequestStreamer<Request> delegate;
+    private ResponseArchive archive;
+    private CachingRequestStreamer<Request> streamer;
+
+    @Before
+    public void setUp() throws Exception {
+        delegate = request -> {
+            calls.incrementAndGet();
+
+            return new DefaultStream<>("error".equals(request.getValue("trainId")) ? null :
+                    new StringReader("[{\"trainId\":\"" + request.getValue("trainId") + "\"}]"), request);
+        };
+        archive = new ResponseArchive(folder.getRoot());
+        streamer = new CachingRequestStreamer<>(delegate, archive);
+    }
+
+    private static Request request(String trainId) {
+        Request result = new AbstractRequest() {
+        };
+
+        result.setValue(trainId, "trainId", String.class);
+
+        return result;
+    }
+
+    private static String read(Stream<Request> stream) throws Exception {
+        try (Reader reader = stream.getReader()) {
+            return new BufferedReader(reader).lines().collect(Collectors.joining("\n"));
+        }
+    }
+
+    /**
+     * We expect the second request to be served from the cache with the same content as the first one.
+     */
+    @Test
+    public void testStream() throws Exception {
+        String expected = read(streamer.stream(request("466")));
+        String actual = read(streamer.stream(request("466")));
+
+        assertEquals(expected, actual);
+        assertEquals(1, calls.get());
+        assertEquals(1, folder.getRoot().listFiles().length);
+    }
+
+    /**
+     * We expect a cache hit to be returned as a completed future.
+     */
+    @Test
+    public void testStreamAsync() throws Exception {
+        String expected = read(streamer.streamAsync(request("466")).get(1, TimeUnit.SECONDS));
+
+        assertTrue(streamer.streamAsync(request("466")).isDone());
+        assertEquals(expected, read(streamer.streamAsync(request("466")).get()));
+        assertEquals(1, calls.get());
+    }
+
+    /**
+     * We expect to find responses cached by a previous instance.
+     */
+    @Test
+    public void testIndex() throws Exception {
+        read(streamer.stream(request("466")));
+
+        streamer = new CachingRequestStreamer<>(delegate, new ResponseArchive(folder.getRoot()));
+
+        assertTrue(read(streamer.stream(request("466"))).contains("466"));
+        assertEquals(1, calls.get());
+    }
+
+    /**
+     * We expect to never cache an error or a request refused by the predicate.
+     */
+    @Test
+    public void testNotCacheable() throws Exception {
+        streamer.setCacheable(request -> !"477".equals(request.getValue("trainId")));
+
+        assertNull(streamer.stream(request("error")).getReader());
+        assertNull(streamer.stream(request("error")).getReader());
+        read(streamer.stream(request("477")));
+        read(streamer.stream(request("477")));
+
+        assertEquals(4, calls.get());
+        assertEquals(0, folder.getRoot().listFiles().length);
+    }
+
+    /**
+     * We expect the least recently used response to be evicted when the cache exceeds its maximum size.
+     */
+    @Test
+    public void testEviction() throws Exception {
+        read(streamer.stream(request("1")));
+
+        File[] files = folder.getRoot().listFiles();
+
+        assertNotNull(files);
+        archive.setMaxSize(files[0].length() * 2);
+
+        read(streamer.stream(request("2")));
+        read(streamer.stream(request("1")));
+        read(streamer.stream(request("3")));
+
+        assertEquals(2, folder.getRoot().listFiles().length);
+        assertEquals(3, calls.get());
+
+        read(streamer.stream(request("1")));
+        read(streamer.stream(request("2")));
+
+        assertEquals(4, calls.get());
+    }
+}
@@ -0,0 +1,108 @@
+package be.raildelays.httpclient;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Almex
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class RateLimiterTest {
+
+    private AtomicLong time;
+
+    private RateLimiter rateLimiter;
+
+    @Before
+    public void setUp() throws Exception {
+        time = new AtomicLong();
+        // Waiting only moves the clock forward, then we can check exact durations
+        rateLimiter = new RateLimiter() {
+            @Override
+            protected void sleep(long milliseconds) throws InterruptedException {
+                time.addAndGet(milliseconds);
+            }
+        };
+        rateLimiter.setClock(time::get);
+        rateLimiter.setPermitsPerSecond(20);
+        rateLimiter.setBurst(5);
+        rateLimiter.setJitter(0);
+        rateLimiter.setInitialBackOff(300);
+    }
+
+    private long request(int statusCode) throws InterruptedException {
+        long start = time.get();
+
+        rateLimiter.acquire();
+        rateLimiter.release(statusCode);
+
+        return time.get() - start;
+    }
+
+    /**
+     * We expect to not wait until the bucket is empty and then to be limited to 'permitsPerSecond'.
+     */
+    @Test
+    public void testAcquire() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, request(200));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(50, request(200));
+        }
+
+        assertEquals(500, time.get());
+    }
+
+    /**
+     * We expect to back-off after an HTTP 429 and to double the back-off at the next failure.
+     */
+    @Test
+    public void testBackOff() throws Exception {
+        assertEquals(0, request(429));
+        assertEquals(300, request(503));
+        assertEquals(600, request(200));
+        assertEquals(0, request(200));
+    }
+
+    /**
+     * We expect to block when 'maxConcurrentRequests' requests are in progress.
+     */
+    @Test
+    public void testMaxConcurrentRequests() throws Exception {
+        CountDownLatch acquired = new CountDownLatch(1);
+
+        rateLimiter.setMaxConcurrentRequests(1);
+        rateLimiter.acquire();
+
+        Thread thread = new Thread(() -> {
+            try {
+                rateLimiter.acquire();
+                acquired.countDown();
+                rateLimiter.release(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        thread.start();
+
+        assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+
+        rateLimiter.release(200);
+
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        assertEquals(0, acquired.getCount());
+    }
+}
@@ -0,0 +1,86 @@
+package be.raildelays.httpclient;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Almex
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class ReplayingRequestStreamerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AtomicInteger calls = new AtomicInteger();
+    private RecordingRequestStreamer<Request> recorder;
+    private ReplayingRequestStreamer<Request> replayer;
+
+    @Before
+    public void setUp() throws Exception {
+        RequestStreamer<Request> delegate = request -> new DefaultStream<>(
+                new StringReader("{\"call\":" + calls.incrementAndGet() + "}"), request);
+
+        recorder = new RecordingRequestStreamer<>(delegate, new ResponseArchive(folder.getRoot()));
+        replayer = new ReplayingRequestStreamer<>(new ResponseArchive(folder.getRoot()));
+    }
+
+    private static Request request(String trainId) {
+        Request result = new AbstractRequest() {
+        };
+
+        result.setValue(trainId, "trainId", String.class);
+
+        return result;
+    }
+
+    private static String read(Stream<Request> stream) throws Exception {
+        try (Reader reader = stream.getReader()) {
+            return new BufferedReader(reader).lines().collect(Collectors.joining("\n"));
+        }
+    }
+
+    /**
+     * We expect the recorder to always call its delegate and to keep the last response.
+     */
+    @Test
+    public void testRecord() throws Exception {
+        assertEquals("{\"call\":1}", read(recorder.stream(request("466"))));
+        assertEquals("{\"call\":2}", read(recorder.streamAsync(request("466")).get()));
+        assertEquals(2, calls.get());
+        assertEquals(1, folder.getRoot().listFiles().length);
+    }
+
+    /**
+     * We expect to replay the recorded responses without calling the delegate.
+     */
+    @Test
+    public void testReplay() throws Exception {
+        read(recorder.stream(request("466")));
+        read(recorder.stream(request("477")));
+
+        assertEquals("{\"call\":1}", read(replayer.stream(request("466"))));
+        assertEquals("{\"call\":2}", read(replayer.streamAsync(request("477")).get()));
+        assertEquals(2, calls.get());
+    }
+
+    /**
+     * We expect no reader for a request which has not been recorded.
+     */
+    @Test
+    public void testReplayMissing() throws Exception {
+        assertNull(replayer.stream(request("466")).getReader());
+    }
+}
@@ -0,0 +1,106 @@
+package be.raildelays.parser.impl;
+
+import be.raildelays.delays.Delays;
+import be.raildelays.delays.TimeDelay;
+import be.raildelays.domain.Language;
+import be.raildelays.domain.entities.LineStop;
+import be.raildelays.domain.entities.Station;
+import be.raildelays.domain.entities.TrainLine;
+import be.raildelays.httpclient.DefaultStream;
+import be.raildelays.httpclient.impl.DelaysRequestV2;
+import groovy.json.JsonParserType;
+import groovy.json.JsonSlurper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * JMH benchmark comparing {@link DelaysStreamParserV2} with the former implementation building a tree of
+ * {@link Map} with a {@link JsonSlurper}.
+ * <p>
+ * It's not executed during the build. Run it with the {@link #main(String[])} method from the test classpath.
+ * </p>
+ *
+ * @author Almex
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DelaysStreamParserV2Benchmark {
+
+    @Param({"/sample1.json", "/sample2.json"})
+    private String resource;
+
+    private String json;
+    private DelaysRequestV2 request = new DelaysRequestV2("8444", LocalDate.of(2015, 4, 8), Language.EN);
+    private DelaysStreamParserV2 parser = new DelaysStreamParserV2();
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DelaysStreamParserV2Benchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                getClass().getResourceAsStream(resource), Charset.forName("cp1252")))) {
+            json = reader.lines().collect(Collectors.joining("\n"));
+        }
+    }
+
+    @Benchmark
+    public LineStop parse() {
+        return parser.parse(new DefaultStream<>(new StringReader(json), request));
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public LineStop parseWithJsonSlurper() {
+        JsonSlurper slurper = new JsonSlurper().setType(JsonParserType.CHAR_BUFFER);
+        List<List<Map<String, Object>>> tree = (List<List<Map<String, Object>>>) slurper.parse(new StringReader(json));
+        LineStop.Builder result = null;
+
+        for (Map<String, Object> object : tree.get(0)) {
+            if (!"".equals(object.get("csAt")) && !"".equals(object.get("csDt"))) {
+                LineStop.Builder builder = new LineStop.Builder()
+                        .date(request.getDay())
+                        .trainLine(new TrainLine.Builder(Long.parseLong((String) object.get("tNr"))).build())
+                        .station(new Station((String) object.get("cs"), request.getLanguage()))
+                        .departureTime(getTime(object.get("csDt"), object.get("dD")))
+                        .arrivalTime(getTime(object.get("csAt"), object.get("dA")))
+                        .canceledDeparture(Integer.valueOf(1).equals(object.get("sD")))
+                        .canceledArrival(Integer.valueOf(1).equals(object.get("sA")));
+
+                if (result == null) {
+                    result = builder;
+                } else {
+                    result.addNext(builder);
+                }
+            }
+        }
+
+        return result != null ? result.build() : null;
+    }
+
+    private static TimeDelay getTime(Object time, Object delay) {
+        return time != null ? TimeDelay.of(LocalTime.parse((String) time),
+                delay != null ? Delays.toMillis(((Number) delay).longValue()) : 0L) : null;
+    }
+}
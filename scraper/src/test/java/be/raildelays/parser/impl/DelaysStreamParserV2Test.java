@@ -0,0 +1,135 @@
+package be.raildelays.parser.impl;
+
+import be.raildelays.domain.Language;
+import be.raildelays.domain.entities.LineStop;
+import be.raildelays.httpclient.DefaultStream;
+import be.raildelays.httpclient.impl.DelaysRequestV2;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.BlockJUnit4ClassRunner;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Almex
+ */
+@RunWith(BlockJUnit4ClassRunner.class)
+public class DelaysStreamParserV2Test {
+
+    private DelaysStreamParserV2 parser;
+
+    @Before
+    public void setUp() throws Exception {
+        parser = new DelaysStreamParserV2();
+    }
+
+    private LineStop parse(String resource, LocalDate date) {
+        Reader reader = new InputStreamReader(getClass().getResourceAsStream(resource), Charset.forName("cp1252"));
+
+        return parser.parse(new DefaultStream<>(reader, new DelaysRequestV2("8444", date, Language.EN)));
+    }
+
+    private static List<String> stations(LineStop lineStop) {
+        List<String> result = new ArrayList<>();
+
+        for (LineStop stop = lineStop; stop != null; stop = stop.getNext()) {
+            result.add(stop.getStation().getName(Language.EN));
+        }
+
+        return result;
+    }
+
+    /**
+     * We expect to skip stations where the train does not stop and to read times and delays of the others.
+     */
+    @Test
+    public void testParseSample1() throws Exception {
+        LineStop lineStop = parse("/sample1.json", LocalDate.of(2015, 4, 8));
+
+        assertEquals(7, stations(lineStop).size());
+        assertEquals("Bruxelles-Midi", lineStop.getStation().getName(Language.EN));
+        assertNull(lineStop.getArrivalTime());
+        assertEquals(LocalTime.of(16, 20), lineStop.getDepartureTime().getExpectedTime());
+        assertEquals(Duration.ofMinutes(2).toMillis(), lineStop.getDepartureTime().getDelay());
+        assertEquals(8444L, lineStop.getTrainLine().getRouteId().longValue());
+        assertEquals(LocalDate.of(2015, 4, 8), lineStop.getDate());
+
+        LineStop next = lineStop.getNext();
+
+        assertEquals("Bruxelles-Central", next.getStation().getName(Language.EN));
+        assertEquals(LocalTime.of(16, 23), next.getArrivalTime().getExpectedTime());
+        assertEquals(Duration.ofMinutes(7).toMillis(), next.getArrivalTime().getDelay());
+        assertSame(lineStop, next.getPrevious());
+    }
+
+    @Test
+    public void testParseSample2() throws Exception {
+        LineStop lineStop = parse("/sample2.json", LocalDate.of(2015, 4, 30));
+
+        assertEquals("Liege-Guillemins", lineStop.getNext().getNext().getStation().getName(Language.EN));
+        assertTrue(lineStop.getNext().getNext().isCanceledArrival());
+        assertFalse(lineStop.getNext().getNext().isCanceledDeparture());
+    }
+
+    /**
+     * We expect one instance to parse several documents at the same time.
+     */
+    @Test
+    public void testParseConcurrently() throws Exception {
+        List<String> expected = stations(parse("/sample2.json", LocalDate.of(2015, 4, 30)));
+        List<CompletableFuture<LineStop>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> parse("/sample2.json", LocalDate.of(2015, 4, 30))));
+        }
+
+        for (CompletableFuture<LineStop> future : futures) {
+            assertEquals(expected, stations(future.get()));
+        }
+    }
+
+    @Test
+    public void testParseEmpty() throws Exception {
+        assertNull(parser.parse(new DefaultStream<>(new StringReader("[[]]"), null)));
+        assertNull(parser.parse(new DefaultStream<>(null, null)));
+    }
+
+    /**
+     * We expect the reader to be closed even if the rest of the document is not read.
+     */
+    @Test
+    public void testParseClose() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        Reader reader = new StringReader("[[{\"cs\":\"Namur\",\"csAt\":\"\",\"csDt\":\"\"}],[{\"unread\":1}]]") {
+            @Override
+            public void close() {
+                closed.set(true);
+                super.close();
+            }
+        };
+
+        assertNull(parser.parse(new DefaultStream<>(reader,
+                new DelaysRequestV2("8444", LocalDate.of(2015, 4, 8), Language.EN))));
+        assertTrue(closed.get());
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testParseMalformed() throws Exception {
+        parser.parse(new DefaultStream<>(new StringReader("[[{\"cs\":\"Namur"),
+                new DelaysRequestV2("8444", LocalDate.of(2015, 4, 8), Language.EN)));
+    }
+}